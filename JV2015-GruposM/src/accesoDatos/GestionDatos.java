@@ -354,6 +354,65 @@ public class GestionDatos {
 		return (Patron) patronesDAO.obtener(patron);
 	}
 	
+	/**
+	 * Metodo fachada para obtener todos los patrones. 
+	 * Reenvia petición al método DAO específico.
+	 * @return - una lista independiente con los patrones.
+	 */
+	public List<Patron> obtenerPatrones() {
+		return patronesDAO.obtenerTodos();
+	}
+	
+	/**
+	 * Clasifica en paralelo los patrones sin clasificación para B3/S23 y
+	 * guarda cada nueva clasificación con su patrón.
+	 * @return - el número de patrones clasificados.
+	 * @throws DatosException - si no se puede actualizar un patrón.
+	 */
+	public int clasificarPatrones() throws DatosException {
+		List<Patron> clasificados = new Clasificador().clasificarTodos(patronesDAO.obtenerTodos());
+		for (Patron patron : clasificados) {
+			patronesDAO.actualizar(patron);
+		}
+		return clasificados.size();
+	}
+
+	/**
+	 * Clasifica en paralelo los objetos raros de una búsqueda de sopas y
+	 * los da de alta como patrones; los que ya existen con el mismo
+	 * nombre o la misma forma se descartan.
+	 * @param resultado - el resultado de BusquedaSopas.
+	 * @param maxApariciones - las apariciones a partir de las que un objeto
+	 * deja de ser raro.
+	 * @return - el número de patrones nuevos.
+	 */
+	public int guardarRaros(ResultadoSopas resultado, int maxApariciones) {
+		List<Patron> raros = resultado.obtenerRaros(maxApariciones);
+		new Clasificador().clasificarTodos(raros);
+		int guardados = 0;
+		for (Patron patron : raros) {
+			try {
+				patronesDAO.alta(patron);
+				guardados++;
+			}
+			catch (DatosException e) {
+				// Ya existe; no es un objeto nuevo.
+			}
+		}
+		return guardados;
+	}
+	
+	/**
+	 * Metodo fachada para obtener un Patron con la misma forma que el
+	 * recibido, aunque esté desplazada, girada o reflejada. 
+	 * Reenvia petición al método DAO específico.
+	 * @param patron - el objeto de Patron cuya forma se busca.
+	 * @return - el Patron encontrado; null si la forma no está catalogada.
+	 */
+	public Patron obtenerPatronForma(Patron patron) {
+		return patronesDAO.obtenerForma(patron);
+	}
+	
 	/**
 	 * Metodo fachada para alta de una Patron. 
 	 * Reenvia petición al método DAO específico.
@@ -10,6 +10,7 @@ package accesoDatos.db4o;
  *  @author: ajp
  */
 import modelo.Mundo;
+import modelo.MundoDirecto;
 import modelo.Patron;
 import modelo.Posicion;
 import accesoDatos.DatosException;
@@ -134,6 +135,10 @@ public class MundosDAO implements OperacionesDAO {
 	public void alta(Object obj) throws DatosException {
 		Mundo mundo = (Mundo) obj;
 		if (obtener(mundo.getNombre()) == null) {
+			// db4o no almacena búferes directos: se guarda una copia en el heap.
+			if (mundo instanceof MundoDirecto) {
+				mundo = new Mundo(mundo);
+			}
 			// Almacena el Mundo en la base de datos
 			db.store(mundo);
 		}	
@@ -172,7 +177,8 @@ public class MundosDAO implements OperacionesDAO {
 		if (mundoAux != null) {	
 			//mundoAux.setNombre(mundoAux.getNombre());
 			mundoAux.setDistribucion(mundo.getDistribucion());
-			mundoAux.setEspacio(mundo.getEspacio());
+			mundoAux.setEspacio(mundo.getInstantanea());
+			mundoAux.setTopologia(mundo.getTopologia());
 			mundoAux.setConstantes(mundo.getConstantes());	
 			// Actualización
 			db.store(mundoAux);
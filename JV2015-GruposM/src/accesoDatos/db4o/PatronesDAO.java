@@ -9,12 +9,16 @@ package accesoDatos.db4o;
  *  @version: 1.1 - 2016/06/02 
  *  @author: ajp
  */
+import java.util.ArrayList;
+import java.util.List;
+
 import com.db4o.ObjectContainer;
 import com.db4o.ObjectSet;
 import com.db4o.query.Query;
 
 import accesoDatos.DatosException;
 import accesoDatos.OperacionesDAO;
+import modelo.Clasificacion;
 import modelo.Patron;
 
 public class PatronesDAO implements OperacionesDAO {
@@ -107,21 +111,57 @@ public class PatronesDAO implements OperacionesDAO {
 		return this.obtener(((Patron) obj).getNombre());
 	}
 	
+	/**
+	 * Obtiene todos los patrones almacenados.
+	 * @return - una lista independiente con los patrones.
+	 */
+	public List<Patron> obtenerTodos() {
+		ObjectSet<Patron>  result;
+		Query consulta = db.query();
+		consulta.constrain(Patron.class);
+		result = consulta.execute();
+		return new ArrayList<Patron>(result);
+	}
+	
+	/**
+	 * Obtiene un Patron con la misma forma que el recibido, aunque esté
+	 * desplazada, girada o reflejada; consulta por la huella almacenada y
+	 * sólo compara los que coinciden.
+	 * @param patron - el Patron cuya forma se busca.
+	 * @return - el Patron encontrado; null si la forma no está catalogada.
+	 */
+	public Patron obtenerForma(Patron patron) {
+		ObjectSet<Patron>  result;
+		Query consulta = db.query();
+		consulta.constrain(Patron.class);
+		consulta.descend("huella").constrain(patron.getHuella());
+		result = consulta.execute();
+		for (Patron candidato : result) {
+			if (candidato.mismaForma(patron)) {
+				return candidato;
+			}
+		}
+		return null;
+	}
+	
 	/**
 	 *  Alta de un nuevo Patron sin repeticiones según el campo 
-	 *  nombre. Intenta Obtener el objeto a almacenar.
+	 *  nombre ni según la forma. Intenta Obtener el objeto a almacenar.
 	 * @param obj - Patron a almacenar.
-	 * @throws DatosException - si ya existe.
+	 * @throws DatosException - si ya existe o su forma está catalogada.
 	 */
 	@Override
 	public void alta(Object obj) throws DatosException {
 		Patron patron = (Patron) obj;
-		if (obtener(patron.getNombre()) == null) {
-			db.store(patron);
-		}
-		else {
+		if (obtener(patron.getNombre()) != null) {
 			throw new DatosException("ALTA: El Patron ya existe...");
 		}
+		Patron igual = obtenerForma(patron);
+		if (igual != null) {
+			throw new DatosException("ALTA: La forma del Patron ya existe como " 
+					+ igual.getNombre() + "...");
+		}
+		db.store(patron);
 	}
 	
 	/**
@@ -152,8 +192,16 @@ public class PatronesDAO implements OperacionesDAO {
 		Patron patron = (Patron) obj;
 		Patron patronAux = obtener(patron.getNombre());
 		if (patronAux != null) {
+			Patron igual = obtenerForma(patron);
+			if (igual != null && igual != patronAux) {
+				throw new DatosException("ACTUALIZAR: La forma del Patron ya existe como " 
+						+ igual.getNombre() + "...");
+			}
+			Clasificacion clasificacion = patron.getClasificacion();
 			patronAux.setNombre(patron.getNombre());
 			patronAux.setEsquema(patron.getEsquema());
+			patronAux.setClasificacion(clasificacion);
+			patronAux.getHuella();		// la huella se almacena para consultarla
 			db.store(patronAux);
 		}
 		else
@@ -20,6 +20,7 @@ import accesoDatos.DatosException;
 import accesoDatos.OperacionesDAO;
 import accesoDatos.fichero.MundosDAO;
 import modelo.Mundo;
+import modelo.MundoDirecto;
 import modelo.Simulacion;
 import modelo.Usuario;
 import modelo.Simulacion.EstadoSimulacion;
@@ -135,6 +136,10 @@ public class SimulacionesDAO implements OperacionesDAO {
 	 */	
 	public void alta(Object obj) {
 		Simulacion simulacion = (Simulacion) obj;
+		// db4o no almacena búferes directos: se guarda una copia en el heap.
+		if (simulacion.getMundo() instanceof MundoDirecto) {
+			simulacion = new Simulacion(simulacion);
+		}
 		//actualiza datos
 		db.store(simulacion);	
 	}
@@ -158,7 +163,8 @@ public class SimulacionesDAO implements OperacionesDAO {
 		if(simulacionAux != null) {
 			simulacionAux.setUsr(simulacion.getUsr());
 			simulacionAux.setFecha(simulacion.getFecha());
-			simulacionAux.setMundo(simulacion.getMundo());
+			Mundo mundo = simulacion.getMundo();
+			simulacionAux.setMundo((mundo instanceof MundoDirecto) ? new Mundo(mundo) : mundo);
 			simulacionAux.setEstado(simulacion.getEstado());
 			db.store(simulacionAux);
 		}
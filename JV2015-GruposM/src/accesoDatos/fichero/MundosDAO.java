@@ -247,7 +247,8 @@ public class MundosDAO implements OperacionesDAO, Persistente {
 		Mundo mundoAux = obtener(mundo.getNombre());
 		if (mundoAux != null) {	
 			mundoAux.setDistribucion(mundo.getDistribucion());
-			mundoAux.setEspacio(mundo.getEspacio());
+			mundoAux.setEspacio(mundo.getInstantanea());
+			mundoAux.setTopologia(mundo.getTopologia());
 			mundoAux.setConstantes(mundo.getConstantes());
 			
 			// Actualización
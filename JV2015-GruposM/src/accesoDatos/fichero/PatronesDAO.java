@@ -19,11 +19,13 @@ import java.io.ObjectOutputStream;
 import java.util.ArrayList;
 import java.util.Hashtable;
 import java.util.List;
+import java.util.Map;
 
 import accesoDatos.DatosException;
 import accesoDatos.OperacionesDAO;
 import config.Configuracion;
 import modelo.Mundo;
+import modelo.Clasificacion;
 import modelo.Patron;
 import modelo.Posicion;
 
@@ -34,6 +36,8 @@ public class PatronesDAO implements OperacionesDAO, Persistente {
 	
 	// Elemento de almacenamiento. 
 	private static ArrayList<Patron> datosPatrones;
+	// Patrones por la huella de su forma; no se guarda, se reconstruye.
+	private static Map<Long, List<Patron>> formas;
 	private static File fPatrones;
 	
 	/**
@@ -43,6 +47,7 @@ public class PatronesDAO implements OperacionesDAO, Persistente {
 	 */
 	private PatronesDAO() throws DatosException {
 		datosPatrones = new ArrayList<Patron>();
+		formas = new Hashtable<Long, List<Patron>>();
 		fPatrones = new File(Configuracion.get().getProperty("patrones.nombreFichero"));
 		recuperarDatos();
 	}
@@ -79,6 +84,7 @@ public class PatronesDAO implements OperacionesDAO, Persistente {
 		};
 		Patron patronDemo = new Patron("Demo0", esquemaDemo);
 		datosPatrones.add(patronDemo);
+		añadirForma(patronDemo);
 		guardarDatos(datosPatrones);
 	}
 	
@@ -95,6 +101,7 @@ public class PatronesDAO implements OperacionesDAO, Persistente {
 				ObjectInputStream oisPatrones = new ObjectInputStream(fisPatrones);
 				datosPatrones = (ArrayList<Patron>) oisPatrones.readObject();
 				oisPatrones.close();
+				indexarFormas();
 			}
 			else {
 				throw new DatosException("El fichero de datos no existe...");
@@ -173,10 +180,37 @@ public class PatronesDAO implements OperacionesDAO, Persistente {
 	}
 	
 	/**
-	 *  Alta de un nuevo Patron en orden y sin repeticiones según el campo nombre. 
+	 * Obtiene todos los patrones almacenados, en orden de nombre.
+	 * @return - una lista independiente con los patrones.
+	 */
+	public List<Patron> obtenerTodos() {
+		return new ArrayList<Patron>(datosPatrones);
+	}
+	
+	/**
+	 * Búsqueda de un Patron con la misma forma que el recibido, aunque esté
+	 * desplazada, girada o reflejada; sólo compara los de la misma huella.
+	 * @param patron - el Patron cuya forma se busca.
+	 * @return - el Patron encontrado; null si la forma no está catalogada.
+	 */
+	public Patron obtenerForma(Patron patron) {
+		List<Patron> candidatos = formas.get(patron.getHuella());
+		if (candidatos != null) {
+			for (Patron candidato : candidatos) {
+				if (candidato.mismaForma(patron)) {
+					return candidato;
+				}
+			}
+		}
+		return null;
+	}
+	
+	/**
+	 *  Alta de un nuevo Patron en orden y sin repeticiones según el campo nombre
+	 *  ni según la forma. 
 	 *  Busca previamente la posición que le corresponde por búsqueda binaria.
 	 * @param obj - Patron a almacenar.
-	 * @throws DatosException - si ya existe.
+	 * @throws DatosException - si ya existe o su forma está catalogada.
 	 */
 	@Override
 	public void alta(Object obj) throws DatosException {
@@ -200,6 +234,13 @@ public class PatronesDAO implements OperacionesDAO, Persistente {
 				fin = medio - 1;
 			}
 		}
+		Patron igual = obtenerForma(patron);
+		if (igual != null) {
+			throw new DatosException("ALTA: La forma del Patron ya existe como " 
+					+ igual.getNombre() + "...");
+		}
+		datosPatrones.add(inicio, patron); 	// Inserta el patron en orden.
+		añadirForma(patron);
 	}
 
 	/**
@@ -214,6 +255,7 @@ public class PatronesDAO implements OperacionesDAO, Persistente {
 		if (patron != null) {
 			// Elimina el Mundo del almacen de datos.
 			datosPatrones.remove(patron);
+			eliminarForma(patron);
 		}	
 		else {
 			throw new DatosException("BAJA: El Patron no existe...");
@@ -231,7 +273,16 @@ public class PatronesDAO implements OperacionesDAO, Persistente {
 		Patron patron = (Patron) obj;
 		Patron patronAux = obtener(patron.getNombre());
 		if (patronAux != null) {	
+			Patron igual = obtenerForma(patron);
+			if (igual != null && igual != patronAux) {
+				throw new DatosException("ACTUALIZAR: La forma del Patron ya existe como " 
+						+ igual.getNombre() + "...");
+			}
+			Clasificacion clasificacion = patron.getClasificacion();
+			eliminarForma(patronAux);
 			patronAux.setEsquema(patron.getEsquema());	
+			patronAux.setClasificacion(clasificacion);
+			añadirForma(patronAux);
 			// Actualización
 			datosPatrones.set(datosPatrones.indexOf(patron), patronAux);
 		}	
@@ -240,6 +291,35 @@ public class PatronesDAO implements OperacionesDAO, Persistente {
 		}
 	}
 
+	/**
+	 *  Reconstruye el índice de formas a partir de la lista de patrones.
+	 */
+	private static void indexarFormas() {
+		formas.clear();
+		for (Patron patron : datosPatrones) {
+			añadirForma(patron);
+		}
+	}
+	
+	private static void añadirForma(Patron patron) {
+		List<Patron> mismaHuella = formas.get(patron.getHuella());
+		if (mismaHuella == null) {
+			mismaHuella = new ArrayList<Patron>(1);
+			formas.put(patron.getHuella(), mismaHuella);
+		}
+		mismaHuella.add(patron);
+	}
+	
+	private static void eliminarForma(Patron patron) {
+		List<Patron> mismaHuella = formas.get(patron.getHuella());
+		if (mismaHuella != null) {
+			mismaHuella.remove(patron);
+			if (mismaHuella.isEmpty()) {
+				formas.remove(patron.getHuella());
+			}
+		}
+	}
+	
 	/**
 	 * Obtiene el listado de todos los objetos Patron almacenados.
 	 * @return el texto con el volcado de datos.
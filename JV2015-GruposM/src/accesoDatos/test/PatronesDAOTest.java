@@ -0,0 +1,113 @@
+package accesoDatos.test;
+/**
+ * Proyecto: Juego de la vida.
+ *  Clase JUnit 4 para pruebas de PatronesDAO en memoria: el alta sin
+ *  repetir formas, la búsqueda por forma y la conservación de la
+ *  clasificación al actualizar.
+ *  @since: prototipo2.2
+ *  @source: PatronesDAOTest.java
+ *  @version: 1.0 - 2016/07/03
+ *  @author: ajp
+ */
+import static org.junit.Assert.*;
+
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import accesoDatos.DatosException;
+import accesoDatos.memoria.PatronesDAO;
+import modelo.Clasificacion;
+import modelo.Clasificador;
+import modelo.Patron;
+import modelo.Regla;
+
+public class PatronesDAOTest {
+
+	// R-pentominó y el mismo girado 90 grados y desplazado.
+	private static final byte[][] R_PENTOMINO = {
+		{ 0, 1, 1 },
+		{ 1, 1, 0 },
+		{ 0, 1, 0 }
+	};
+	private static final byte[][] R_PENTOMINO_GIRADO = {
+		{ 0, 0, 0, 0 },
+		{ 0, 0, 1, 0 },
+		{ 0, 1, 1, 1 },
+		{ 0, 0, 0, 1 }
+	};
+
+	private PatronesDAO dao;
+
+	@Before
+	public void iniciar() {
+		dao = PatronesDAO.getInstancia();
+	}
+
+	@After
+	public void borrarPrueba() {
+		for (String nombre : new String[] { "PruebaR", "PruebaRGirado", "PruebaBloque" }) {
+			if (dao.obtener(nombre) != null) {
+				try {
+					dao.baja(nombre);
+				}
+				catch (DatosException e) {
+					e.printStackTrace();
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testAltaMismaForma() throws DatosException {
+		Patron patron = new Patron("PruebaR", R_PENTOMINO);
+		Patron girado = new Patron("PruebaRGirado", R_PENTOMINO_GIRADO);
+		dao.alta(patron);
+		try {
+			dao.alta(girado);
+			fail("Debe rechazar una copia girada de un patrón almacenado");
+		}
+		catch (DatosException e) {
+			assertNull(dao.obtener("PruebaRGirado"));
+		}
+		// Tras la baja la forma deja de estar catalogada.
+		dao.baja("PruebaR");
+		dao.alta(girado);
+		assertSame(girado, dao.obtener("PruebaRGirado"));
+	}
+
+	@Test
+	public void testObtenerForma() throws DatosException {
+		Patron patron = new Patron("PruebaR", R_PENTOMINO);
+		assertNull(dao.obtenerForma(patron));
+		dao.alta(patron);
+		assertSame(patron, dao.obtenerForma(new Patron("Otro", R_PENTOMINO_GIRADO)));
+		assertSame(patron, dao.obtenerForma(new Patron("Otro", R_PENTOMINO)));
+		dao.baja("PruebaR");
+		assertNull(dao.obtenerForma(new Patron("Otro", R_PENTOMINO_GIRADO)));
+	}
+
+	@Test
+	public void testActualizarClasificacion() throws DatosException {
+		// Como GestionDatos.clasificarPatrones(): clasifica los almacenados y
+		// actualiza los clasificados ahora.
+		Clasificador clasificador = new Clasificador(Regla.CONWAY, 512, 2000);
+		dao.alta(new Patron("PruebaBloque", new byte[][] { { 1, 1 }, { 1, 1 } }));
+		List<Patron> clasificados = clasificador.clasificarTodos(dao.obtenerTodos());
+		assertTrue(clasificados.contains(dao.obtener("PruebaBloque")));
+		for (Patron patron : clasificados) {
+			dao.actualizar(patron);
+		}
+		Clasificacion clasificacion = dao.obtener("PruebaBloque").getClasificacion();
+		assertNotNull(clasificacion);
+		assertEquals(Clasificacion.Destino.ESTABLE, clasificacion.getDestino());
+		// No se vuelve a calcular, tampoco tras actualizar con una copia.
+		assertTrue(clasificador.clasificarTodos(dao.obtenerTodos()).isEmpty());
+		dao.actualizar(new Patron(dao.obtener("PruebaBloque")));
+		assertSame(clasificacion, dao.obtener("PruebaBloque").getClasificacion());
+		assertTrue(clasificador.clasificarTodos(dao.obtenerTodos()).isEmpty());
+	}
+
+} //class
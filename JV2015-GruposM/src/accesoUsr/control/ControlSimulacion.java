@@ -2,9 +2,11 @@ package accesoUsr.control;
 
 import accesoDatos.GestionDatos;
 import accesoUsr.vista.VistaSimulacionTexto;
+import modelo.DetectorCiclos;
 import modelo.Mundo;
 import modelo.SesionUsuario;
 import modelo.Simulacion;
+import modelo.Simulacion.EstadoSimulacion;
 
 public class ControlSimulacion {
 	GestionDatos datos = GestionDatos.getInstancia();
@@ -27,14 +29,31 @@ public class ControlSimulacion {
 	/**
 	 * Ejecuta una simulación del juego de la vida, en la consola,
 	 * durante un número de CICLOS.
+	 * Termina antes si el mundo llega a un estado fijo o a una oscilación;
+	 * entonces la simulación queda COMPLETADA con el periodo detectado.
 	 */
 	public void arrancarSimulacion() {
+		DetectorCiclos detector = new DetectorCiclos();
+		// La vista y el detector sólo procesan las celdas cambiadas.
+		mundo.setRegistroCambios(true);
+		detector.registrar(mundo);
 		int gen = 0; 		//Generaciones
 		do {
-			vista.mostrar("\nGeneración: " + gen);
+			vista.mostrar("\nGeneración: " + gen
+					+ "  Población: " + mundo.getEstadisticas().getPoblacion());
 			vista.mostrarMundo(this);
-			mundo = (Mundo) mundo.actualizarEstado();
+			mundo = mundo.avanzar(1);
 			gen++;
+			int periodo = detector.registrar(mundo);
+			if (periodo > 0) {
+				simulacion.setPeriodo(periodo);
+				simulacion.setEstado(EstadoSimulacion.COMPLETADA);
+				vista.mostrar("\nGeneración: " + gen);
+				vista.mostrarMundo(this);
+				vista.mostrar((periodo == 1) ? "\nEstado fijo."
+						: "\nOscilación de periodo " + periodo + ".");
+				return;
+			}
 		}
 		while (gen <= CICLOS);
 	}
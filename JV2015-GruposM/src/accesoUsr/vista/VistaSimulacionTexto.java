@@ -10,11 +10,17 @@ package accesoUsr.vista;
 import java.util.Scanner;
 
 import accesoUsr.control.ControlSimulacion;
+import modelo.ConjuntoCambios;
+import modelo.Mundo;
 
 public class VistaSimulacionTexto {
 	// Atributos
 	final int CICLOS = 120;
 	private Scanner teclado;
+	private byte[] instantanea;			// reutilizada entre generaciones
+	private char[] lienzo;				// última generación mostrada, fila a fila
+	private ConjuntoCambios cambios;	// cambios aplicados al lienzo
+	private long secuencia;
 	
 	public VistaSimulacionTexto() {
 		teclado = new Scanner(System.in);
@@ -23,14 +29,55 @@ public class VistaSimulacionTexto {
 	/**
 	 * Despliega en la consola el estado almacenado correspondiente
 	 * a una generación del Juego de la vida.
+	 * Si el mundo registra sus cambios y siguen a la generación mostrada
+	 * antes, sólo se actualizan en el lienzo las celdas cambiadas; si no,
+	 * se dibuja a partir de una instantánea estable del mundo.
 	 */
 	public void mostrarMundo(ControlSimulacion control) {
-		final int TAMAÑO = control.getMundo().getEspacio().length;
-		for (int i = 0; i < TAMAÑO; i++) {
-			for (int j = 0; j < TAMAÑO; j++) {
-				System.out.print((control.getMundo().getEspacio()[i][j] == 1) ? "|o" : "| ");
+		Mundo mundo = control.getMundo();
+		final int FILAS = mundo.getFilas();
+		final int COLUMNAS = mundo.getColumnas();
+		final int ANCHO = 2 * COLUMNAS + 1;
+		ConjuntoCambios nuevos = mundo.getCambios();
+		if (nuevos != null && nuevos == cambios && lienzo != null
+				&& lienzo.length == FILAS * ANCHO && nuevos.getSecuencia() - secuencia <= 1) {
+			if (nuevos.getSecuencia() != secuencia) {
+				for (int k = 0; k < nuevos.getNumCambios(); k++) {
+					int celda = nuevos.getFila(k) * ANCHO + 2 * nuevos.getColumna(k) + 1;
+					lienzo[celda] = (lienzo[celda] == 'o') ? ' ' : 'o';
+				}
 			}
-			System.out.println("|");
+		}
+		else {
+			dibujarLienzo(mundo);
+		}
+		cambios = nuevos;
+		if (nuevos != null) {
+			secuencia = nuevos.getSecuencia();
+		}
+		for (int i = 0; i < FILAS; i++) {
+			System.out.println(new String(lienzo, i * ANCHO, ANCHO));
+		}
+	}
+
+	/**
+	 * Dibuja todo el lienzo a partir de una instantánea del mundo.
+	 */
+	private void dibujarLienzo(Mundo mundo) {
+		instantanea = mundo.copiarCeldas(instantanea);
+		final int FILAS = mundo.getFilas();
+		final int COLUMNAS = mundo.getColumnas();
+		final int ANCHO = 2 * COLUMNAS + 1;
+		if (lienzo == null || lienzo.length != FILAS * ANCHO) {
+			lienzo = new char[FILAS * ANCHO];
+		}
+		for (int i = 0; i < FILAS; i++) {
+			int inicio = i * ANCHO;
+			for (int j = 0; j < COLUMNAS; j++) {
+				lienzo[inicio + 2 * j] = '|';
+				lienzo[inicio + 2 * j + 1] = (instantanea[i * COLUMNAS + j] == 1) ? 'o' : ' ';
+			}
+			lienzo[inicio + ANCHO - 1] = '|';
 		}
 	}
 	
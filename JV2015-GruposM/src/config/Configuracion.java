@@ -49,4 +49,21 @@ public class Configuracion {
 		return configuracion;
 	}
 
+	/**
+	 *  Obtiene un parámetro numérico entero de la configuración.
+	 *  @param clave - el nombre del parámetro.
+	 *  @param predeterminado - el valor si no existe o no es un entero.
+	 *  @return el valor del parámetro.
+	 */
+	public static int getEntero(String clave, int predeterminado) {
+		String valor = get().getProperty(clave);
+		if (valor != null) {
+			try {
+				return Integer.parseInt(valor.trim());
+			}
+			catch (NumberFormatException e) { }
+		}
+		return predeterminado;
+	}
+
 } // class
\ No newline at end of file
@@ -0,0 +1,242 @@
+package modelo;
+/**
+ * Proyecto: Juego de la vida.
+ *  Busca las posiciones en las que el esquema de un Patron coincide celda
+ *  a celda con el espacio de un Mundo, con huellas rodantes en dos
+ *  dimensiones (Rabin-Karp) sobre las filas empaquetadas a nivel de bit.
+ *  La huella de cada ventana de una fila se obtiene de las palabras de 64
+ *  celdas que la forman, y la de cada ventana del alto del esquema se
+ *  actualiza al avanzar de fila sumando la fila que entra y restando la
+ *  que sale; sólo las ventanas con la huella del esquema se comparan
+ *  celda a celda. El coste es proporcional al área del mundo por las
+ *  palabras de ancho del esquema, y no por su área.
+ *  Las filas más cortas del esquema se completan con celdas vacías, que
+ *  también deben coincidir. Las coincidencias no dan la vuelta a los
+ *  bordes, sea cual sea la topología.
+ *  Reutiliza el array de trabajo entre búsquedas, por lo que cada hilo
+ *  debe utilizar su propia BusquedaPatron.
+ *  @since: prototipo2.2
+ *  @source: BusquedaPatron.java
+ *  @version: 1.0 - 2016/07/05
+ *  @author: ajp
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+public class BusquedaPatron {
+
+	private static final long MULTIPLICADOR = 0x9E3779B97F4A7C15L;
+
+	// Atributos
+	private List<Forma> formas;
+	private long[] bits;
+
+	/**
+	 * Esquema en una orientación, empaquetado como las filas del mundo.
+	 */
+	private static class Forma {
+		private final int alto;
+		private final int ancho;
+		private final long[][] filas;
+		private final long huella;
+		private final long potencia;		// MULTIPLICADOR ^ alto
+
+		Forma(byte[][] esquema) {
+			alto = esquema.length;
+			ancho = esquema[0].length;
+			filas = new long[alto][(ancho + 63) / 64];
+			long huella = 0;
+			long potencia = 1;
+			for (int i = 0; i < alto; i++) {
+				for (int j = 0; j < ancho; j++) {
+					if (esquema[i][j] != 0) {
+						filas[i][j >>> 6] |= 1L << j;
+					}
+				}
+				huella = huella * MULTIPLICADOR + huellaFila(filas[i], 0, filas[i].length, 0, ancho);
+				potencia *= MULTIPLICADOR;
+			}
+			this.huella = huella;
+			this.potencia = potencia;
+		}
+	}
+
+	/**
+	 * Constructor convencional.
+	 * Prepara el esquema en cada orientación distinta; en los patrones
+	 * simétricos varias coinciden y se buscan una sola vez.
+	 * @param patron
+	 * @param orientaciones - si se buscan también los giros y reflexiones.
+	 */
+	public BusquedaPatron(Patron patron, boolean orientaciones) {
+		byte[][] esquema = rectangular(patron.getEsquema());
+		List<byte[][]> distintos = new ArrayList<byte[][]>();
+		for (int orientacion = 0; orientacion < (orientaciones ? 8 : 1); orientacion++) {
+			byte[][] orientado = orientar(esquema, orientacion);
+			boolean repetido = false;
+			for (byte[][] anterior : distintos) {
+				repetido = repetido || Arrays.deepEquals(anterior, orientado);
+			}
+			if (!repetido) {
+				distintos.add(orientado);
+			}
+		}
+		formas = new ArrayList<Forma>();
+		for (byte[][] orientado : distintos) {
+			formas.add(new Forma(orientado));
+		}
+	}
+
+	/**
+	 * Busca el patrón en la generación actual de un mundo.
+	 * @param mundo
+	 * @return la esquina superior izquierda de cada coincidencia, x la fila
+	 * e y la columna, ordenadas por filas y columnas.
+	 */
+	public List<Posicion> buscar(Mundo mundo) {
+		bits = mundo.copiarBits(bits);
+		List<Posicion> encontradas = new ArrayList<Posicion>();
+		for (Forma forma : formas) {
+			buscar(forma, mundo.getFilas(), mundo.getColumnas(), encontradas);
+		}
+		if (formas.size() > 1) {
+			Collections.sort(encontradas, new Comparator<Posicion>() {
+				@Override
+				public int compare(Posicion p1, Posicion p2) {
+					if (p1.getX() != p2.getX()) {
+						return Integer.compare(p1.getX(), p2.getX());
+					}
+					return Integer.compare(p1.getY(), p2.getY());
+				}
+			});
+		}
+		return encontradas;
+	}
+
+	/**
+	 * Recorre el mundo fila a fila manteniendo, para cada columna, la huella
+	 * de la ventana del alto de la forma que termina en la fila actual; las
+	 * huellas de las filas de la ventana se guardan en un anillo para
+	 * restarlas cuando salen.
+	 */
+	private void buscar(Forma forma, int filas, int columnas, List<Posicion> encontradas) {
+		int posiciones = columnas - forma.ancho + 1;
+		if (posiciones <= 0 || filas < forma.alto) {
+			return;
+		}
+		int palabrasFila = (columnas + 63) / 64;
+		long[][] anillo = new long[forma.alto][posiciones];
+		long[] huellas = new long[posiciones];
+		for (int i = 0; i < filas; i++) {
+			long[] saliente = anillo[i % forma.alto];
+			boolean completa = i >= forma.alto;
+			int base = i * palabrasFila;
+			for (int j = 0; j < posiciones; j++) {
+				long huellaFila = huellaFila(bits, base, palabrasFila, j, forma.ancho);
+				huellas[j] = huellas[j] * MULTIPLICADOR + huellaFila
+						- (completa ? saliente[j] * forma.potencia : 0);
+				saliente[j] = huellaFila;
+			}
+			if (i >= forma.alto - 1) {
+				int fila = i - forma.alto + 1;
+				for (int j = 0; j < posiciones; j++) {
+					if (huellas[j] == forma.huella && coincide(forma, fila, j, palabrasFila)) {
+						encontradas.add(new Posicion(fila, j));
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Compara celda a celda, palabra a palabra, la forma con la ventana del
+	 * mundo que empieza en la fila y columna indicadas.
+	 */
+	private boolean coincide(Forma forma, int fila, int columna, int palabrasFila) {
+		for (int i = 0; i < forma.alto; i++) {
+			int base = (fila + i) * palabrasFila;
+			for (int m = 0; m < forma.filas[i].length; m++) {
+				int longitud = Math.min(64, forma.ancho - 64 * m);
+				if (extraer(bits, base, palabrasFila, columna + 64 * m, longitud) != forma.filas[i][m]) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Huella de las celdas [desde, desde + ancho) de una fila empaquetada,
+	 * combinando sus palabras de 64 celdas.
+	 */
+	private static long huellaFila(long[] palabras, int base, int palabrasFila, int desde, int ancho) {
+		long huella = 0;
+		for (int m = 0; m < ancho; m += 64) {
+			huella = DetectorCiclos.zobrist(huella
+					^ extraer(palabras, base, palabrasFila, desde + m, Math.min(64, ancho - m)));
+		}
+		return huella;
+	}
+
+	/**
+	 * Obtiene hasta 64 celdas consecutivas de una fila empaquetada.
+	 * @param palabras - las filas empaquetadas.
+	 * @param base - la primera palabra de la fila.
+	 * @param palabrasFila - las palabras de cada fila.
+	 * @param desde - la primera columna.
+	 * @param longitud - el número de celdas, de 1 a 64.
+	 * @return las celdas en los bits bajos, la primera en el bit 0.
+	 */
+	private static long extraer(long[] palabras, int base, int palabrasFila, int desde, int longitud) {
+		int w = desde >>> 6;
+		int desplazamiento = desde & 63;
+		long valor = palabras[base + w] >>> desplazamiento;
+		if (desplazamiento != 0 && w + 1 < palabrasFila) {
+			valor |= palabras[base + w + 1] << (64 - desplazamiento);
+		}
+		return (longitud == 64) ? valor : valor & ((1L << longitud) - 1);
+	}
+
+	/**
+	 * Copia el esquema completando las filas cortas con celdas vacías.
+	 */
+	private static byte[][] rectangular(byte[][] esquema) {
+		int ancho = 1;
+		for (byte[] fila : esquema) {
+			if (fila != null) {
+				ancho = Math.max(ancho, fila.length);
+			}
+		}
+		byte[][] copia = new byte[esquema.length][ancho];
+		for (int i = 0; i < esquema.length; i++) {
+			if (esquema[i] != null) {
+				for (int j = 0; j < esquema[i].length; j++) {
+					copia[i][j] = (byte) (esquema[i][j] != 0 ? 1 : 0);
+				}
+			}
+		}
+		return copia;
+	}
+
+	/**
+	 * Aplica al esquema completo una de las 8 orientaciones de Patron.
+	 */
+	private static byte[][] orientar(byte[][] esquema, int orientacion) {
+		int alto = esquema.length;
+		int ancho = esquema[0].length;
+		boolean traspuesto = (orientacion & 4) != 0;
+		byte[][] orientado = traspuesto ? new byte[ancho][alto] : new byte[alto][ancho];
+		for (int i = 0; i < alto; i++) {
+			for (int j = 0; j < ancho; j++) {
+				long celda = Patron.orientar(orientacion, i, j, alto, ancho);
+				orientado[(int) (celda >>> 32)][(int) celda] = esquema[i][j];
+			}
+		}
+		return orientado;
+	}
+
+} //class
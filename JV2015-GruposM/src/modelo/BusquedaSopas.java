@@ -0,0 +1,201 @@
+package modelo;
+/**
+ * Proyecto: Juego de la vida.
+ *  Busca objetos en sopas aleatorias: cuadrados del lado indicado con
+ *  cada célula viva con probabilidad 1/2, que evolucionan solos en un
+ *  MundoIlimitado hasta estabilizarse y después se cuentan con un Censo.
+ *  Una sopa se considera estable cuando su población repite un ciclo de
+ *  periodo PERIODO_MAX o menor durante las últimas VENTANA generaciones;
+ *  las naves que escapan no lo impiden, y se cuentan donde estén.
+ *  Las sopas se reparten por lotes entre los hilos del pool de
+ *  MundoParalelo, y cada tarea divide su generador SplittableRandom al
+ *  dividirse, de modo que cada búsqueda calcula las mismas sopas con
+ *  cualquier número de hilos. Los resultados de cada lote se combinan
+ *  en un ResultadoSopas.
+ *  @since: prototipo2.2
+ *  @source: BusquedaSopas.java
+ *  @version: 1.0 - 2016/07/07
+ *  @author: ajp
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.RecursiveTask;
+
+import config.Configuracion;
+
+public class BusquedaSopas {
+
+	// Mayor periodo de la población que se considera estable.
+	private static final int PERIODO_MAX = 30;
+	// Generaciones en que debe repetirse el ciclo de la población.
+	private static final int VENTANA = 120;
+	// Cada cuántas generaciones se comprueba si la sopa es estable.
+	private static final int COMPROBACION = 30;
+
+	// Atributos
+	private final SplittableRandom aleatorio;
+	private final int lado;
+	private final Regla regla;
+	private final List<Patron> catalogo;
+	private final int maxGeneraciones;
+	private final int lote;
+
+	/**
+	 * Constructor convencional.
+	 * Las generaciones máximas por sopa y las sopas por tarea se leen de
+	 * sopas.generaciones y sopas.lote de la configuración.
+	 * @param semilla - determina todas las sopas de las búsquedas sucesivas.
+	 * @param lado - el lado de las sopas.
+	 * @param regla - null equivale a B3/S23.
+	 * @param catalogo - los patrones que reconoce el censo.
+	 */
+	public BusquedaSopas(long semilla, int lado, Regla regla, Collection<Patron> catalogo) {
+		assert lado > 0;
+		this.aleatorio = new SplittableRandom(semilla);
+		this.lado = lado;
+		this.regla = (regla != null) ? regla : Regla.CONWAY;
+		this.catalogo = new ArrayList<Patron>(catalogo);
+		this.maxGeneraciones = Math.max(VENTANA + PERIODO_MAX,
+				Configuracion.getEntero("sopas.generaciones", 8000));
+		this.lote = Math.max(1, Configuracion.getEntero("sopas.lote", 64));
+	}
+
+	/**
+	 * Constructor con la semilla.
+	 * Busca con B3/S23, el lado sopas.lado de la configuración y el
+	 * catálogo de Censo.obtenerPredeterminados().
+	 * @param semilla
+	 */
+	public BusquedaSopas(long semilla) {
+		this(semilla, Configuracion.getEntero("sopas.lado", 16), Regla.CONWAY,
+				Censo.obtenerPredeterminados());
+	}
+
+	/**
+	 * @return el lado de las sopas.
+	 */
+	public int getLado() {
+		return lado;
+	}
+
+	/**
+	 * @return la regla con la que evolucionan las sopas.
+	 */
+	public Regla getRegla() {
+		return regla;
+	}
+
+	/**
+	 * Calcula y cuenta en paralelo las siguientes sopas de la búsqueda.
+	 * @param numSopas - el número de sopas, no negativo.
+	 * @return el resultado de estas sopas, que puede combinarse con el de
+	 * búsquedas anteriores.
+	 */
+	public synchronized ResultadoSopas buscar(long numSopas) {
+		assert numSopas >= 0;
+		return MundoParalelo.getPool().invoke(new TareaSopas(numSopas, aleatorio.split()));
+	}
+
+	/**
+	 * Calcula y cuenta un lote de sopas en el hilo actual con su propio censo.
+	 */
+	private ResultadoSopas calcularLote(long numSopas, SplittableRandom aleatorio) {
+		long inicio = System.nanoTime();
+		ResultadoSopas resultado = new ResultadoSopas();
+		Censo censo = new Censo(catalogo);
+		List<Patron> desconocidos = new ArrayList<Patron>();
+		int[] poblaciones = new int[maxGeneraciones + 1];
+		for (long n = 0; n < numSopas; n++) {
+			MundoIlimitado mundo = new MundoIlimitado("Sopa",
+					Arrays.asList(regla.getNacimiento(), regla.getSupervivencia()),
+					null, lado, lado);
+			for (int i = 0; i < lado; i++) {
+				for (int j = 0; j < lado; j += 64) {
+					long bits = aleatorio.nextLong();
+					for (int k = 0; k < 64 && j + k < lado; k++) {
+						if ((bits >>> k & 1) != 0) {
+							mundo.setCelda(i, j + k, (byte) 1);
+						}
+					}
+				}
+			}
+			int generaciones = estabilizar(mundo, poblaciones);
+			desconocidos.clear();
+			Map<String, Integer> recuento = censo.contar(mundo, desconocidos);
+			resultado.añadirSopa(recuento, desconocidos, Math.abs(generaciones), generaciones >= 0);
+		}
+		resultado.añadirNanos(System.nanoTime() - inicio);
+		return resultado;
+	}
+
+	/**
+	 * Evoluciona la sopa anotando su población en cada generación hasta
+	 * que es estable o llega a las generaciones máximas.
+	 * @return la generación en que es estable o, si no llega a serlo, las
+	 * generaciones máximas en negativo.
+	 */
+	private int estabilizar(MundoIlimitado mundo, int[] poblaciones) {
+		for (int gen = 0; ; gen++) {
+			poblaciones[gen] = (int) mundo.getPoblacion();
+			if (gen >= VENTANA + PERIODO_MAX && gen % COMPROBACION == 0
+					&& esPeriodica(poblaciones, gen)) {
+				return gen;
+			}
+			if (gen == maxGeneraciones) {
+				return -gen;
+			}
+			mundo.actualizarEstado();
+		}
+	}
+
+	/**
+	 * Comprueba si las últimas VENTANA poblaciones hasta la generación
+	 * indicada se repiten con algún periodo hasta PERIODO_MAX.
+	 */
+	private static boolean esPeriodica(int[] poblaciones, int gen) {
+		for (int periodo = 1; periodo <= PERIODO_MAX; periodo++) {
+			int k = 0;
+			while (k < VENTANA && poblaciones[gen - k] == poblaciones[gen - k - periodo]) {
+				k++;
+			}
+			if (k == VENTANA) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Tarea que divide un número de sopas por la mitad, junto con su
+	 * generador, hasta dejar un lote y entonces lo calcula.
+	 */
+	private class TareaSopas extends RecursiveTask<ResultadoSopas> {
+
+		private long numSopas;
+		private SplittableRandom aleatorio;
+
+		TareaSopas(long numSopas, SplittableRandom aleatorio) {
+			this.numSopas = numSopas;
+			this.aleatorio = aleatorio;
+		}
+
+		@Override
+		protected ResultadoSopas compute() {
+			if (numSopas <= lote) {
+				return calcularLote(numSopas, aleatorio);
+			}
+			long mitad = numSopas >>> 1;
+			TareaSopas primera = new TareaSopas(mitad, aleatorio.split());
+			TareaSopas segunda = new TareaSopas(numSopas - mitad, aleatorio);
+			primera.fork();
+			ResultadoSopas resultado = segunda.compute();
+			return resultado.combinar(primera.join());
+		}
+	}
+
+} //class
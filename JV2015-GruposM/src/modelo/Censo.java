@@ -0,0 +1,413 @@
+package modelo;
+/**
+ * Proyecto: Juego de la vida.
+ *  Cuenta los objetos conocidos presentes en un Mundo. Separa las células
+ *  vivas en grupos conexos con un único recorrido del espacio, calcula la
+ *  huella de forma de cada grupo como Patron.getHuella() y la busca en un
+ *  índice del catálogo de patrones, por lo que el coste es proporcional
+ *  al tamaño del mundo y no depende del número de patrones.
+ *  Dos células pertenecen al mismo grupo si su distancia en filas y en
+ *  columnas no supera el alcance, que es el menor con el que todos los
+ *  patrones del catálogo forman un solo grupo: 1 para los objetos
+ *  conexos como el bloque o el planeador, 2 si hay naves como la ligera.
+ *  Los grupos siguen la topología del mundo a través de los bordes. En
+ *  un MundoIlimitado se cuentan todas sus células, no sólo la ventana,
+ *  recorriendo los grupos en una tabla de células vivas.
+ *  Reutiliza sus arrays de trabajo entre recuentos, por lo que cada hilo
+ *  debe utilizar su propio Censo.
+ *  @since: prototipo2.2
+ *  @source: Censo.java
+ *  @version: 1.0 - 2016/07/04
+ *  @author: ajp
+ */
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Hashtable;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import modelo.Mundo.Topologia;
+import util.TablaLong;
+
+public class Censo {
+
+	// Nombre con el que se cuentan los grupos que no están en el catálogo.
+	public static final String DESCONOCIDO = "Desconocido";
+
+	// Atributos
+	private Map<Long, List<Entrada>> indice;
+	private int alcance;
+	private int maxVivas;			// tamaño del mayor patrón del catálogo
+	private byte[] celdas;
+	private int[] pila;				// posición en el mundo de cada célula del grupo
+	private int[] filasGrupo;		// fila y columna sin dar la vuelta a los bordes
+	private int[] columnasGrupo;
+	private boolean[] invertidas;	// si la columna crece hacia la izquierda (KLEIN)
+
+	/**
+	 * Patrón del catálogo con sus células vivas preparadas para comparar.
+	 */
+	private static class Entrada {
+		private final Patron patron;
+		private final int[] vivas;
+
+		Entrada(Patron patron, int[] vivas) {
+			this.patron = patron;
+			this.vivas = vivas;
+		}
+	}
+
+	/**
+	 * Constructor convencional.
+	 * Indexa el catálogo por la huella de forma de cada patrón; si varios
+	 * tienen la misma forma los grupos se cuentan con el nombre del primero.
+	 * Los patrones sin células vivas se ignoran.
+	 * @param catalogo - los patrones a reconocer.
+	 */
+	public Censo(Collection<Patron> catalogo) {
+		indice = new Hashtable<Long, List<Entrada>>();
+		alcance = 1;
+		pila = new int[64];
+		filasGrupo = new int[64];
+		columnasGrupo = new int[64];
+		invertidas = new boolean[64];
+		for (Patron patron : catalogo) {
+			añadir(patron);
+		}
+	}
+
+	/**
+	 * Constructor por defecto: el catálogo de objetos comunes.
+	 */
+	public Censo() {
+		this(obtenerPredeterminados());
+	}
+
+	/**
+	 * Obtiene los objetos más comunes tras la evolución de una sopa
+	 * aleatoria con B3/S23. Las naves incluyen las fases que no son giros
+	 * o reflexiones de otra, todas con el mismo nombre.
+	 * @return la lista de patrones.
+	 */
+	public static List<Patron> obtenerPredeterminados() {
+		List<Patron> patrones = new ArrayList<Patron>();
+		patrones.add(new Patron("Bloque", new byte[][] {
+			{ 1, 1 },
+			{ 1, 1 } }));
+		patrones.add(new Patron("Colmena", new byte[][] {
+			{ 0, 1, 1, 0 },
+			{ 1, 0, 0, 1 },
+			{ 0, 1, 1, 0 } }));
+		patrones.add(new Patron("Pan", new byte[][] {
+			{ 0, 1, 1, 0 },
+			{ 1, 0, 0, 1 },
+			{ 0, 1, 0, 1 },
+			{ 0, 0, 1, 0 } }));
+		patrones.add(new Patron("Barco", new byte[][] {
+			{ 1, 1, 0 },
+			{ 1, 0, 1 },
+			{ 0, 1, 0 } }));
+		patrones.add(new Patron("Bañera", new byte[][] {
+			{ 0, 1, 0 },
+			{ 1, 0, 1 },
+			{ 0, 1, 0 } }));
+		patrones.add(new Patron("Estanque", new byte[][] {
+			{ 0, 1, 1, 0 },
+			{ 1, 0, 0, 1 },
+			{ 1, 0, 0, 1 },
+			{ 0, 1, 1, 0 } }));
+		patrones.add(new Patron("Parpadeador", new byte[][] {
+			{ 1, 1, 1 } }));
+		patrones.add(new Patron("Planeador", new byte[][] {
+			{ 0, 1, 0 },
+			{ 0, 0, 1 },
+			{ 1, 1, 1 } }));
+		patrones.add(new Patron("Planeador", new byte[][] {
+			{ 1, 0, 1 },
+			{ 0, 1, 1 },
+			{ 0, 1, 0 } }));
+		patrones.add(new Patron("Nave ligera", new byte[][] {
+			{ 0, 1, 0, 0, 1 },
+			{ 1, 0, 0, 0, 0 },
+			{ 1, 0, 0, 0, 1 },
+			{ 1, 1, 1, 1, 0 } }));
+		patrones.add(new Patron("Nave ligera", new byte[][] {
+			{ 0, 1, 1, 0, 0 },
+			{ 1, 1, 1, 1, 0 },
+			{ 1, 1, 0, 1, 1 },
+			{ 0, 0, 1, 1, 0 } }));
+		return patrones;
+	}
+
+	/**
+	 * Añade un patrón al catálogo y amplía el alcance si sus células no
+	 * forman un solo grupo con el actual.
+	 * @param patron
+	 */
+	public void añadir(Patron patron) {
+		int[] vivas = patron.obtenerVivas();
+		if (vivas.length == 2) {
+			return;
+		}
+		long huella = Patron.calcularHuella(vivas);
+		List<Entrada> mismaHuella = indice.get(huella);
+		if (mismaHuella == null) {
+			mismaHuella = new ArrayList<Entrada>(1);
+			indice.put(huella, mismaHuella);
+		}
+		for (Entrada entrada : mismaHuella) {
+			if (Patron.coincidenVivas(vivas, entrada.vivas)) {
+				return;
+			}
+		}
+		mismaHuella.add(new Entrada(patron, vivas));
+		maxVivas = Math.max(maxVivas, vivas.length / 2 - 1);
+		while (!esConexo(vivas, alcance)) {
+			alcance++;
+		}
+	}
+
+	/**
+	 * @return la distancia máxima entre dos células de un mismo grupo.
+	 */
+	public int getAlcance() {
+		return alcance;
+	}
+
+	/**
+	 * Cuenta los objetos del mundo en su generación actual.
+	 * @param mundo
+	 * @return el número de grupos de cada patrón del catálogo presente,
+	 * por nombre, y los que no coinciden con ninguno como DESCONOCIDO.
+	 */
+	public Map<String, Integer> contar(Mundo mundo) {
+		return contar(mundo, null);
+	}
+
+	/**
+	 * Cuenta los objetos del mundo en su generación actual y recoge la
+	 * forma de los grupos que no están en el catálogo.
+	 * @param mundo
+	 * @param desconocidos - recibe un Patron llamado DESCONOCIDO por cada
+	 * grupo desconocido, recortado a su rectángulo; puede ser null.
+	 * @return el número de grupos de cada patrón del catálogo presente,
+	 * por nombre, y los que no coinciden con ninguno como DESCONOCIDO.
+	 */
+	public Map<String, Integer> contar(Mundo mundo, List<Patron> desconocidos) {
+		Map<String, Integer> recuento = new TreeMap<String, Integer>();
+		if (mundo instanceof MundoIlimitado) {
+			contarIlimitado((MundoIlimitado) mundo, recuento, desconocidos);
+			return recuento;
+		}
+		celdas = mundo.copiarCeldas(celdas);
+		int columnas = mundo.getColumnas();
+		for (int celda = 0; celda < celdas.length; celda++) {
+			if (celdas[celda] == 0) {
+				continue;
+			}
+			int numVivas = recorrerGrupo(celda, mundo.getFilas(), columnas, mundo.getTopologia());
+			anotar(numVivas, recuento, desconocidos);
+		}
+		return recuento;
+	}
+
+	/**
+	 * Recorre los grupos de todas las células vivas de un mundo ilimitado:
+	 * las guarda en una tabla y las retira según las alcanza cada grupo.
+	 */
+	private void contarIlimitado(MundoIlimitado mundo, Map<String, Integer> recuento,
+			List<Patron> desconocidos) {
+		long[] vivas = mundo.copiarVivas();
+		TablaLong<Boolean> pendientes = new TablaLong<Boolean>();
+		for (long viva : vivas) {
+			pendientes.put(viva, Boolean.TRUE);
+		}
+		for (long viva : vivas) {
+			if (pendientes.remove(viva) == null) {
+				continue;
+			}
+			filasGrupo[0] = (int) (viva >> 32);
+			columnasGrupo[0] = (int) viva;
+			int numVivas = 1;
+			for (int k = 0; k < numVivas; k++) {
+				for (int df = -alcance; df <= alcance; df++) {
+					for (int dc = -alcance; dc <= alcance; dc++) {
+						int fila = filasGrupo[k] + df;
+						int columna = columnasGrupo[k] + dc;
+						if (pendientes.remove(((long) fila << 32) | (columna & 0xFFFFFFFFL)) != null) {
+							if (numVivas == pila.length) {
+								ampliarPila();
+							}
+							filasGrupo[numVivas] = fila;
+							columnasGrupo[numVivas] = columna;
+							numVivas++;
+						}
+					}
+				}
+			}
+			anotar(numVivas, recuento, desconocidos);
+		}
+	}
+
+	/**
+	 * Cuenta el grupo que está en la pila con el nombre de su patrón o
+	 * como DESCONOCIDO, y en ese caso lo recoge si se ha pedido.
+	 */
+	private void anotar(int numVivas, Map<String, Integer> recuento, List<Patron> desconocidos) {
+		String nombre = DESCONOCIDO;
+		if (numVivas <= maxVivas || desconocidos != null) {
+			int[] vivas = normalizarGrupo(numVivas);
+			Patron patron = (numVivas <= maxVivas) ? reconocer(vivas) : null;
+			if (patron != null) {
+				nombre = patron.getNombre();
+			}
+			else if (desconocidos != null) {
+				byte[][] esquema = new byte[vivas[0]][vivas[1]];
+				for (int k = 2; k < vivas.length; k += 2) {
+					esquema[vivas[k]][vivas[k + 1]] = 1;
+				}
+				desconocidos.add(new Patron(DESCONOCIDO, esquema));
+			}
+		}
+		Integer cuenta = recuento.get(nombre);
+		recuento.put(nombre, (cuenta == null) ? 1 : cuenta + 1);
+	}
+
+	/**
+	 * Recorre el grupo de una célula viva y lo deja en la pila, con la fila
+	 * y la columna de cada célula relativas a la primera, y lo borra de la
+	 * copia de las celdas.
+	 * En KLEIN, al cruzar el borde superior o inferior se invierte el
+	 * sentido de las columnas del mundo respecto a las del grupo.
+	 * @return el número de células del grupo.
+	 */
+	private int recorrerGrupo(int celda, int filas, int columnas, Topologia topologia) {
+		celdas[celda] = 0;
+		pila[0] = celda;
+		filasGrupo[0] = 0;
+		columnasGrupo[0] = 0;
+		invertidas[0] = false;
+		int numVivas = 1;
+		for (int k = 0; k < numVivas; k++) {
+			int fila = pila[k] / columnas;
+			int columna = pila[k] - fila * columnas;
+			boolean invertida = invertidas[k];
+			for (int df = -alcance; df <= alcance; df++) {
+				for (int dc = -alcance; dc <= alcance; dc++) {
+					int filaVecina = fila + df;
+					int columnaVecina = columna + (invertida ? -dc : dc);
+					boolean cruza = false;
+					if (filaVecina < 0 || filaVecina >= filas
+							|| columnaVecina < 0 || columnaVecina >= columnas) {
+						if (topologia == Topologia.LIMITADA) {
+							continue;
+						}
+						cruza = (filaVecina < 0 || filaVecina >= filas) && topologia == Topologia.KLEIN;
+						filaVecina = ((filaVecina % filas) + filas) % filas;
+						columnaVecina = ((columnaVecina % columnas) + columnas) % columnas;
+						if (cruza) {
+							columnaVecina = columnas - 1 - columnaVecina;
+						}
+					}
+					int vecina = filaVecina * columnas + columnaVecina;
+					if (celdas[vecina] != 0) {
+						celdas[vecina] = 0;
+						if (numVivas == pila.length) {
+							ampliarPila();
+						}
+						pila[numVivas] = vecina;
+						filasGrupo[numVivas] = filasGrupo[k] + df;
+						columnasGrupo[numVivas] = columnasGrupo[k] + dc;
+						invertidas[numVivas] = invertida ^ cruza;
+						numVivas++;
+					}
+				}
+			}
+		}
+		return numVivas;
+	}
+
+	private void ampliarPila() {
+		int capacidad = 2 * pila.length;
+		int[] aux = new int[capacidad];
+		System.arraycopy(pila, 0, aux, 0, pila.length);
+		pila = aux;
+		aux = new int[capacidad];
+		System.arraycopy(filasGrupo, 0, aux, 0, filasGrupo.length);
+		filasGrupo = aux;
+		aux = new int[capacidad];
+		System.arraycopy(columnasGrupo, 0, aux, 0, columnasGrupo.length);
+		columnasGrupo = aux;
+		boolean[] auxInvertidas = new boolean[capacidad];
+		System.arraycopy(invertidas, 0, auxInvertidas, 0, invertidas.length);
+		invertidas = auxInvertidas;
+	}
+
+	/**
+	 * Obtiene las células del grupo que está en la pila relativas a su
+	 * rectángulo, con el formato de Patron.
+	 */
+	private int[] normalizarGrupo(int numVivas) {
+		int filaMin = Integer.MAX_VALUE;
+		int filaMax = Integer.MIN_VALUE;
+		int columnaMin = Integer.MAX_VALUE;
+		int columnaMax = Integer.MIN_VALUE;
+		for (int k = 0; k < numVivas; k++) {
+			filaMin = Math.min(filaMin, filasGrupo[k]);
+			filaMax = Math.max(filaMax, filasGrupo[k]);
+			columnaMin = Math.min(columnaMin, columnasGrupo[k]);
+			columnaMax = Math.max(columnaMax, columnasGrupo[k]);
+		}
+		int[] vivas = new int[2 + 2 * numVivas];
+		vivas[0] = filaMax - filaMin + 1;
+		vivas[1] = columnaMax - columnaMin + 1;
+		for (int k = 0; k < numVivas; k++) {
+			vivas[2 + 2 * k] = filasGrupo[k] - filaMin;
+			vivas[3 + 2 * k] = columnasGrupo[k] - columnaMin;
+		}
+		return vivas;
+	}
+
+	/**
+	 * Busca en el catálogo unas células con el formato de Patron.
+	 * @return el patrón con su forma o null si no hay ninguno.
+	 */
+	private Patron reconocer(int[] vivas) {
+		List<Entrada> mismaHuella = indice.get(Patron.calcularHuella(vivas));
+		if (mismaHuella != null) {
+			for (Entrada entrada : mismaHuella) {
+				if (Patron.coincidenVivas(vivas, entrada.vivas)) {
+					return entrada.patron;
+				}
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Comprueba si unas células vivas, con el formato de Patron, forman un
+	 * solo grupo con el alcance indicado.
+	 */
+	private static boolean esConexo(int[] vivas, int alcance) {
+		int numVivas = vivas.length / 2 - 1;
+		boolean[] alcanzadas = new boolean[numVivas];
+		int[] pendientes = new int[numVivas];
+		alcanzadas[0] = true;
+		int numAlcanzadas = 1;
+		for (int k = 0; k < numAlcanzadas; k++) {
+			int i = pendientes[k];
+			for (int j = 0; j < numVivas; j++) {
+				if (!alcanzadas[j]
+						&& Math.abs(vivas[2 + 2 * i] - vivas[2 + 2 * j]) <= alcance
+						&& Math.abs(vivas[3 + 2 * i] - vivas[3 + 2 * j]) <= alcance) {
+					alcanzadas[j] = true;
+					pendientes[numAlcanzadas++] = j;
+				}
+			}
+		}
+		return numAlcanzadas == numVivas;
+	}
+
+} //class
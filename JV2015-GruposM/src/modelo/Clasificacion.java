@@ -0,0 +1,110 @@
+package modelo;
+/**
+ * Proyecto: Juego de la vida.
+ *  Resultado de clasificar un Patron con Clasificador: su destino, el
+ *  periodo y el desplazamiento por periodo de su ciclo y la generación
+ *  en que empieza. Es inmutable y se guarda con el patrón, junto con la
+ *  regla con la que se ha calculado.
+ *  @since: prototipo2.2
+ *  @source: Clasificacion.java
+ *  @version: 1.0 - 2016/07/06
+ *  @author: ajp
+ */
+
+import java.io.Serializable;
+
+public class Clasificacion implements Serializable {
+
+	/**
+	 * Evolución final del patrón en un mundo ilimitado.
+	 * MUERE: se queda sin células vivas.
+	 * ESTABLE: llega a un estado fijo, periodo 1.
+	 * OSCILADOR: repite su forma en el mismo sitio con periodo mayor que 1.
+	 * NAVE: repite su forma desplazada; es una nave espacial.
+	 * CRECE: supera la población máxima del clasificador.
+	 * INDETERMINADO: no se ha decidido en las generaciones del clasificador.
+	 */
+	public enum Destino { MUERE, ESTABLE, OSCILADOR, NAVE, CRECE, INDETERMINADO }
+
+	// Atributos
+	private final Destino destino;
+	private final int periodo;
+	private final int desplazamientoFilas;
+	private final int desplazamientoColumnas;
+	private final int generaciones;
+	private final Regla regla;
+
+	/**
+	 * Constructor convencional.
+	 * @param destino
+	 * @param periodo - 0 si no hay ciclo.
+	 * @param desplazamientoFilas - filas que avanza en cada periodo.
+	 * @param desplazamientoColumnas - columnas que avanza en cada periodo.
+	 * @param generaciones - la generación en que empieza el ciclo, muere,
+	 * supera la población máxima o termina la clasificación.
+	 * @param regla - la regla con la que se ha calculado.
+	 */
+	public Clasificacion(Destino destino, int periodo, int desplazamientoFilas,
+			int desplazamientoColumnas, int generaciones, Regla regla) {
+		assert destino != null && regla != null;
+		this.destino = destino;
+		this.periodo = periodo;
+		this.desplazamientoFilas = desplazamientoFilas;
+		this.desplazamientoColumnas = desplazamientoColumnas;
+		this.generaciones = generaciones;
+		this.regla = regla;
+	}
+
+	/**
+	 * @return el destino.
+	 */
+	public Destino getDestino() {
+		return destino;
+	}
+
+	/**
+	 * @return el periodo del ciclo; 0 si no hay ciclo.
+	 */
+	public int getPeriodo() {
+		return periodo;
+	}
+
+	/**
+	 * @return las filas que avanza en cada periodo.
+	 */
+	public int getDesplazamientoFilas() {
+		return desplazamientoFilas;
+	}
+
+	/**
+	 * @return las columnas que avanza en cada periodo.
+	 */
+	public int getDesplazamientoColumnas() {
+		return desplazamientoColumnas;
+	}
+
+	/**
+	 * @return la generación en que empieza el ciclo o se decide el destino.
+	 */
+	public int getGeneraciones() {
+		return generaciones;
+	}
+
+	/**
+	 * @return la regla con la que se ha calculado.
+	 */
+	public Regla getRegla() {
+		return regla;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return String.format("Clasificacion [destino=%s, periodo=%d, desplazamiento=(%d, %d), "
+				+ "generaciones=%d, regla=%s]", destino, periodo, desplazamientoFilas,
+				desplazamientoColumnas, generaciones, regla);
+	}
+
+} //class
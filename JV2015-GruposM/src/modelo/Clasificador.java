@@ -0,0 +1,188 @@
+package modelo;
+/**
+ * Proyecto: Juego de la vida.
+ *  Clasifica patrones evolucionándolos solos en un MundoIlimitado hasta
+ *  que su forma se repite, mueren o superan la población máxima. La
+ *  forma de cada generación se compara con MundoIlimitado.calcularForma(),
+ *  que no depende de la posición, por lo que las naves se detectan como
+ *  los osciladores y su desplazamiento es el de la esquina del rectángulo
+ *  que contiene las células entre las dos apariciones de la forma.
+ *  El resultado se guarda en el patrón y sólo se vuelve a calcular si
+ *  cambia su esquema o la regla; clasificarTodos() reparte los patrones
+ *  sin clasificar entre los hilos del pool de MundoParalelo.
+ *  @since: prototipo2.2
+ *  @source: Clasificador.java
+ *  @version: 1.0 - 2016/07/06
+ *  @author: ajp
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RecursiveAction;
+
+import config.Configuracion;
+
+public class Clasificador {
+
+	// Atributos
+	private final Regla regla;
+	private final int maxGeneraciones;
+	private final int maxPoblacion;
+
+	/**
+	 * Constructor convencional.
+	 * Los patrones evolucionan en un MundoIlimitado, que no admite B0.
+	 * @param regla - null equivale a B3/S23.
+	 * @param maxGeneraciones - las generaciones tras las que el destino es
+	 * INDETERMINADO; también el mayor periodo detectable.
+	 * @param maxPoblacion - la población a partir de la que el destino es CRECE.
+	 * @throws UnsupportedOperationException - si la regla incluye B0.
+	 */
+	public Clasificador(Regla regla, int maxGeneraciones, int maxPoblacion) {
+		assert maxGeneraciones > 0 && maxPoblacion > 0;
+		if (regla != null && regla.nace(0)) {
+			throw new UnsupportedOperationException(
+					"Clasificador no admite reglas con B0: " + regla);
+		}
+		this.regla = (regla != null) ? regla : Regla.CONWAY;
+		this.maxGeneraciones = maxGeneraciones;
+		this.maxPoblacion = maxPoblacion;
+	}
+
+	/**
+	 * Constructor por defecto.
+	 * Clasifica con B3/S23 y los límites clasificador.generaciones y
+	 * clasificador.poblacionMaxima de la configuración.
+	 */
+	public Clasificador() {
+		this(Regla.CONWAY, Configuracion.getEntero("clasificador.generaciones", 4096),
+				Configuracion.getEntero("clasificador.poblacionMaxima", 20000));
+	}
+
+	/**
+	 * @return la regla con la que se clasifica.
+	 */
+	public Regla getRegla() {
+		return regla;
+	}
+
+	/**
+	 * Obtiene la clasificación de un patrón; la calcula y la guarda en el
+	 * patrón si no la tiene para la regla del clasificador.
+	 * @param patron
+	 * @return la clasificación.
+	 */
+	public Clasificacion clasificar(Patron patron) {
+		Clasificacion clasificacion = patron.getClasificacion();
+		if (clasificacion == null || !clasificacion.getRegla().equals(regla)) {
+			clasificacion = evolucionar(patron);
+			patron.setClasificacion(clasificacion);
+		}
+		return clasificacion;
+	}
+
+	/**
+	 * Clasifica en paralelo los patrones que no tienen clasificación para
+	 * la regla del clasificador.
+	 * @param patrones
+	 * @return los patrones clasificados ahora, que deben guardarse.
+	 */
+	public List<Patron> clasificarTodos(Collection<Patron> patrones) {
+		List<Patron> pendientes = new ArrayList<Patron>();
+		for (Patron patron : patrones) {
+			Clasificacion clasificacion = patron.getClasificacion();
+			if (clasificacion == null || !clasificacion.getRegla().equals(regla)) {
+				pendientes.add(patron);
+			}
+		}
+		if (!pendientes.isEmpty()) {
+			MundoParalelo.getPool().invoke(new TareaPatrones(pendientes, 0, pendientes.size()));
+		}
+		return pendientes;
+	}
+
+	/**
+	 * Evoluciona el patrón hasta decidir su destino. Anota la huella de
+	 * forma de cada generación con la primera generación en que aparece;
+	 * al repetirse, la diferencia es el periodo.
+	 */
+	private Clasificacion evolucionar(Patron patron) {
+		byte[][] esquema = patron.getEsquema();
+		int columnas = 1;
+		for (byte[] fila : esquema) {
+			columnas = Math.max(columnas, (fila != null) ? fila.length : 0);
+		}
+		MundoIlimitado mundo = new MundoIlimitado(patron.getNombre(),
+				Arrays.asList(regla.getNacimiento(), regla.getSupervivencia()),
+				null, esquema.length, columnas);
+		mundo.estampar(patron, new Posicion(0, 0));
+		Map<Long, Integer> vistas = new HashMap<Long, Integer>();
+		long[] filasMin = new long[maxGeneraciones + 1];
+		long[] columnasMin = new long[maxGeneraciones + 1];
+		long[] esquina = new long[3];
+		for (int gen = 0; gen <= maxGeneraciones; gen++) {
+			long huella = mundo.calcularForma(esquina);
+			if (esquina[2] == 0) {
+				return new Clasificacion(Clasificacion.Destino.MUERE, 0, 0, 0, gen, regla);
+			}
+			if (esquina[2] > maxPoblacion) {
+				return new Clasificacion(Clasificacion.Destino.CRECE, 0, 0, 0, gen, regla);
+			}
+			filasMin[gen] = esquina[0];
+			columnasMin[gen] = esquina[1];
+			Integer anterior = vistas.get(huella);
+			if (anterior != null) {
+				int periodo = gen - anterior;
+				int desplazamientoFilas = (int) (esquina[0] - filasMin[anterior]);
+				int desplazamientoColumnas = (int) (esquina[1] - columnasMin[anterior]);
+				Clasificacion.Destino destino = Clasificacion.Destino.NAVE;
+				if (desplazamientoFilas == 0 && desplazamientoColumnas == 0) {
+					destino = (periodo == 1) ? Clasificacion.Destino.ESTABLE
+							: Clasificacion.Destino.OSCILADOR;
+				}
+				return new Clasificacion(destino, periodo, desplazamientoFilas,
+						desplazamientoColumnas, anterior, regla);
+			}
+			vistas.put(huella, gen);
+			if (gen < maxGeneraciones) {
+				mundo.actualizarEstado();
+			}
+		}
+		return new Clasificacion(Clasificacion.Destino.INDETERMINADO, 0, 0, 0, maxGeneraciones, regla);
+	}
+
+	/**
+	 * Tarea que divide un rango de patrones por la mitad hasta dejar uno
+	 * y entonces lo clasifica.
+	 */
+	private class TareaPatrones extends RecursiveAction {
+
+		private List<Patron> patrones;
+		private int desde;
+		private int hasta;
+
+		TareaPatrones(List<Patron> patrones, int desde, int hasta) {
+			this.patrones = patrones;
+			this.desde = desde;
+			this.hasta = hasta;
+		}
+
+		@Override
+		protected void compute() {
+			if (hasta - desde == 1) {
+				Patron patron = patrones.get(desde);
+				patron.setClasificacion(evolucionar(patron));
+			}
+			else {
+				int medio = (desde + hasta) >>> 1;
+				invokeAll(new TareaPatrones(patrones, desde, medio),
+						new TareaPatrones(patrones, medio, hasta));
+			}
+		}
+	}
+
+} //class
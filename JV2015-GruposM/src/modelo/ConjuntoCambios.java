@@ -0,0 +1,186 @@
+package modelo;
+/**
+ * Proyecto: Juego de la vida.
+ *  Celdas que han cambiado de estado en la última generación de un Mundo,
+ *  guardadas como posiciones fila * columnas + columna en un array int,
+ *  junto con el rectángulo que las contiene. Permite a las vistas, los
+ *  registros y las réplicas trabajar sólo con los cambios.
+ *  El mundo reutiliza el mismo conjunto en cada generación. Su secuencia
+ *  aumenta en uno por generación y en dos cada vez que el espacio se
+ *  modifica de otra forma, p.e. con setCelda(): quien la recuerda sabe
+ *  que los cambios siguen a lo que ya conoce sólo si ha aumentado en uno;
+ *  si ha aumentado más debe volver a leer el mundo.
+ *  @since: prototipo2.2
+ *  @source: ConjuntoCambios.java
+ *  @version: 1.0 - 2016/07/01
+ *  @author: ajp
+ */
+
+public class ConjuntoCambios {
+
+	// Atributos
+	private int columnas;
+	private long secuencia;
+	private int[] posiciones;
+	private int numCambios;
+	private int filaMin;
+	private int filaMax;
+	private int columnaMin;
+	private int columnaMax;
+
+	/**
+	 * Constructor por defecto: un conjunto vacío con secuencia 0.
+	 */
+	public ConjuntoCambios() {
+		posiciones = new int[64];
+		vaciar();
+	}
+
+	/**
+	 * @return la secuencia de la última generación registrada.
+	 */
+	public long getSecuencia() {
+		return secuencia;
+	}
+
+	/**
+	 * @return el número de celdas cambiadas.
+	 */
+	public int getNumCambios() {
+		return numCambios;
+	}
+
+	/**
+	 * @return true si no ha cambiado ninguna celda.
+	 */
+	public boolean isVacio() {
+		return numCambios == 0;
+	}
+
+	/**
+	 * @return el número de columnas del mundo, para interpretar las posiciones.
+	 */
+	public int getColumnas() {
+		return columnas;
+	}
+
+	/**
+	 * @param k - el índice del cambio, menor que getNumCambios().
+	 * @return la posición fila * columnas + columna de la celda.
+	 */
+	public int getPosicion(int k) {
+		assert k < numCambios;
+		return posiciones[k];
+	}
+
+	/**
+	 * @param k - el índice del cambio, menor que getNumCambios().
+	 * @return la fila de la celda.
+	 */
+	public int getFila(int k) {
+		return getPosicion(k) / columnas;
+	}
+
+	/**
+	 * @param k - el índice del cambio, menor que getNumCambios().
+	 * @return la columna de la celda.
+	 */
+	public int getColumna(int k) {
+		return getPosicion(k) % columnas;
+	}
+
+	/**
+	 * Copia las posiciones en el array recibido, que se reutiliza si tiene
+	 * capacidad suficiente.
+	 * @param destino - el array a rellenar; puede ser null.
+	 * @return el array con las getNumCambios() posiciones al principio.
+	 */
+	public int[] copiarPosiciones(int[] destino) {
+		if (destino == null || destino.length < numCambios) {
+			destino = new int[numCambios];
+		}
+		System.arraycopy(posiciones, 0, destino, 0, numCambios);
+		return destino;
+	}
+
+	/**
+	 * @return la primera fila con algún cambio; 0 si no hay ninguno.
+	 */
+	public int getFilaMinima() {
+		return isVacio() ? 0 : filaMin;
+	}
+
+	/**
+	 * @return la última fila con algún cambio; -1 si no hay ninguno.
+	 */
+	public int getFilaMaxima() {
+		return isVacio() ? -1 : filaMax;
+	}
+
+	/**
+	 * @return la primera columna con algún cambio; 0 si no hay ninguno.
+	 */
+	public int getColumnaMinima() {
+		return isVacio() ? 0 : columnaMin;
+	}
+
+	/**
+	 * @return la última columna con algún cambio; -1 si no hay ninguno.
+	 */
+	public int getColumnaMaxima() {
+		return isVacio() ? -1 : columnaMax;
+	}
+
+	/**
+	 * Empieza los cambios de una nueva generación.
+	 * @param columnas - el ancho del mundo.
+	 */
+	void iniciar(int columnas) {
+		this.columnas = columnas;
+		secuencia++;
+		vaciar();
+	}
+
+	/**
+	 * Indica que el espacio ha cambiado fuera de una generación: los
+	 * cambios de la siguiente ya no siguen a los de ésta.
+	 */
+	void interrumpir() {
+		secuencia += 2;
+	}
+
+	/**
+	 * Añade una celda cambiada.
+	 * @param fila
+	 * @param columna
+	 */
+	void añadir(int fila, int columna) {
+		if (numCambios == posiciones.length) {
+			int[] ampliado = new int[2 * posiciones.length];
+			System.arraycopy(posiciones, 0, ampliado, 0, numCambios);
+			posiciones = ampliado;
+		}
+		posiciones[numCambios++] = fila * columnas + columna;
+		filaMin = Math.min(filaMin, fila);
+		filaMax = Math.max(filaMax, fila);
+		columnaMin = Math.min(columnaMin, columna);
+		columnaMax = Math.max(columnaMax, columna);
+	}
+
+	private void vaciar() {
+		numCambios = 0;
+		filaMin = columnaMin = Integer.MAX_VALUE;
+		filaMax = columnaMax = -1;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return String.format("ConjuntoCambios [secuencia=%d, cambios=%d, filas=%d..%d, columnas=%d..%d]",
+				secuencia, numCambios, getFilaMinima(), getFilaMaxima(),
+				getColumnaMinima(), getColumnaMaxima());
+	}
+
+} //class
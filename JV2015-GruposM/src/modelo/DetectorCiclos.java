@@ -0,0 +1,203 @@
+package modelo;
+/**
+ * Proyecto: Juego de la vida.
+ *  Detecta que un Mundo ha llegado a un estado fijo o a una oscilación
+ *  de periodo p comparando el hash de cada generación con los de las
+ *  generaciones anteriores.
+ *  El hash es de tipo Zobrist: la XOR de un valor pseudoaleatorio por
+ *  cada célula viva, obtenido de su posición con splitmix64. Sólo se
+ *  actualiza para las celdas que cambian respecto a la generación
+ *  anterior: las del ConjuntoCambios del mundo si los registra y siguen
+ *  a la generación anterior; si no, se localizan comparando las
+ *  instantáneas de 8 en 8.
+ *  La historia es un array circular acotado, por lo que sólo se detectan
+ *  periodos menores que su capacidad. Junto al hash guarda el estado de
+ *  cada generación empaquetado a nivel de bit, mantenido con las mismas
+ *  celdas que cambian el hash, y sólo se informa de un periodo cuando
+ *  los estados coinciden exactamente; una colisión del hash no detiene
+ *  la simulación. Ocupa capacidad * celdas / 8 bytes.
+ *  @since: prototipo2.2
+ *  @source: DetectorCiclos.java
+ *  @version: 1.0 - 2016/06/24
+ *  @author: ajp
+ */
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import config.Configuracion;
+
+public class DetectorCiclos {
+
+	// Atributos
+	private long[] historia;			// hashes de las últimas generaciones
+	private int generacion;				// generaciones registradas
+	private long hash;
+	private long[] bits;				// estado actual, la celda k en el bit k
+	private long[][] estados;			// bits de las últimas generaciones
+	private byte[] anterior;			// instantánea de la última generación
+	private byte[] actual;				// reutilizada entre generaciones
+	private boolean anteriorValida;		// false si el hash se ha actualizado con cambios
+	private ConjuntoCambios cambios;	// el último conjunto utilizado
+	private long secuencia;				// y su secuencia entonces
+	private int periodo;
+
+	/**
+	 * Constructor convencional.
+	 * @param capacidad - número de generaciones que se recuerdan; el
+	 * periodo máximo detectable es capacidad - 1.
+	 */
+	public DetectorCiclos(int capacidad) {
+		assert capacidad > 1;
+		historia = new long[Math.max(2, capacidad)];
+		estados = new long[historia.length][];
+	}
+
+	/**
+	 * Constructor por defecto.
+	 * Obtiene la capacidad de simulacion.historiaCiclos.
+	 */
+	public DetectorCiclos() {
+		this(Configuracion.getEntero("simulacion.historiaCiclos", 256));
+	}
+
+	/**
+	 * @return el periodo detectado: 1 estado fijo, p oscilación de periodo p,
+	 * 0 todavía no se ha detectado.
+	 */
+	public int getPeriodo() {
+		return periodo;
+	}
+
+	/**
+	 * @return el hash de la última generación registrada.
+	 */
+	public long getHash() {
+		return hash;
+	}
+
+	/**
+	 * Registra el estado actual del mundo y comprueba si repite el de
+	 * alguna de las generaciones recordadas.
+	 * Las dimensiones deben mantenerse entre llamadas; si cambian se
+	 * reinicia la historia.
+	 * @param mundo
+	 * @return el periodo detectado o 0 si no se repite.
+	 */
+	public int registrar(Mundo mundo) {
+		ConjuntoCambios nuevos = mundo.getCambios();
+		if (nuevos != null && nuevos == cambios && anterior != null
+				&& nuevos.getSecuencia() - secuencia <= 1) {
+			// Sin instantánea: sólo los cambios, o ninguno si no ha avanzado.
+			if (nuevos.getSecuencia() != secuencia) {
+				for (int k = 0; k < nuevos.getNumCambios(); k++) {
+					cambiar(nuevos.getPosicion(k));
+				}
+			}
+			anteriorValida = false;
+		}
+		else {
+			registrarInstantanea(mundo);
+		}
+		if (nuevos != null) {
+			cambios = nuevos;
+			secuencia = nuevos.getSecuencia();
+		}
+
+		periodo = 0;
+		int recordadas = Math.min(generacion, historia.length - 1);
+		for (int p = 1; p <= recordadas; p++) {
+			int k = (generacion - p) % historia.length;
+			if (historia[k] == hash && Arrays.equals(estados[k], bits)) {
+				periodo = p;
+				break;
+			}
+		}
+		int k = generacion % historia.length;
+		historia[k] = hash;
+		if (estados[k] == null || estados[k].length != bits.length) {
+			estados[k] = new long[bits.length];
+		}
+		System.arraycopy(bits, 0, estados[k], 0, bits.length);
+		generacion++;
+		return periodo;
+	}
+
+	/**
+	 * Olvida todas las generaciones registradas.
+	 */
+	public void reiniciar() {
+		generacion = 0;
+		hash = 0;
+		periodo = 0;
+		anterior = null;
+		cambios = null;
+	}
+
+	/**
+	 * Actualiza el hash con la diferencia entre la instantánea anterior y
+	 * la del mundo; si la anterior no es válida, con todas las células.
+	 */
+	private void registrarInstantanea(Mundo mundo) {
+		actual = mundo.copiarCeldas(actual);
+		if (anterior == null || anterior.length != actual.length) {
+			reiniciar();
+			anterior = new byte[actual.length];
+			bits = new long[(actual.length + 63) / 64];
+		}
+		else if (!anteriorValida) {
+			hash = 0;
+			Arrays.fill(anterior, (byte) 0);
+			Arrays.fill(bits, 0L);
+		}
+		actualizarHash(anterior, actual);
+		byte[] aux = anterior;
+		anterior = actual;
+		actual = aux;
+		anteriorValida = true;
+	}
+
+	/**
+	 * Cambia el estado de una celda en el hash y en los bits.
+	 */
+	private void cambiar(int celda) {
+		hash ^= zobrist(celda);
+		bits[celda >>> 6] ^= 1L << celda;
+	}
+
+	/**
+	 * Aplica al hash las celdas que difieren entre dos instantáneas;
+	 * los bloques de 8 celdas iguales se saltan con una sola comparación.
+	 */
+	private void actualizarHash(byte[] antes, byte[] despues) {
+		ByteBuffer a = ByteBuffer.wrap(antes);
+		ByteBuffer d = ByteBuffer.wrap(despues);
+		int bloques = despues.length & -8;
+		for (int k = 0; k < bloques; k += 8) {
+			if (a.getLong(k) != d.getLong(k)) {
+				for (int i = k; i < k + 8; i++) {
+					if (antes[i] != despues[i]) {
+						cambiar(i);
+					}
+				}
+			}
+		}
+		for (int i = bloques; i < despues.length; i++) {
+			if (antes[i] != despues[i]) {
+				cambiar(i);
+			}
+		}
+	}
+
+	/**
+	 * Valor pseudoaleatorio de una celda: la función de mezcla splitmix64
+	 * aplicada a su posición.
+	 */
+	static long zobrist(long posicion) {
+		long z = (posicion + 1) * 0x9E3779B97F4A7C15L;
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+
+} //class
@@ -0,0 +1,122 @@
+package modelo;
+/**
+ * Proyecto: Juego de la vida.
+ *  Resumen del estado de un Mundo en una generación: células vivas,
+ *  rectángulo que las contiene y nacimientos y muertes de la última
+ *  generación. Es inmutable; Mundo lo obtiene sin recorrer el espacio
+ *  cuando lo mantiene al calcular cada generación.
+ *  @since: prototipo2.2
+ *  @source: Estadisticas.java
+ *  @version: 1.0 - 2016/06/30
+ *  @author: ajp
+ */
+
+import java.io.Serializable;
+
+public class Estadisticas implements Serializable {
+
+	// Valor de nacimientos y muertes cuando el motor no los ha contado.
+	public static final int DESCONOCIDO = -1;
+
+	// Atributos
+	private final int poblacion;
+	private final int nacimientos;
+	private final int muertes;
+	private final int filaMinima;
+	private final int filaMaxima;
+	private final int columnaMinima;
+	private final int columnaMaxima;
+
+	/**
+	 * Constructor convencional.
+	 * Con población 0 los límites se ignoran y el rectángulo queda vacío.
+	 * @param poblacion - el número de células vivas.
+	 * @param nacimientos - o DESCONOCIDO.
+	 * @param muertes - o DESCONOCIDO.
+	 * @param filaMinima
+	 * @param filaMaxima
+	 * @param columnaMinima
+	 * @param columnaMaxima
+	 */
+	public Estadisticas(int poblacion, int nacimientos, int muertes,
+			int filaMinima, int filaMaxima, int columnaMinima, int columnaMaxima) {
+		this.poblacion = poblacion;
+		this.nacimientos = nacimientos;
+		this.muertes = muertes;
+		if (poblacion == 0) {
+			filaMinima = columnaMinima = 0;
+			filaMaxima = columnaMaxima = -1;
+		}
+		this.filaMinima = filaMinima;
+		this.filaMaxima = filaMaxima;
+		this.columnaMinima = columnaMinima;
+		this.columnaMaxima = columnaMaxima;
+	}
+
+	/**
+	 * @return el número de células vivas.
+	 */
+	public int getPoblacion() {
+		return poblacion;
+	}
+
+	/**
+	 * @return las células nacidas en la última generación o DESCONOCIDO.
+	 */
+	public int getNacimientos() {
+		return nacimientos;
+	}
+
+	/**
+	 * @return las células muertas en la última generación o DESCONOCIDO.
+	 */
+	public int getMuertes() {
+		return muertes;
+	}
+
+	/**
+	 * @return la primera fila con alguna célula viva; 0 si no hay ninguna.
+	 */
+	public int getFilaMinima() {
+		return filaMinima;
+	}
+
+	/**
+	 * @return la última fila con alguna célula viva; -1 si no hay ninguna.
+	 */
+	public int getFilaMaxima() {
+		return filaMaxima;
+	}
+
+	/**
+	 * @return la primera columna con alguna célula viva; 0 si no hay ninguna.
+	 */
+	public int getColumnaMinima() {
+		return columnaMinima;
+	}
+
+	/**
+	 * @return la última columna con alguna célula viva; -1 si no hay ninguna.
+	 */
+	public int getColumnaMaxima() {
+		return columnaMaxima;
+	}
+
+	/**
+	 * @return true si no hay ninguna célula viva.
+	 */
+	public boolean isVacio() {
+		return poblacion == 0;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return String.format("Estadisticas [poblacion=%d, nacimientos=%d, muertes=%d, "
+				+ "filas=%d..%d, columnas=%d..%d]", poblacion, nacimientos, muertes,
+				filaMinima, filaMaxima, columnaMinima, columnaMaxima);
+	}
+
+} //class
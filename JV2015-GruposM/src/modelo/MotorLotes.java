@@ -0,0 +1,152 @@
+package modelo;
+/**
+ * Proyecto: Juego de la vida.
+ *  Avanza a la vez muchos mundos pequeños independientes guardando en el
+ *  bit k de cada long el estado de una celda del mundo k (bit-slicing):
+ *  un lote de hasta 64 mundos se calcula con las mismas operaciones
+ *  lógicas de sumador de MundoCompacto que un solo mundo.
+ *  Sólo pueden formar lote los mundos con las mismas dimensiones, regla
+ *  y topología; las simulaciones recibidas se agrupan por esos datos.
+ *  Los mundos de MundoHashLife y MundoIlimitado no están limitados a su
+ *  ventana, por lo que se avanzan por separado con su propio motor.
+ *  Cada mundo recibe los nacimientos y muertes de su última generación.
+ *  @since: prototipo2.2
+ *  @source: MotorLotes.java
+ *  @version: 1.0 - 2016/06/26
+ *  @author: ajp
+ */
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import modelo.Mundo.Topologia;
+
+public class MotorLotes {
+
+	// Mundos por lote: uno por bit de un long.
+	public static final int LOTE = 64;
+
+	/**
+	 * Avanza el mundo de cada simulación el número de generaciones recibido.
+	 * Los mundos se modifican en su sitio; el estado de las simulaciones no cambia.
+	 * @param simulaciones
+	 * @param generaciones - el número de generaciones, no negativo.
+	 */
+	public static void avanzar(List<Simulacion> simulaciones, long generaciones) {
+		assert generaciones >= 0;
+		Map<String, List<Mundo>> grupos = new LinkedHashMap<String, List<Mundo>>();
+		for (Simulacion simulacion : simulaciones) {
+			Mundo mundo = simulacion.getMundo();
+			if (mundo instanceof MundoHashLife || mundo instanceof MundoIlimitado) {
+				mundo.avanzar(generaciones);
+				continue;
+			}
+			String clave = mundo.getFilas() + "x" + mundo.getColumnas() + " "
+					+ mundo.getRegla() + " " + mundo.getTopologia();
+			List<Mundo> grupo = grupos.get(clave);
+			if (grupo == null) {
+				grupo = new ArrayList<Mundo>();
+				grupos.put(clave, grupo);
+			}
+			grupo.add(mundo);
+		}
+		for (List<Mundo> grupo : grupos.values()) {
+			for (int desde = 0; desde < grupo.size(); desde += LOTE) {
+				avanzarLote(grupo.subList(desde, Math.min(desde + LOTE, grupo.size())),
+						generaciones);
+			}
+		}
+	}
+
+	/**
+	 * Avanza un lote de hasta 64 mundos de las mismas dimensiones, regla
+	 * y topología. Termina antes si una generación no cambia ningún mundo.
+	 */
+	private static void avanzarLote(List<Mundo> lote, long generaciones) {
+		Mundo primero = lote.get(0);
+		int filas = primero.getFilas();
+		int columnas = primero.getColumnas();
+		Topologia topologia = primero.getTopologia();
+		MundoCompacto.Hojas hojas = new MundoCompacto.Hojas(primero.getRegla());
+		int ancho = columnas + 2;
+
+		// Espacio con halo, como el de Mundo, con un bit por mundo.
+		long[] celdas = new long[(filas + 2) * ancho];
+		long[] celdasAux = new long[celdas.length];
+		byte[] instantanea = null;
+		for (int k = 0; k < lote.size(); k++) {
+			instantanea = lote.get(k).copiarCeldas(instantanea);
+			for (int i = 0; i < filas; i++) {
+				for (int j = 0; j < columnas; j++) {
+					celdas[(i + 1) * ancho + j + 1] |= (long) instantanea[i * columnas + j] << k;
+				}
+			}
+		}
+		long[] inicial = celdas.clone();
+
+		for (long gen = 0; gen < generaciones; gen++) {
+			Mundo.rellenarHalo(celdas, filas, columnas, topologia);
+			long cambios = 0;
+			for (int i = 1; i <= filas; i++) {
+				int celda = i * ancho + 1;
+				int fin = celda + columnas;
+				for (; celda < fin; celda++) {
+					int n = celda - ancho;
+					int s = celda + ancho;
+					long vivas = celdas[celda];
+					long siguiente = MundoCompacto.siguiente(hojas, vivas,
+							celdas[n - 1], celdas[n], celdas[n + 1],
+							celdas[celda - 1], celdas[celda + 1],
+							celdas[s - 1], celdas[s], celdas[s + 1]);
+					celdasAux[celda] = siguiente;
+					cambios |= vivas ^ siguiente;
+				}
+			}
+			long[] aux = celdas;
+			celdas = celdasAux;
+			celdasAux = aux;
+			if (cambios == 0) {
+				break;
+			}
+		}
+
+		// Sólo se escriben en cada mundo las celdas que han cambiado; los
+		// bits sin mundo pueden tener células con reglas B0. Tras al menos
+		// una generación, celdasAux contiene la anterior a la última.
+		long mascara = (lote.size() == LOTE) ? -1L : (1L << lote.size()) - 1;
+		int[] nacimientos = new int[lote.size()];
+		int[] muertes = new int[lote.size()];
+		for (int i = 0; i < filas; i++) {
+			for (int j = 0; j < columnas; j++) {
+				int celda = (i + 1) * ancho + j + 1;
+				long cambiadas = (celdas[celda] ^ inicial[celda]) & mascara;
+				while (cambiadas != 0) {
+					int k = Long.numberOfTrailingZeros(cambiadas);
+					lote.get(k).setCelda(i, j, (byte) ((celdas[celda] >>> k) & 1L));
+					cambiadas &= cambiadas - 1;
+				}
+				if (generaciones > 0) {
+					contar(nacimientos, celdas[celda] & ~celdasAux[celda] & mascara);
+					contar(muertes, ~celdas[celda] & celdasAux[celda] & mascara);
+				}
+			}
+		}
+		if (generaciones > 0) {
+			for (int k = 0; k < lote.size(); k++) {
+				lote.get(k).anotarGeneracion(nacimientos[k], muertes[k]);
+			}
+		}
+	}
+
+	/**
+	 * Suma 1 a la cuenta de cada mundo cuyo bit está activo.
+	 */
+	private static void contar(int[] cuentas, long bits) {
+		for (; bits != 0; bits &= bits - 1) {
+			cuentas[Long.numberOfTrailingZeros(bits)]++;
+		}
+	}
+
+} //class
@@ -3,13 +3,30 @@ package modelo;
  * Proyecto: Juego de la vida.
  *  Representa el espacio y las leyes que determinan el universo 
  *  de simulación del según el modelo2.1
+ *  El espacio tiene un número arbitrario de filas y columnas y se almacena
+ *  fila a fila en un único array byte[] rodeado de un halo de una celda:
+ *  la celda (fila, columna) está en la posición (fila + 1) * (columnas + 2)
+ *  + columna + 1. Antes de cada generación el halo se rellena según la
+ *  topología, de modo que el cálculo de las vecinas no tiene casos de borde.
+ *  Las leyes del mundo son una Regla; las constantes almacenan sus dos
+ *  máscaras [nacimiento, supervivencia] para que se guarden con el mundo.
+ *  Al calcular cada generación se mantienen la población, el rectángulo
+ *  que contiene las células vivas y los nacimientos y muertes; con ese
+ *  rectángulo se omiten los márgenes vacíos, que no pueden cambiar.
+ *  Opcionalmente registra en un ConjuntoCambios las celdas que cambian
+ *  en cada generación.
+ *  Los patrones de la distribución se trasladan al espacio con
+ *  estamparDistribucion(); la Posicion de cada uno es la de su esquina
+ *  superior izquierda (x fila, y columna).
  *  @since: prototipo2.1
  *  @source: Mundo.java 
- *  @version: 1.0 - 24/04/2016
+ *  @version: 2.0 - 2016/06/18
  *  @author: ajp
  */
 
 import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Hashtable;
@@ -18,11 +35,45 @@ import java.util.Map;
 
 public class Mundo implements Leyes, Serializable {
 
-	private final static int TAMAÑO = 12;
+	/**
+	 * Forma en que se unen los bordes del mundo.
+	 * LIMITADA: fuera del mundo sólo hay celdas vacías.
+	 * TOROIDAL: el borde izquierdo se une al derecho y el superior al inferior.
+	 * KLEIN: como TOROIDAL, pero el borde superior se une al inferior invertido
+	 * de izquierda a derecha.
+	 */
+	public enum Topologia { LIMITADA, TOROIDAL, KLEIN }
+
+	protected final static int TAMAÑO = 12;
+
 	private String nombre;
 	private List<Integer> constantes;
 	private Map<Patron, Posicion> distribucion;
-	private byte[][] espacio;	
+	private Regla regla;
+	private Topologia topologia;
+	private int filas;
+	private int columnas;
+	private int ancho;						// columnas + 2 del halo
+	private byte[] celdas;					// fila a fila, con halo
+	private transient byte[] celdasAux;		// búfer de la siguiente generación
+
+	// Estadísticas del espacio actual.
+	private transient boolean contado;			// población y límites válidos
+	private transient boolean limitesExactos;	// si no, sólo contienen las células
+	private transient int poblacion;
+	private transient int nacimientos;
+	private transient int muertes;
+	private transient int filaMin;
+	private transient int filaMax;
+	private transient int columnaMin;
+	private transient int columnaMax;
+	// Límites que contienen las células del búfer auxiliar.
+	private transient boolean auxContado;
+	private transient int auxFilaMin;
+	private transient int auxFilaMax;
+	private transient int auxColumnaMin;
+	private transient int auxColumnaMax;
+	private transient ConjuntoCambios cambios;	// null si no se registran
 
 	/**
 	 * Constructor convencional.
@@ -34,22 +85,41 @@ public class Mundo implements Leyes, Serializable {
 	 * @param distribucion
 	 * @param espacio
 	 */
-	public Mundo(String nombre, List<Integer> constantes, 
+	public Mundo(String nombre, List<Integer> constantes,
 			Map<Patron, Posicion> distribucion, byte[][] espacio) {
 		setNombre(nombre);
 		setConstantes(constantes);
 		setDistribucion(distribucion);
+		setTopologia(Topologia.LIMITADA);
 		setEspacio(espacio);
 	}
 
+	/**
+	 * Constructor de un mundo vacío de las dimensiones indicadas.
+	 * No crea ningún array por fila, por lo que es el adecuado para mundos grandes.
+	 * @param nombre
+	 * @param constantes
+	 * @param distribucion
+	 * @param filas - el alto del mundo.
+	 * @param columnas - el ancho del mundo.
+	 */
+	public Mundo(String nombre, List<Integer> constantes,
+			Map<Patron, Posicion> distribucion, int filas, int columnas) {
+		setNombre(nombre);
+		setConstantes(constantes);
+		setDistribucion(distribucion);
+		setTopologia(Topologia.LIMITADA);
+		setDimensiones(filas, columnas);
+	}
+
 	/**
 	 * Constructor por defecto.
 	 * Establece el valor inicial, por defecto, de cada uno de los atributos.
 	 * Llama al constructor convencional de la propia clase.
 	 */
 	public Mundo() {
-		this("MundoDefecto", new ArrayList<Integer>(), 
-				new Hashtable<Patron, Posicion>(), new byte[TAMAÑO][TAMAÑO]);
+		this("MundoDefecto", new ArrayList<Integer>(),
+				new Hashtable<Patron, Posicion>(), TAMAÑO, TAMAÑO);
 	}
 
 	/**
@@ -58,20 +128,23 @@ public class Mundo implements Leyes, Serializable {
 	 * los valores obtenidos de un objeto de su misma clase.
 	 * Llama al constructor convencional utilizando objetos obtenidos
 	 * con los contructores copia de los atributos.
-	 * El atributo espacio es clonado utilizando utilidades de clonación de arrays.
+	 * Las celdas se copian directamente en el array del nuevo mundo.
 	 * @param mundo - el Mundo a clonar
 	 */
 	public Mundo(Mundo mundo) {
-		this(mundo.nombre, new ArrayList<Integer>(mundo.constantes), 
-				new Hashtable<Patron,Posicion>(mundo.distribucion), mundo.espacio);
-		
-		this.espacio = new byte[mundo.espacio.length][mundo.espacio.length];
-		
-		for (int i=0; i <mundo.espacio.length; i++)
-			this.espacio[i] = Arrays.copyOf(mundo.espacio[i], mundo.espacio[i].length);
-			//System.arraycopy(m.espacio[i], 0, this.espacio[i], 0, m.espacio[i].length);	
+		this(mundo.nombre, new ArrayList<Integer>(mundo.constantes),
+				new Hashtable<Patron,Posicion>(mundo.distribucion),
+				mundo.getFilas(), mundo.getColumnas());
+		setTopologia(mundo.getTopologia());
+		if (mundo.celdas != null) {
+			System.arraycopy(mundo.celdas, 0, celdas, 0, celdas.length);
+			contado = false;
+		}
+		else {
+			cargarCeldas(mundo.copiarCeldas(null));
+		}
 	}
-	
+
 	/**
 	 * @return the nombre
 	 */
@@ -92,12 +165,353 @@ public class Mundo implements Leyes, Serializable {
 	public Map<Patron, Posicion> getDistribucion() {
 		return distribucion;
 	}
-	
+
+	/**
+	 * @return la regla que determina la siguiente generación.
+	 */
+	public Regla getRegla() {
+		return regla;
+	}
+
+	/**
+	 * @return la topología de los bordes del mundo.
+	 */
+	public Topologia getTopologia() {
+		return topologia;
+	}
+
+	/**
+	 * @return el número de filas (alto) del mundo.
+	 */
+	public int getFilas() {
+		return filas;
+	}
+
+	/**
+	 * @return el número de columnas (ancho) del mundo.
+	 */
+	public int getColumnas() {
+		return columnas;
+	}
+
+	/**
+	 * Obtiene el estado de una celda.
+	 * @param fila
+	 * @param columna
+	 * @return 1 si la célula está viva, 0 si no.
+	 */
+	public byte getCelda(int fila, int columna) {
+		return celdas[(fila + 1) * ancho + columna + 1];
+	}
+
+	/**
+	 * Establece el estado de una celda.
+	 * @param fila
+	 * @param columna
+	 * @param estado - distinto de 0 viva, 0 vacía.
+	 */
+	public void setCelda(int fila, int columna, byte estado) {
+		int celda = (fila + 1) * ancho + columna + 1;
+		byte nuevo = (byte) (estado != 0 ? 1 : 0);
+		if (celdas[celda] != nuevo) {
+			if (contado) {
+				anotarCambio(fila, columna, nuevo);
+			}
+			interrumpirCambios();
+		}
+		celdas[celda] = nuevo;
+	}
+
+	/**
+	 * Ajusta la población y los límites a una celda que cambia de estado.
+	 * Si muere una célula del borde del rectángulo, éste sigue conteniendo
+	 * a las demás y se ajusta cuando se piden las estadísticas.
+	 */
+	private void anotarCambio(int fila, int columna, byte estado) {
+		if (estado != 0) {
+			if (poblacion == 0) {
+				filaMin = filaMax = fila;
+				columnaMin = columnaMax = columna;
+				limitesExactos = true;
+			}
+			else {
+				filaMin = Math.min(filaMin, fila);
+				filaMax = Math.max(filaMax, fila);
+				columnaMin = Math.min(columnaMin, columna);
+				columnaMax = Math.max(columnaMax, columna);
+			}
+			poblacion++;
+		}
+		else {
+			poblacion--;
+			if (fila == filaMin || fila == filaMax
+					|| columna == columnaMin || columna == columnaMax) {
+				limitesExactos = false;
+			}
+		}
+	}
+
+	/**
+	 * Estampa en el espacio cada patrón de la distribución en su posición.
+	 * Las células vivas del esquema se añaden a las del mundo, sin borrar
+	 * ninguna, y las que quedan fuera del mundo se descartan.
+	 */
+	public void estamparDistribucion() {
+		for (Map.Entry<Patron, Posicion> entrada : distribucion.entrySet()) {
+			estampar(entrada.getKey(), entrada.getValue());
+		}
+	}
+
+	/**
+	 * Estampa un patrón con su esquina superior izquierda en la posición
+	 * recibida; como en estamparDistribucion(), sin añadirlo a la distribución.
+	 * @param patron
+	 * @param posicion - x es la fila e y la columna; puede ser negativa.
+	 */
+	public void estampar(Patron patron, Posicion posicion) {
+		byte[][] esquema = patron.getEsquema();
+		for (int i = 0; i < esquema.length; i++) {
+			int fila = posicion.getX() + i;
+			if (fila < 0 || fila >= filas || esquema[i] == null) {
+				continue;
+			}
+			int desde = Math.max(0, -posicion.getY());
+			int hasta = Math.min(esquema[i].length, columnas - posicion.getY());
+			if (desde < hasta) {
+				estamparFila(esquema[i], desde, hasta, fila, posicion.getY() + desde);
+			}
+		}
+	}
+
+	/**
+	 * Añade a una fila del mundo, desde la columna indicada, las células
+	 * vivas de origen[desde, hasta); la fila del mundo tiene sitio para
+	 * todas. Mundo las escribe en su array y mantiene las estadísticas;
+	 * las subclases con otra representación utilizan setCelda() salvo que
+	 * lo redefinan.
+	 * @param origen - una fila de un esquema.
+	 * @param desde - primera celda de origen, incluida.
+	 * @param hasta - última celda de origen, excluida.
+	 * @param fila - la fila del mundo.
+	 * @param columna - la columna del mundo de origen[desde].
+	 */
+	protected void estamparFila(byte[] origen, int desde, int hasta, int fila, int columna) {
+		if (celdas == null) {
+			for (int k = desde; k < hasta; k++) {
+				if (origen[k] != 0) {
+					setCelda(fila, columna + k - desde, (byte) 1);
+				}
+			}
+			return;
+		}
+		int inicio = (fila + 1) * ancho + columna + 1 - desde;
+		int nacidas = 0;
+		for (int k = desde; k < hasta; k++) {
+			int viva = (origen[k] != 0) ? 1 : 0;
+			int estado = celdas[inicio + k];
+			nacidas += viva & ~estado;
+			celdas[inicio + k] = (byte) (estado | viva);
+		}
+		if (nacidas > 0) {
+			if (contado) {
+				// El tramo contiene a las nacidas; se ajusta al pedir las estadísticas.
+				int ultima = columna + hasta - desde - 1;
+				if (poblacion == 0) {
+					filaMin = filaMax = fila;
+					columnaMin = columna;
+					columnaMax = ultima;
+				}
+				else {
+					filaMin = Math.min(filaMin, fila);
+					filaMax = Math.max(filaMax, fila);
+					columnaMin = Math.min(columnaMin, columna);
+					columnaMax = Math.max(columnaMax, ultima);
+				}
+				poblacion += nacidas;
+				limitesExactos = false;
+			}
+			interrumpirCambios();
+		}
+	}
+
+	/**
+	 * Obtiene la población, el rectángulo de las células vivas y los
+	 * nacimientos y muertes de la última generación.
+	 * Sin coste cuando las mantiene el cálculo de Mundo o del motor; tras
+	 * una generación de un motor que no las mantiene se recuentan
+	 * recorriendo el espacio y los nacimientos y muertes son
+	 * Estadisticas.DESCONOCIDO. Los motores con otra representación lo
+	 * redefinen para contar sobre ella.
+	 * @return las estadísticas de la generación actual.
+	 */
+	public Estadisticas getEstadisticas() {
+		if (celdas == null) {
+			return contarCopia();
+		}
+		if (!contado) {
+			contarRegion(celdas, 0, filas, 0, columnas);
+			contado = true;
+		}
+		else if (!limitesExactos && poblacion > 0) {
+			contarRegion(celdas, filaMin, filaMax + 1, columnaMin, columnaMax + 1);
+		}
+		return new Estadisticas(poblacion, nacimientos, muertes,
+				filaMin, filaMax, columnaMin, columnaMax);
+	}
+
 	/**
+	 * Cuenta sobre una copia las células de las subclases con otra
+	 * representación que no redefinen getEstadisticas().
+	 */
+	private Estadisticas contarCopia() {
+		int filas = getFilas();
+		int columnas = getColumnas();
+		byte[] copia = copiarCeldas(null);
+		int vivas = 0;
+		int fMin = filas, fMax = -1, cMin = columnas, cMax = -1;
+		for (int i = 0; i < filas; i++) {
+			for (int j = 0; j < columnas; j++) {
+				if (copia[i * columnas + j] != 0) {
+					vivas++;
+					fMin = Math.min(fMin, i);
+					fMax = i;
+					cMin = Math.min(cMin, j);
+					cMax = Math.max(cMax, j);
+				}
+			}
+		}
+		return new Estadisticas(vivas, Estadisticas.DESCONOCIDO, Estadisticas.DESCONOCIDO,
+				fMin, fMax, cMin, cMax);
+	}
+
+	/**
+	 * Obtiene el espacio en un nuevo array byte[][].
+	 * Se mantiene por compatibilidad; crea un array por fila en cada llamada,
+	 * por lo que en mundos grandes es preferible copiarCeldas() o getCelda().
 	 * @return the espacio
 	 */
 	public byte[][] getEspacio() {
-		return espacio;
+		return copiarEspacio(null);
+	}
+
+	/**
+	 * Obtiene una instantánea del estado actual independiente de las
+	 * siguientes generaciones.
+	 * @return una copia del espacio.
+	 */
+	public byte[][] getInstantanea() {
+		return copiarEspacio(null);
+	}
+
+	/**
+	 * Copia el estado actual en el array recibido, que se reutiliza si tiene
+	 * las mismas dimensiones; evita crear un array nuevo en cada generación.
+	 * @param destino - el array a rellenar; puede ser null.
+	 * @return el array con la copia; destino o uno nuevo si no era válido.
+	 */
+	public byte[][] copiarEspacio(byte[][] destino) {
+		if (!mismasDimensiones(destino, filas, columnas)) {
+			destino = new byte[filas][columnas];
+		}
+		for (int i = 0; i < filas; i++) {
+			System.arraycopy(celdas, (i + 1) * ancho + 1, destino[i], 0, columnas);
+		}
+		return destino;
+	}
+
+	/**
+	 * Copia el estado actual, fila a fila, en el array recibido, que se
+	 * reutiliza si tiene el tamaño filas * columnas.
+	 * @param destino - el array a rellenar; puede ser null.
+	 * @return el array con la copia; destino o uno nuevo si no era válido.
+	 */
+	public byte[] copiarCeldas(byte[] destino) {
+		if (destino == null || destino.length != filas * columnas) {
+			destino = new byte[filas * columnas];
+		}
+		for (int i = 0; i < filas; i++) {
+			System.arraycopy(celdas, (i + 1) * ancho + 1, destino, i * columnas, columnas);
+		}
+		return destino;
+	}
+
+	/**
+	 * Copia el estado actual empaquetado a nivel de bit como MundoCompacto:
+	 * fila a fila, (columnas + 63) / 64 longs por fila y la columna j en el
+	 * bit j % 64 de su palabra; los bits sobrantes de cada fila quedan a 0.
+	 * @param destino - el array a rellenar; puede ser null.
+	 * @return el array con la copia; destino o uno nuevo si no era válido.
+	 */
+	public long[] copiarBits(long[] destino) {
+		int palabrasFila = (columnas + 63) / 64;
+		if (destino == null || destino.length != filas * palabrasFila) {
+			destino = new long[filas * palabrasFila];
+		}
+		else {
+			Arrays.fill(destino, 0L);
+		}
+		byte[] origen = celdas;
+		int anchoOrigen = ancho;
+		int inicio = ancho + 1;
+		if (origen == null) {
+			origen = copiarCeldas(null);
+			anchoOrigen = columnas;
+			inicio = 0;
+		}
+		for (int i = 0; i < filas; i++) {
+			int desde = inicio + i * anchoOrigen;
+			int base = i * palabrasFila;
+			for (int j = 0; j < columnas; j++) {
+				if (origen[desde + j] != 0) {
+					destino[base + (j >>> 6)] |= 1L << j;
+				}
+			}
+		}
+		return destino;
+	}
+
+	/**
+	 * Busca todas las posiciones en las que el esquema de un patrón coincide
+	 * celda a celda con el espacio, sin salir de los bordes; como
+	 * BusquedaPatron, que conviene reutilizar para buscar en varios mundos.
+	 * @param patron
+	 * @param orientaciones - si se buscan también sus giros y reflexiones.
+	 * @return la esquina superior izquierda de cada coincidencia, x la fila
+	 * e y la columna, ordenadas por filas y columnas.
+	 */
+	public List<Posicion> buscar(Patron patron, boolean orientaciones) {
+		return new BusquedaPatron(patron, orientaciones).buscar(this);
+	}
+
+	/**
+	 * Carga las celdas recibidas fila a fila, sin halo.
+	 * Una célula viva es cualquier valor distinto de 0.
+	 */
+	private void cargarCeldas(byte[] origen) {
+		for (int i = 0; i < filas; i++) {
+			int desde = i * columnas;
+			int hasta = (i + 1) * ancho + 1;
+			for (int j = 0; j < columnas; j++) {
+				celdas[hasta + j] = (byte) (origen[desde + j] != 0 ? 1 : 0);
+			}
+		}
+		contado = false;
+		interrumpirCambios();
+	}
+
+	/**
+	 * Comprueba si un espacio tiene el número de filas y columnas indicado.
+	 */
+	protected static boolean mismasDimensiones(byte[][] espacio, int filas, int columnas) {
+		if (espacio == null || espacio.length != filas) {
+			return false;
+		}
+		for (int i = 0; i < filas; i++) {
+			if (espacio[i].length != columnas) {
+				return false;
+			}
+		}
+		return true;
 	}
 
 	/**
@@ -108,48 +522,124 @@ public class Mundo implements Leyes, Serializable {
 			this.nombre = "MundoDefecto";
 		}
 		else {
-			this.nombre = nombre; 
+			this.nombre = nombre;
 		}
 	}
 
 	/**
+	 * Establece las constantes y la regla que representan: con dos valores
+	 * son las máscaras de nacimiento y supervivencia, p.e. [8, 12] es B3/S23;
+	 * en otro caso la regla es B3/S23.
 	 * @param constantes the constantes to set
 	 */
 	public void setConstantes(List<Integer> parametros) {
-
-		if (parametros == null) {
-			this.constantes = new ArrayList<Integer>();
+		if (parametros != null && parametros.size() == 2) {
+			setRegla(new Regla(parametros.get(0), parametros.get(1)));
 		}
 		else {
-			this.constantes = parametros;
+			setRegla(Regla.CONWAY);
 		}
 	}
 
+	/**
+	 * Establece la regla y actualiza las constantes con sus máscaras.
+	 * null equivale a B3/S23.
+	 * @param regla the regla to set
+	 */
+	public void setRegla(Regla regla) {
+		if (regla == null) {
+			regla = Regla.CONWAY;
+		}
+		this.regla = regla;
+		constantes = new ArrayList<Integer>();
+		constantes.add(regla.getNacimiento());
+		constantes.add(regla.getSupervivencia());
+	}
+
 	/**
 	 * @param distribucion the distribucion to set
 	 */
 	public void setDistribucion(Map<Patron, Posicion> distribucion) {
-		this.distribucion = distribucion;
+		if (distribucion == null) {
+			this.distribucion = new Hashtable<Patron, Posicion>();
+		}
+		else {
+			this.distribucion = distribucion;
+		}
 	}
 
 	/**
+	 * Establece la topología; null equivale a LIMITADA.
+	 * @param topologia the topologia to set
+	 */
+	public void setTopologia(Topologia topologia) {
+		if (topologia == null) {
+			topologia = Topologia.LIMITADA;
+		}
+		this.topologia = topologia;
+		// Un halo de la topología anterior no debe quedar como vecindad.
+		limpiarHalo(celdas);
+		limpiarHalo(celdasAux);
+	}
+
+	/**
+	 * Copia el espacio recibido; su número de filas y la longitud de la
+	 * primera fila determinan las dimensiones del mundo.
+	 * Las filas más cortas se completan con celdas vacías y una célula viva
+	 * es cualquier valor distinto de 0.
 	 * @param espacio the espacio to set
 	 */
 	public void setEspacio(byte[][] espacio) {
-		if (espacio == null || espacio.length == 0) {
-			this.espacio = new byte[TAMAÑO][TAMAÑO];
-			for (int i=0; i < espacio.length; i++) {
-				for (int j=0; j < espacio.length; j++) {
-					espacio[i][j] = 0; 
-				}
-			}
+		if (espacio == null || espacio.length == 0 || espacio[0].length == 0) {
+			setDimensiones(TAMAÑO, TAMAÑO);
+			return;
 		}
-		else {
-			this.espacio = espacio;
+		setDimensiones(espacio.length, espacio[0].length);
+		for (int i = 0; i < filas; i++) {
+			int inicio = (i + 1) * ancho + 1;
+			for (int j = 0; j < Math.min(columnas, espacio[i].length); j++) {
+				celdas[inicio + j] = (byte) (espacio[i][j] != 0 ? 1 : 0);
+			}
 		}
+		contado = false;
+		interrumpirCambios();
 	}
 
+	/**
+	 * Establece las dimensiones del mundo y reserva su espacio, que queda vacío.
+	 * Dimensiones no positivas equivalen al tamaño por defecto.
+	 * @param filas - el alto del mundo.
+	 * @param columnas - el ancho del mundo.
+	 */
+	protected void setDimensiones(int filas, int columnas) {
+		if (filas <= 0 || columnas <= 0) {
+			filas = TAMAÑO;
+			columnas = TAMAÑO;
+		}
+		this.filas = filas;
+		this.columnas = columnas;
+		this.ancho = columnas + 2;
+		reservarEspacio();
+		interrumpirCambios();
+	}
 
+	/**
+	 * Reserva el almacenamiento de las celdas para las dimensiones actuales.
+	 * Las subclases con otra representación lo redefinen.
+	 */
+	protected void reservarEspacio() {
+		if ((long) (filas + 2) * ancho > Integer.MAX_VALUE - 8) {
+			throw new IllegalArgumentException(
+					"Mundo demasiado grande para un array byte[]: " + filas + "x" + columnas);
+		}
+		celdas = new byte[(filas + 2) * ancho];
+		// El búfer de la siguiente generación se crea al actualizar.
+		celdasAux = null;
+		auxContado = false;
+		contado = true;
+		limitesExactos = true;
+		poblacion = nacimientos = muertes = 0;
+	}
 
 	/* (non-Javadoc)
 	 * @see java.lang.Object#toString()
@@ -157,55 +647,515 @@ public class Mundo implements Leyes, Serializable {
 	@Override
 	public String toString() {
 		return String
-				.format("Mundo [nombre=%s, parametros=%s, distribucion=%s, espacio=%s]",
-						nombre, constantes, distribucion,
-						Arrays.toString(espacio));
+				.format("Mundo [nombre=%s, regla=%s, distribucion=%s, espacio=%dx%d]",
+						nombre, regla, distribucion, getFilas(), getColumnas());
 	}
 
 	//Métodos de la interface Leyes
 	/**
-	 * Establece la manera en que actualiza el estado de las células del mundo: 
+	 * Establece la manera en que actualiza el estado de las células del mundo:
 	 * responde a la regla: El tiempo transcurre y se producen cambios...
+	 * La nueva generación se escribe en un segundo búfer preasignado que se
+	 * intercambia con el actual; no se crea ningún array por generación.
+	 * Los bordes se unen según la topología y cada celda evoluciona según la regla.
+	 * Sólo se calcula el rectángulo de las células vivas ampliado en una
+	 * celda cuando fuera de él no puede nacer ninguna: la regla no tiene B0
+	 * y el rectángulo no toca un borde unido a otro. Al mismo tiempo se
+	 * actualizan las estadísticas.
 	 */
 	@Override
-	public Object actualizarEstado()  {     					
-		int tam = espacio.length; 
-		byte[][] nuevaRealidad = new byte[tam][tam];
-
-		for (int i = 0; i < tam; i++) {
-			for (int j = 0; j <= 11; j++) {
-				int vecinas = 0;					//células adyacentes
-				// las celdas situadas fuera del mundo, con índices fuera de rango, darán
-				// ArrayIndexOutOfBoundsException y son equivalentes a células vacías a efectos de 
-				// vecindad.
-				try {
-					vecinas += espacio[i-1][j];	    //celda N			NO | N | NE
-					vecinas += espacio[i-1][j+1];	//celda NE			----------- 
-					vecinas += espacio[i][j+1];	    //celda E			 O |   | E
-					vecinas += espacio[i+1][j+1];	//celda SE          -----------
-					vecinas += espacio[i+1][j]; 	//celda S           SO | S | SE
-					vecinas += espacio[i+1][j-1];    //celda SO 
-					vecinas += espacio[i][j-1];	    //celda O           			                                     	
-					vecinas += espacio[i-1][j-1]; 	//celda NO
-				} 
-				catch (java.lang.ArrayIndexOutOfBoundsException e) { } 
-
-				if (vecinas < 2) {
-					nuevaRealidad[i][j] = 0; 				// subpoblación, muere
+	public Object actualizarEstado()  {
+		prepararGeneracion();
+		if (!contado) {
+			contarRegion(celdas, 0, filas, 0, columnas);
+			contado = true;
+		}
+		int filaDesde = 0;
+		int filaHasta = filas;
+		int columnaDesde = 0;
+		int columnaHasta = columnas;
+		if (regla.getTabla()[0] == 0 && (poblacion == 0 || topologia == Topologia.LIMITADA
+				|| (filaMin > 0 && filaMax < filas - 1
+						&& columnaMin > 0 && columnaMax < columnas - 1))) {
+			if (poblacion == 0) {
+				filaHasta = columnaHasta = 0;
+			}
+			else {
+				filaDesde = Math.max(filaMin - 1, 0);
+				filaHasta = Math.min(filaMax + 2, filas);
+				columnaDesde = Math.max(columnaMin - 1, 0);
+				columnaHasta = Math.min(columnaMax + 2, columnas);
+			}
+			vaciarAuxiliar(filaDesde, filaHasta, columnaDesde, columnaHasta);
+		}
+		int cambiadas = actualizarRegion(filaDesde, filaHasta, columnaDesde, columnaHasta);
+		if (cambios != null) {
+			registrarCambios(filaDesde, filaHasta, columnaDesde, columnaHasta);
+		}
+
+		// El búfer actual pasa a ser el auxiliar con sus límites y la
+		// región calculada contiene todas las células del nuevo.
+		int anterior = poblacion;
+		auxFilaMin = filaMin;
+		auxFilaMax = (poblacion == 0) ? filaMin - 1 : filaMax;
+		auxColumnaMin = columnaMin;
+		auxColumnaMax = columnaMax;
+		intercambiar();
+		contarRegion(celdas, filaDesde, filaHasta, columnaDesde, columnaHasta);
+		nacimientos = (cambiadas + poblacion - anterior) / 2;
+		muertes = cambiadas - nacimientos;
+		contado = true;
+		auxContado = true;
+		return this;
+	}
+
+	/**
+	 * Avanza el número de generaciones recibido en una sola llamada y
+	 * devuelve el propio mundo ya tipado.
+	 * Por defecto llama a actualizarEstado() en cada generación; los motores
+	 * que pueden fusionar generaciones o detectar que el mundo ya no cambia
+	 * lo redefinen.
+	 * @param generaciones - el número de generaciones, no negativo.
+	 * @return este mundo.
+	 */
+	public Mundo avanzar(long generaciones) {
+		assert generaciones >= 0;
+		for (long gen = 0; gen < generaciones; gen++) {
+			actualizarEstado();
+		}
+		return this;
+	}
+
+	/**
+	 * Asegura que existe el búfer de la siguiente generación y rellena
+	 * el halo del espacio actual según la topología.
+	 * Debe llamarse antes de actualizarFilas().
+	 */
+	protected void prepararGeneracion() {
+		if (celdasAux == null || celdasAux.length != celdas.length) {
+			celdasAux = new byte[celdas.length];
+		}
+		rellenarHalo();
+	}
+
+	/**
+	 * Copia en el halo las celdas del borde opuesto. Con LIMITADA el halo
+	 * se mantiene vacío; nunca se escribe al calcular una generación.
+	 */
+	private void rellenarHalo() {
+		rellenarHalo(celdas, filas, columnas, topologia);
+	}
+
+	/**
+	 * Copia en el halo de un espacio con la disposición del de Mundo las
+	 * celdas del borde opuesto según la topología; con LIMITADA no hace
+	 * nada. Admite cualquier array de tipo primitivo, como el de un bit
+	 * por mundo de MotorLotes, porque sólo copia con System.arraycopy().
+	 * @param espacio - el array, fila a fila de columnas + 2 celdas.
+	 */
+	static void rellenarHalo(Object espacio, int filas, int columnas, Topologia topologia) {
+		if (topologia == Topologia.LIMITADA) {
+			return;
+		}
+		int ancho = columnas + 2;
+		// Columnas: la primera y la última se unen en ambas topologías.
+		for (int i = 1; i <= filas; i++) {
+			int fila = i * ancho;
+			System.arraycopy(espacio, fila + columnas, espacio, fila, 1);
+			System.arraycopy(espacio, fila + 1, espacio, fila + columnas + 1, 1);
+		}
+		// Filas, incluidas las esquinas ya rellenadas del halo de columnas.
+		int ultima = filas * ancho;
+		int haloSur = (filas + 1) * ancho;
+		if (topologia == Topologia.TOROIDAL) {
+			System.arraycopy(espacio, ultima, espacio, 0, ancho);
+			System.arraycopy(espacio, ancho, espacio, haloSur, ancho);
+		}
+		else {
+			for (int k = 0; k < ancho; k++) {
+				System.arraycopy(espacio, ultima + ancho - 1 - k, espacio, k, 1);
+				System.arraycopy(espacio, ancho + ancho - 1 - k, espacio, haloSur + k, 1);
+			}
+		}
+	}
+
+	/**
+	 * Obtiene el espacio actual sin copiarlo, con halo y fila a fila de
+	 * getColumnas() + 2 celdas; para los motores de cálculo del paquete.
+	 * @return el array interno o null si la subclase no lo utiliza.
+	 */
+	byte[] getCeldasInternas() {
+		return celdas;
+	}
+
+	/**
+	 * Obtiene el búfer de la siguiente generación sin copiarlo; existe
+	 * tras prepararGeneracion().
+	 * @return el array interno o null.
+	 */
+	byte[] getCeldasAuxiliares() {
+		return celdasAux;
+	}
+
+	/**
+	 * Pone a 0 el halo del array recibido; puede ser null.
+	 */
+	private void limpiarHalo(byte[] espacio) {
+		if (espacio == null) {
+			return;
+		}
+		int haloSur = (filas + 1) * ancho;
+		Arrays.fill(espacio, 0, ancho, (byte) 0);
+		Arrays.fill(espacio, haloSur, haloSur + ancho, (byte) 0);
+		for (int i = 1; i <= filas; i++) {
+			espacio[i * ancho] = 0;
+			espacio[i * ancho + columnas + 1] = 0;
+		}
+	}
+
+	/**
+	 * Intercambia los búferes una vez calculadas todas las filas.
+	 * Si se registran, compara ambos búferes para obtener los cambios.
+	 * Las estadísticas dejan de ser válidas hasta que se recuenten.
+	 */
+	protected void completarGeneracion() {
+		if (cambios != null) {
+			registrarCambios(0, filas, 0, columnas);
+		}
+		intercambiar();
+		contado = false;
+		auxContado = false;
+		nacimientos = muertes = Estadisticas.DESCONOCIDO;
+	}
+
+	/**
+	 * Como completarGeneracion(), para los motores que cuentan la nueva
+	 * generación mientras la calculan: las estadísticas quedan válidas sin
+	 * volver a recorrer el espacio.
+	 * @param poblacion - las células vivas de la nueva generación.
+	 * @param cambiadas - las celdas que han cambiado; negativo si no se sabe.
+	 * @param limites - {filaMin, filaMax, columnaMin, columnaMax} de las
+	 * células vivas; se ignoran si no hay ninguna.
+	 */
+	protected void completarGeneracion(int poblacion, int cambiadas, int[] limites) {
+		boolean anteriorContado = contado;
+		int anterior = this.poblacion;
+		completarGeneracion();
+		this.poblacion = poblacion;
+		filaMin = (poblacion > 0) ? limites[0] : 0;
+		filaMax = (poblacion > 0) ? limites[1] : -1;
+		columnaMin = (poblacion > 0) ? limites[2] : columnas;
+		columnaMax = (poblacion > 0) ? limites[3] : -1;
+		contado = true;
+		limitesExactos = true;
+		if (anteriorContado && cambiadas >= 0) {
+			nacimientos = (cambiadas + poblacion - anterior) / 2;
+			muertes = cambiadas - nacimientos;
+		}
+	}
+
+	/**
+	 * Anota los nacimientos y muertes de una generación calculada fuera
+	 * del mundo, como las de MotorLotes, y escrita después con setCelda(),
+	 * que ya mantiene la población y los límites.
+	 * @param nacimientos
+	 * @param muertes
+	 */
+	void anotarGeneracion(int nacimientos, int muertes) {
+		this.nacimientos = nacimientos;
+		this.muertes = muertes;
+	}
+
+	private void intercambiar() {
+		byte[] aux = celdasAux;
+		celdasAux = celdas;
+		celdas = aux;
+	}
+
+	/**
+	 * Activa o desactiva el registro de las celdas que cambian en cada
+	 * generación.
+	 * @param registrar
+	 */
+	public void setRegistroCambios(boolean registrar) {
+		if (!registrar) {
+			cambios = null;
+		}
+		else if (cambios == null) {
+			cambios = new ConjuntoCambios();
+		}
+	}
+
+	/**
+	 * @return true si se registran los cambios de cada generación.
+	 */
+	public boolean isRegistroCambios() {
+		return cambios != null;
+	}
+
+	/**
+	 * Obtiene las celdas que cambiaron en la última generación; con
+	 * avanzar() sólo las de la última de las generaciones calculadas.
+	 * El conjunto se reutiliza en cada generación.
+	 * Las subclases con otra representación devuelven null salvo que lo
+	 * redefinan.
+	 * @return los cambios o null si no se registran.
+	 */
+	public ConjuntoCambios getCambios() {
+		return (celdas != null) ? cambios : null;
+	}
+
+	/**
+	 * @return el conjunto de cambios sin comprobar la representación, para
+	 * las subclases que lo rellenan; null si no se registran.
+	 */
+	ConjuntoCambios getConjuntoCambios() {
+		return cambios;
+	}
+
+	/**
+	 * Indica al registro de cambios que el espacio se ha modificado fuera
+	 * de una generación.
+	 */
+	void interrumpirCambios() {
+		if (cambios != null) {
+			cambios.interrumpir();
+		}
+	}
+
+	/**
+	 * Anota como cambios las celdas de una región que difieren entre el
+	 * espacio actual y el búfer auxiliar, comparándolas de 8 en 8.
+	 */
+	private void registrarCambios(int filaDesde, int filaHasta,
+			int columnaDesde, int columnaHasta) {
+		cambios.iniciar(columnas);
+		ByteBuffer antes = ByteBuffer.wrap(celdas).order(ByteOrder.LITTLE_ENDIAN);
+		ByteBuffer despues = ByteBuffer.wrap(celdasAux).order(ByteOrder.LITTLE_ENDIAN);
+		for (int i = filaDesde; i < filaHasta; i++) {
+			int inicio = (i + 1) * ancho + 1;
+			int j = columnaDesde;
+			for (; j + 8 <= columnaHasta; j += 8) {
+				long distintas = antes.getLong(inicio + j) ^ despues.getLong(inicio + j);
+				while (distintas != 0) {
+					cambios.añadir(i, j + (Long.numberOfTrailingZeros(distintas) >>> 3));
+					distintas &= distintas - 1;
 				}
-				if (vecinas > 3) {
-					nuevaRealidad[i][j] = 0; 				// sobrepoblación, muere
+			}
+			for (; j < columnaHasta; j++) {
+				if (celdas[inicio + j] != celdasAux[inicio + j]) {
+					cambios.añadir(i, j);
 				}
-				if (vecinas == 3) {
-					nuevaRealidad[i][j] = 1; 				// pasa a estar viva o se mantiene
+			}
+		}
+	}
+
+	/**
+	 * Pone a 0 las células del búfer auxiliar fuera de la región que se
+	 * va a calcular, para que contenga la siguiente generación completa.
+	 */
+	private void vaciarAuxiliar(int filaDesde, int filaHasta,
+			int columnaDesde, int columnaHasta) {
+		if (!auxContado) {
+			Arrays.fill(celdasAux, (byte) 0);
+			auxContado = true;
+			auxFilaMin = 0;
+			auxFilaMax = -1;
+		}
+		for (int i = auxFilaMin; i <= auxFilaMax; i++) {
+			int inicio = (i + 1) * ancho + 1;
+			if (i < filaDesde || i >= filaHasta) {
+				Arrays.fill(celdasAux, inicio + auxColumnaMin, inicio + auxColumnaMax + 1, (byte) 0);
+			}
+			else {
+				if (auxColumnaMin < columnaDesde) {
+					Arrays.fill(celdasAux, inicio + auxColumnaMin,
+							inicio + Math.min(auxColumnaMax + 1, columnaDesde), (byte) 0);
 				}
-				if (vecinas == 2 && espacio[i][j] == 1) {						
-					nuevaRealidad[i][j] = 1; 				// se mantiene viva
+				if (auxColumnaMax >= columnaHasta) {
+					Arrays.fill(celdasAux, inicio + Math.max(auxColumnaMin, columnaHasta),
+							inicio + auxColumnaMax + 1, (byte) 0);
 				}
 			}
 		}
-		espacio = nuevaRealidad;
-		return this;
 	}
-	
+
+	/**
+	 * Cuenta las células vivas de una región del array recibido, fuera de
+	 * la cual no debe haber ninguna, y obtiene sus límites exactos.
+	 */
+	private void contarRegion(byte[] espacio, int filaDesde, int filaHasta,
+			int columnaDesde, int columnaHasta) {
+		int[] limites = new int[4];
+		poblacion = contarCeldas(ByteBuffer.wrap(espacio).order(ByteOrder.LITTLE_ENDIAN),
+				ancho + 1, ancho, filaDesde, filaHasta, columnaDesde, columnaHasta, limites);
+		filaMin = (poblacion > 0) ? limites[0] : 0;
+		filaMax = limites[1];
+		columnaMin = (poblacion > 0) ? limites[2] : columnas;
+		columnaMax = limites[3];
+		limitesExactos = true;
+	}
+
+	/**
+	 * Cuenta las células vivas de una región de un espacio guardado fila a
+	 * fila y obtiene sus límites exactos; sólo lee el búfer, por lo que
+	 * franjas distintas pueden contarse a la vez.
+	 * Cada byte vale 0 o 1: las filas se suman de 8 en 8 celdas como long
+	 * y las columnas límite sólo se buscan desde los extremos de la región
+	 * hasta los límites ya encontrados.
+	 * @param bufer - el espacio, en orden LITTLE_ENDIAN.
+	 * @param origen - la posición de la celda (0, 0) en el búfer.
+	 * @param paso - la distancia entre filas en el búfer.
+	 * @param limites - recibe {filaMin, filaMax, columnaMin, columnaMax};
+	 * sin células, filaMax y columnaMax son -1.
+	 * @return las células vivas de la región.
+	 */
+	static int contarCeldas(ByteBuffer bufer, int origen, int paso,
+			int filaDesde, int filaHasta, int columnaDesde, int columnaHasta, int[] limites) {
+		int vivas = 0;
+		int fMin = filaHasta, fMax = -1, cMin = columnaHasta, cMax = -1;
+		for (int i = filaDesde; i < filaHasta; i++) {
+			int inicio = origen + i * paso;
+			int celda = inicio + columnaDesde;
+			int fin = inicio + columnaHasta;
+			int vivasFila = 0;
+			long suma = 0;
+			int sumadas = 0;
+			for (; celda + 8 <= fin; celda += 8) {
+				suma += bufer.getLong(celda);
+				// Cada byte de suma admite 255 sumandos sin desbordar.
+				if (++sumadas == 255) {
+					vivasFila += sumarBytes(suma);
+					suma = 0;
+					sumadas = 0;
+				}
+			}
+			vivasFila += sumarBytes(suma);
+			for (; celda < fin; celda++) {
+				vivasFila += bufer.get(celda);
+			}
+			if (vivasFila > 0) {
+				vivas += vivasFila;
+				if (fMax < 0) {
+					fMin = i;
+				}
+				fMax = i;
+				cMin = Math.min(cMin, buscarPrimera(bufer, inicio, columnaDesde, columnaHasta, cMin));
+				cMax = Math.max(cMax, buscarUltima(bufer, inicio, columnaDesde, columnaHasta, cMax));
+			}
+		}
+		limites[0] = fMin;
+		limites[1] = fMax;
+		limites[2] = cMin;
+		limites[3] = cMax;
+		return vivas;
+	}
+
+	/**
+	 * @return la suma de los 8 bytes, sin signo, de un long.
+	 */
+	private static int sumarBytes(long bytes) {
+		long pares = (bytes & 0x00FF00FF00FF00FFL) + ((bytes >>> 8) & 0x00FF00FF00FF00FFL);
+		return (int) ((pares * 0x0001000100010001L) >>> 48);
+	}
+
+	/**
+	 * Busca la primera columna viva de una fila desde columnaDesde.
+	 * @return la columna o un valor no menor que limite si no la hay antes.
+	 */
+	private static int buscarPrimera(ByteBuffer bufer, int inicio,
+			int columnaDesde, int columnaHasta, int limite) {
+		int j = columnaDesde;
+		while (j < limite) {
+			if (j + 8 <= columnaHasta) {
+				long ocho = bufer.getLong(inicio + j);
+				if (ocho != 0) {
+					return j + (Long.numberOfTrailingZeros(ocho) >>> 3);
+				}
+				j += 8;
+			}
+			else {
+				if (bufer.get(inicio + j) != 0) {
+					return j;
+				}
+				j++;
+			}
+		}
+		return j;
+	}
+
+	/**
+	 * Busca la última columna viva de una fila antes de columnaHasta.
+	 * @return la columna o un valor no mayor que limite si no la hay después.
+	 */
+	private static int buscarUltima(ByteBuffer bufer, int inicio,
+			int columnaDesde, int columnaHasta, int limite) {
+		int j = columnaHasta;
+		while (j > limite + 1) {
+			if (j - 8 >= columnaDesde) {
+				long ocho = bufer.getLong(inicio + j - 8);
+				if (ocho != 0) {
+					return j - 1 - (Long.numberOfLeadingZeros(ocho) >>> 3);
+				}
+				j -= 8;
+			}
+			else {
+				if (bufer.get(inicio + j - 1) != 0) {
+					return j - 1;
+				}
+				j--;
+			}
+		}
+		return j - 1;
+	}
+
+	/**
+	 * Calcula las filas [desde, hasta) de la siguiente generación en el búfer
+	 * auxiliar. Sólo lee el espacio actual y sólo escribe esas filas del
+	 * búfer, por lo que franjas distintas pueden calcularse a la vez.
+	 * @param desde - primera fila, incluida.
+	 * @param hasta - última fila, excluida.
+	 */
+	protected void actualizarFilas(int desde, int hasta) {
+		actualizarRegion(desde, hasta, 0, columnas);
+	}
+
+	/**
+	 * Calcula la región rectangular [filaDesde, filaHasta) x [columnaDesde, columnaHasta)
+	 * de la siguiente generación en el búfer auxiliar.
+	 * Sólo lee el espacio actual y sólo escribe esa región del búfer.
+	 * Las vecinas fuera del mundo se leen del halo, por lo que las celdas
+	 * del borde se calculan igual que las interiores.
+	 * @param filaDesde - primera fila, incluida.
+	 * @param filaHasta - última fila, excluida.
+	 * @param columnaDesde - primera columna, incluida.
+	 * @param columnaHasta - última columna, excluida.
+	 * @return el número de células de la región que cambian de estado.
+	 */
+	protected int actualizarRegion(int filaDesde, int filaHasta,
+			int columnaDesde, int columnaHasta) {
+		byte[] espacio = celdas;
+		byte[] nuevaRealidad = celdasAux;
+		byte[] tabla = regla.getTabla();
+		int ancho = this.ancho;
+		int cambios = 0;
+
+		for (int i = filaDesde; i < filaHasta; i++) {
+			int celda = (i + 1) * ancho + columnaDesde + 1;
+			int fin = celda + columnaHasta - columnaDesde;
+			for (; celda < fin; celda++) {
+				int n = celda - ancho;
+				int s = celda + ancho;
+				int vecinas = espacio[n - 1] + espacio[n] + espacio[n + 1]	//  NO | N | NE
+						+ espacio[celda - 1] + espacio[celda + 1]			//   O |   | E
+						+ espacio[s - 1] + espacio[s] + espacio[s + 1];	//  SO | S | SE
+				int estado = espacio[celda];
+				byte siguiente = tabla[estado * 9 + vecinas];
+				nuevaRealidad[celda] = siguiente;
+				cambios += estado ^ siguiente;
+			}
+		}
+		return cambios;
+	}
+
 } //class
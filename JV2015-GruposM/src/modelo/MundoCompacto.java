@@ -0,0 +1,549 @@
+package modelo;
+/**
+ * Proyecto: Juego de la vida.
+ *  Representa un Mundo con las células empaquetadas a nivel de bit:
+ *  cada long almacena 64 celdas consecutivas de una fila.
+ *  Cada generación se calcula palabra a palabra sumando las ocho vecinas
+ *  de las 64 celdas a la vez con lógica de sumadores completos (SWAR);
+ *  la regla se aplica a los cuatro planos de bits de la suma con un árbol
+ *  de multiplexores cuyas hojas son las entradas de la regla, por lo que
+ *  cualquier regla cuesta lo mismo que B3/S23.
+ *  Con topologías que unen los bordes, las filas vecinas de la primera y
+ *  la última se toman del borde opuesto (invertido para KLEIN) y los bits
+ *  de las columnas de los extremos se añaden a las palabras de los bordes.
+ *  Se convierte desde y hacia el espacio byte[][] y las celdas de Mundo,
+ *  por lo que es compatible con los DAO y las vistas existentes.
+ *  @since: prototipo2.2
+ *  @source: MundoCompacto.java
+ *  @version: 1.0 - 2016/06/10
+ *  @author: ajp
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Hashtable;
+import java.util.List;
+import java.util.Map;
+
+public class MundoCompacto extends Mundo {
+
+	private static final int BITS = 64;
+
+	// Atributos
+	private int palabrasFila;			// longs que ocupa cada fila
+	private long mascaraFinal;			// bits válidos de la última palabra de cada fila
+	private long[] celdas;
+	private transient long[] celdasAux;	// búfer de la siguiente generación
+	private transient long[] invertidas;	// KLEIN: última y primera fila invertidas
+	private transient Hojas hojas;			// regla compilada para 64 bits
+
+	/**
+	 * Constructor convencional.
+	 * Establece el valor inicial de cada uno de los atributos.
+	 * Recibe parámetros que se corresponden con los atributos de Mundo.
+	 * El espacio recibido se empaqueta a nivel de bit.
+	 * @param nombre
+	 * @param constantes
+	 * @param distribucion
+	 * @param espacio
+	 */
+	public MundoCompacto(String nombre, List<Integer> constantes,
+			Map<Patron, Posicion> distribucion, byte[][] espacio) {
+		super(nombre, constantes, distribucion, espacio);
+	}
+
+	/**
+	 * Constructor de un mundo vacío de las dimensiones indicadas.
+	 * @param nombre
+	 * @param constantes
+	 * @param distribucion
+	 * @param filas - el alto del mundo.
+	 * @param columnas - el ancho del mundo.
+	 */
+	public MundoCompacto(String nombre, List<Integer> constantes,
+			Map<Patron, Posicion> distribucion, int filas, int columnas) {
+		super(nombre, constantes, distribucion, filas, columnas);
+	}
+
+	/**
+	 * Constructor por defecto.
+	 * Establece el valor inicial, por defecto, de cada uno de los atributos.
+	 */
+	public MundoCompacto() {
+		super();
+	}
+
+	/**
+	 * Constructor copia.
+	 * Empaqueta el espacio de cualquier Mundo; si ya es compacto
+	 * copia directamente las palabras.
+	 * @param mundo - el Mundo a clonar
+	 */
+	public MundoCompacto(Mundo mundo) {
+		super(mundo.getNombre(), new ArrayList<Integer>(mundo.getConstantes()),
+				new Hashtable<Patron,Posicion>(mundo.getDistribucion()),
+				mundo.getFilas(), mundo.getColumnas());
+		setTopologia(mundo.getTopologia());
+		if (mundo instanceof MundoCompacto) {
+			celdas = ((MundoCompacto) mundo).celdas.clone();
+		}
+		else {
+			byte[] origen = mundo.copiarCeldas(null);
+			for (int i = 0; i < getFilas(); i++) {
+				empaquetarFila(i, origen, i * getColumnas());
+			}
+		}
+	}
+
+	/**
+	 * Obtiene el estado de una celda.
+	 * @param fila
+	 * @param columna
+	 * @return 1 si la célula está viva, 0 si no.
+	 */
+	@Override
+	public byte getCelda(int fila, int columna) {
+		return (byte) ((celdas[fila * palabrasFila + (columna >>> 6)] >>> columna) & 1L);
+	}
+
+	/**
+	 * Establece el estado de una celda.
+	 * @param fila
+	 * @param columna
+	 * @param estado - distinto de 0 viva, 0 vacía.
+	 */
+	@Override
+	public void setCelda(int fila, int columna, byte estado) {
+		int w = fila * palabrasFila + (columna >>> 6);
+		if (estado != 0) {
+			celdas[w] |= 1L << columna;
+		}
+		else {
+			celdas[w] &= ~(1L << columna);
+		}
+	}
+
+	/**
+	 * Estampa la fila de un esquema reuniendo sus células en palabras de
+	 * 64 bits, que se añaden a las del mundo con OR.
+	 */
+	@Override
+	protected void estamparFila(byte[] origen, int desde, int hasta, int fila, int columna) {
+		int base = fila * palabrasFila;
+		int w = columna >>> 6;
+		long palabra = 0;
+		for (int k = desde; k < hasta; k++, columna++) {
+			if ((columna >>> 6) != w) {
+				celdas[base + w] |= palabra;
+				palabra = 0;
+				w = columna >>> 6;
+			}
+			if (origen[k] != 0) {
+				palabra |= 1L << columna;
+			}
+		}
+		celdas[base + w] |= palabra;
+	}
+
+	/**
+	 * Obtiene el espacio desempaquetado en un nuevo array byte[][].
+	 * @return the espacio
+	 */
+	@Override
+	public byte[][] getEspacio() {
+		return copiarEspacio(null);
+	}
+
+	/**
+	 * Desempaqueta el estado actual directamente en el array recibido.
+	 * @param destino - el array a rellenar; puede ser null.
+	 * @return el array con la copia; destino o uno nuevo si no era válido.
+	 */
+	@Override
+	public byte[][] copiarEspacio(byte[][] destino) {
+		int filas = getFilas();
+		int columnas = getColumnas();
+		if (!mismasDimensiones(destino, filas, columnas)) {
+			destino = new byte[filas][columnas];
+		}
+		for (int i = 0; i < filas; i++) {
+			desempaquetarFila(i, destino[i], 0);
+		}
+		return destino;
+	}
+
+	/**
+	 * Desempaqueta el estado actual, fila a fila, en el array recibido.
+	 * @param destino - el array a rellenar; puede ser null.
+	 * @return el array con la copia; destino o uno nuevo si no era válido.
+	 */
+	@Override
+	public byte[] copiarCeldas(byte[] destino) {
+		int columnas = getColumnas();
+		int total = getFilas() * columnas;
+		if (destino == null || destino.length != total) {
+			destino = new byte[total];
+		}
+		for (int i = 0; i < getFilas(); i++) {
+			desempaquetarFila(i, destino, i * columnas);
+		}
+		return destino;
+	}
+
+	/**
+	 * Copia las palabras del estado actual, que ya tienen la disposición de
+	 * Mundo.copiarBits().
+	 * @param destino - el array a rellenar; puede ser null.
+	 * @return el array con la copia; destino o uno nuevo si no era válido.
+	 */
+	@Override
+	public long[] copiarBits(long[] destino) {
+		if (destino == null || destino.length != celdas.length) {
+			destino = new long[celdas.length];
+		}
+		System.arraycopy(celdas, 0, destino, 0, celdas.length);
+		return destino;
+	}
+
+	/**
+	 * Cuenta las células sobre las palabras empaquetadas: la población con
+	 * Long.bitCount() y las columnas límite con los ceros de cada extremo
+	 * de las palabras no vacías. Los nacimientos y muertes son
+	 * Estadisticas.DESCONOCIDO.
+	 * @return las estadísticas de la generación actual.
+	 */
+	@Override
+	public Estadisticas getEstadisticas() {
+		int poblacion = 0;
+		int filaMin = 0, filaMax = -1, columnaMin = Integer.MAX_VALUE, columnaMax = -1;
+		for (int i = 0; i < getFilas(); i++) {
+			int base = i * palabrasFila;
+			for (int w = 0; w < palabrasFila; w++) {
+				long palabra = celdas[base + w];
+				if (palabra != 0) {
+					if (filaMax < 0) {
+						filaMin = i;
+					}
+					filaMax = i;
+					poblacion += Long.bitCount(palabra);
+					columnaMin = Math.min(columnaMin, w * BITS + Long.numberOfTrailingZeros(palabra));
+					columnaMax = Math.max(columnaMax, w * BITS + BITS - 1 - Long.numberOfLeadingZeros(palabra));
+				}
+			}
+		}
+		return new Estadisticas(poblacion, Estadisticas.DESCONOCIDO, Estadisticas.DESCONOCIDO,
+				filaMin, filaMax, columnaMin, columnaMax);
+	}
+
+	/**
+	 * Empaqueta el espacio recibido; una célula viva es cualquier valor distinto de 0.
+	 * Las filas más cortas se completan con celdas vacías.
+	 * @param espacio the espacio to set
+	 */
+	@Override
+	public void setEspacio(byte[][] espacio) {
+		if (espacio == null || espacio.length == 0 || espacio[0].length == 0) {
+			setDimensiones(TAMAÑO, TAMAÑO);
+			return;
+		}
+		setDimensiones(espacio.length, espacio[0].length);
+		byte[] fila = new byte[getColumnas()];
+		for (int i = 0; i < espacio.length; i++) {
+			int longitud = Math.min(fila.length, espacio[i].length);
+			System.arraycopy(espacio[i], 0, fila, 0, longitud);
+			Arrays.fill(fila, longitud, fila.length, (byte) 0);
+			empaquetarFila(i, fila, 0);
+		}
+	}
+
+	/**
+	 * Reserva las palabras para las dimensiones actuales.
+	 */
+	@Override
+	protected void reservarEspacio() {
+		int columnas = getColumnas();
+		palabrasFila = (columnas + BITS - 1) / BITS;
+		mascaraFinal = (columnas % BITS == 0) ? -1L : (1L << (columnas % BITS)) - 1;
+		celdas = new long[getFilas() * palabrasFila];
+		celdasAux = null;
+	}
+
+	/**
+	 * Empaqueta en la fila i las columnas que empiezan en origen[desde].
+	 */
+	private void empaquetarFila(int i, byte[] origen, int desde) {
+		int base = i * palabrasFila;
+		int columnas = getColumnas();
+		for (int j = 0; j < columnas; j++) {
+			if (origen[desde + j] != 0) {
+				celdas[base + (j >>> 6)] |= 1L << j;
+			}
+		}
+	}
+
+	/**
+	 * Desempaqueta la fila i en destino a partir de destino[desde].
+	 */
+	private void desempaquetarFila(int i, byte[] destino, int desde) {
+		int base = i * palabrasFila;
+		int columnas = getColumnas();
+		for (int j = 0; j < columnas; j++) {
+			destino[desde + j] = (byte) ((celdas[base + (j >>> 6)] >>> j) & 1L);
+		}
+	}
+
+	//Métodos de la interface Leyes
+	/**
+	 * Calcula la siguiente generación palabra a palabra.
+	 * Los bordes se unen según la topología; con LIMITADA las celdas situadas
+	 * fuera del mundo son equivalentes a células vacías.
+	 * Las dos generaciones se alternan en dos búferes preasignados.
+	 */
+	@Override
+	public Object actualizarEstado() {
+		generar();
+		return this;
+	}
+
+	/**
+	 * Avanza el número de generaciones recibido.
+	 * Termina en cuanto una generación coincide con la anterior, ya que
+	 * a partir de ahí el mundo no vuelve a cambiar.
+	 * @param generaciones - el número de generaciones, no negativo.
+	 * @return este mundo.
+	 */
+	@Override
+	public MundoCompacto avanzar(long generaciones) {
+		assert generaciones >= 0;
+		for (long gen = 0; gen < generaciones; gen++) {
+			generar();
+			if (Arrays.equals(celdas, celdasAux)) {
+				break;
+			}
+		}
+		return this;
+	}
+
+	/**
+	 * Calcula la siguiente generación; la anterior queda en celdasAux.
+	 */
+	private void generar() {
+		if (celdasAux == null) {
+			celdasAux = new long[celdas.length];
+		}
+		if (hojas == null || hojas.regla != getRegla()) {
+			hojas = new Hojas(getRegla());
+		}
+		int filas = getFilas();
+		int ultima = (filas - 1) * palabrasFila;
+		boolean unida = getTopologia() != Topologia.LIMITADA;
+		// Filas vecinas de la primera (norte) y de la última (sur).
+		long[] norte = null;
+		int baseNorte = 0;
+		long[] sur = null;
+		int baseSur = 0;
+		if (getTopologia() == Topologia.TOROIDAL) {
+			norte = celdas;
+			baseNorte = ultima;
+			sur = celdas;
+		}
+		if (getTopologia() == Topologia.KLEIN) {
+			if (invertidas == null || invertidas.length != 2 * palabrasFila) {
+				invertidas = new long[2 * palabrasFila];
+			}
+			invertirFila(ultima, invertidas, 0);
+			invertirFila(0, invertidas, palabrasFila);
+			norte = invertidas;
+			sur = invertidas;
+			baseSur = palabrasFila;
+		}
+		for (int i = 0; i < filas; i++) {
+			int base = i * palabrasFila;
+			actualizarFila(i,
+					(i > 0) ? celdas : norte, (i > 0) ? base - palabrasFila : baseNorte,
+					(i < filas - 1) ? celdas : sur, (i < filas - 1) ? base + palabrasFila : baseSur,
+					unida);
+		}
+		long[] aux = celdas;
+		celdas = celdasAux;
+		celdasAux = aux;
+	}
+
+	/**
+	 * Calcula una fila completa de la siguiente generación en celdasAux.
+	 * Recorre las palabras de las filas superior, propia e inferior
+	 * manteniendo la palabra anterior y la siguiente para obtener
+	 * las vecinas O y E con desplazamientos.
+	 * @param i - la fila a calcular.
+	 * @param norte - el array de la fila superior; null si está fuera del mundo.
+	 * @param baseNorte - el inicio de la fila superior en su array.
+	 * @param sur - el array de la fila inferior; null si está fuera del mundo.
+	 * @param baseSur - el inicio de la fila inferior en su array.
+	 * @param unida - si se unen la primera y la última columna.
+	 */
+	private void actualizarFila(int i, long[] norte, int baseNorte,
+			long[] sur, int baseSur, boolean unida) {
+		int base = i * palabrasFila;
+		long nAnt = anterior(norte, baseNorte, unida), n = palabra(norte, baseNorte, 0, unida);
+		long cAnt = anterior(celdas, base, unida), c = palabra(celdas, base, 0, unida);
+		long sAnt = anterior(sur, baseSur, unida), s = palabra(sur, baseSur, 0, unida);
+		for (int w = 0; w < palabrasFila; w++) {
+			long nSig = palabra(norte, baseNorte, w + 1, unida);
+			long cSig = palabra(celdas, base, w + 1, unida);
+			long sSig = palabra(sur, baseSur, w + 1, unida);
+
+			celdasAux[base + w] = siguiente(hojas, c,
+					(n << 1) | (nAnt >>> 63), n, (n >>> 1) | (nSig << 63),
+					(c << 1) | (cAnt >>> 63),    (c >>> 1) | (cSig << 63),
+					(s << 1) | (sAnt >>> 63), s, (s >>> 1) | (sSig << 63));
+
+			nAnt = n; n = nSig;
+			cAnt = c; c = cSig;
+			sAnt = s; s = sSig;
+		}
+		celdasAux[base + palabrasFila - 1] &= mascaraFinal;
+	}
+
+	/**
+	 * Obtiene la palabra w de una fila; 0 si la fila está fuera del mundo.
+	 * Si se unen las columnas, la primera celda de la fila se añade tras
+	 * la última: en el bit libre de la última palabra o en la palabra
+	 * siguiente si la última está completa.
+	 */
+	private long palabra(long[] fila, int base, int w, boolean unida) {
+		if (fila == null || w > palabrasFila) {
+			return 0;
+		}
+		int resto = getColumnas() % BITS;
+		long primera = unida ? fila[base] & 1L : 0;
+		if (w == palabrasFila) {
+			return (resto == 0) ? primera : 0;
+		}
+		long palabra = fila[base + w];
+		if (w == palabrasFila - 1 && resto != 0) {
+			palabra |= primera << resto;
+		}
+		return palabra;
+	}
+
+	/**
+	 * Obtiene la palabra anterior a la primera de una fila: si se unen las
+	 * columnas, contiene la última celda de la fila en el bit 63.
+	 */
+	private long anterior(long[] fila, int base, boolean unida) {
+		if (fila == null || !unida) {
+			return 0;
+		}
+		int ultima = getColumnas() - 1;
+		return ((fila[base + (ultima >>> 6)] >>> ultima) & 1L) << 63;
+	}
+
+	/**
+	 * Copia en destino la fila que empieza en celdas[base] invertida de
+	 * izquierda a derecha: la columna j pasa a columnas - 1 - j.
+	 */
+	private void invertirFila(int base, long[] destino, int baseDestino) {
+		for (int k = 0; k < palabrasFila; k++) {
+			destino[baseDestino + k] = Long.reverse(celdas[base + palabrasFila - 1 - k]);
+		}
+		// Los bits libres de la última palabra quedan al principio: se eliminan.
+		int desplazamiento = (BITS - getColumnas() % BITS) % BITS;
+		if (desplazamiento != 0) {
+			for (int k = 0; k < palabrasFila; k++) {
+				long siguiente = (k + 1 < palabrasFila) ? destino[baseDestino + k + 1] : 0;
+				destino[baseDestino + k] = (destino[baseDestino + k] >>> desplazamiento)
+						| (siguiente << (BITS - desplazamiento));
+			}
+		}
+	}
+
+	/**
+	 * Aplica una regla a 64 células a la vez.
+	 * Suma las ocho vecinas de cada bit en cuatro planos de bits (s3 s2 s1 s0)
+	 * con semisumadores y sumadores completos.
+	 * @param regla - la regla compilada.
+	 * @param vivas - las células actuales.
+	 * @return las células de la siguiente generación.
+	 */
+	static long siguiente(Hojas regla, long vivas, long no, long n, long ne,
+			long o, long e, long so, long s, long se) {
+		// Sumas de tres de la fila superior e inferior y de dos de la propia.
+		long a0 = no ^ n ^ ne;
+		long a1 = (no & n) | (ne & (no ^ n));
+		long c0 = so ^ s ^ se;
+		long c1 = (so & s) | (se & (so ^ s));
+		long b0 = o ^ e;
+		long b1 = o & e;
+		// Suma total de 0 a 8 en cuatro bits.
+		long s0 = a0 ^ b0 ^ c0;
+		long k0 = (a0 & b0) | (c0 & (a0 ^ b0));
+		long x = a1 ^ b1;
+		long y = c1 ^ k0;
+		long p = a1 & b1;
+		long q = c1 & k0;
+		long s1 = x ^ y;
+		long s2 = p ^ q ^ (x & y);
+		long s3 = (p & q) | ((p ^ q) & x & y);
+		// Árbol de multiplexores: a ^ ((a ^ b) & s) elige b donde s está activo.
+		long nace = arbol(regla.nace0, regla.nace1, regla.nace2, regla.nace3,
+				regla.nace4, regla.nace5, regla.nace6, regla.nace7, regla.nace8,
+				s0, s1, s2, s3);
+		long sobrevive = arbol(regla.vive0, regla.vive1, regla.vive2, regla.vive3,
+				regla.vive4, regla.vive5, regla.vive6, regla.vive7, regla.vive8,
+				s0, s1, s2, s3);
+		return nace ^ ((nace ^ sobrevive) & vivas);
+	}
+
+	/**
+	 * Obtiene, para cada bit, la hoja correspondiente a la suma de cuatro
+	 * bits s3 s2 s1 s0; con s3 activo la suma sólo puede ser 8.
+	 */
+	private static long arbol(long t0, long x1, long t2, long x3, long t4,
+			long x5, long t6, long x7, long t8, long s0, long s1, long s2, long s3) {
+		long p0 = t0 ^ (x1 & s0);
+		long p1 = t2 ^ (x3 & s0);
+		long p2 = t4 ^ (x5 & s0);
+		long p3 = t6 ^ (x7 & s0);
+		long q0 = p0 ^ ((p0 ^ p1) & s1);
+		long q1 = p2 ^ ((p2 ^ p3) & s1);
+		long r = q0 ^ ((q0 ^ q1) & s2);
+		return r ^ ((r ^ t8) & s3);
+	}
+
+	/**
+	 * Regla compilada para el cálculo de 64 bits: cada entrada de la tabla
+	 * extendida a 0 ó -1L y, en las parejas de sumas 2k y 2k+1, la impar ya
+	 * combinada con la par (x = t[2k] ^ t[2k+1]) para el primer nivel del árbol.
+	 * Se guardan en atributos y no en un array para que el compilador pueda
+	 * mantenerlas en registros mientras escribe en el array de celdas.
+	 */
+	static final class Hojas {
+		final Regla regla;
+		final long nace0, nace1, nace2, nace3, nace4, nace5, nace6, nace7, nace8;
+		final long vive0, vive1, vive2, vive3, vive4, vive5, vive6, vive7, vive8;
+
+		Hojas(Regla regla) {
+			this.regla = regla;
+			byte[] t = regla.getTabla();
+			nace0 = -t[0];
+			nace1 = -(t[0] ^ t[1]);
+			nace2 = -t[2];
+			nace3 = -(t[2] ^ t[3]);
+			nace4 = -t[4];
+			nace5 = -(t[4] ^ t[5]);
+			nace6 = -t[6];
+			nace7 = -(t[6] ^ t[7]);
+			nace8 = -t[8];
+			vive0 = -t[9];
+			vive1 = -(t[9] ^ t[10]);
+			vive2 = -t[11];
+			vive3 = -(t[11] ^ t[12]);
+			vive4 = -t[13];
+			vive5 = -(t[13] ^ t[14]);
+			vive6 = -t[15];
+			vive7 = -(t[15] ^ t[16]);
+			vive8 = -t[17];
+		}
+	}
+
+} //class
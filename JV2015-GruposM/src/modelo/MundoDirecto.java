@@ -0,0 +1,334 @@
+package modelo;
+/**
+ * Proyecto: Juego de la vida.
+ *  Representa un Mundo cuyas celdas están fuera del heap de Java, en dos
+ *  ByteBuffer directos con la misma disposición que el array de Mundo:
+ *  fila a fila con un halo de una celda. Los mundos enormes no ocupan
+ *  el heap y no alargan las pausas del recolector de basura para el
+ *  resto de la aplicación.
+ *  Las generaciones se calculan directamente sobre los búferes con el
+ *  núcleo de 8 celdas de MundoVectorial.
+ *  La memoria nativa se libera con liberar(), que Simulacion llama al
+ *  cambiar de motor; tras ello el mundo no puede utilizarse. Java 8 no
+ *  permite liberarla de inmediato: los búferes quedan sin referencias y
+ *  la memoria se devuelve cuando el recolector los descarta.
+ *  La serialización guarda las celdas en el flujo; db4o no almacena
+ *  búferes, por lo que sus DAO guardan una copia en un Mundo.
+ *  @since: prototipo2.2
+ *  @source: MundoDirecto.java
+ *  @version: 1.0 - 2016/06/28
+ *  @author: ajp
+ */
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Hashtable;
+import java.util.List;
+import java.util.Map;
+
+public class MundoDirecto extends Mundo {
+
+	// Atributos
+	private transient ByteBuffer celdas;		// fila a fila, con halo
+	private transient ByteBuffer celdasAux;		// búfer de la siguiente generación
+	private transient Regla reglaCompilada;
+	private transient long[] entradas;
+
+	/**
+	 * Constructor convencional.
+	 * Recibe parámetros que se corresponden con los atributos de Mundo.
+	 * @param nombre
+	 * @param constantes
+	 * @param distribucion
+	 * @param espacio
+	 */
+	public MundoDirecto(String nombre, List<Integer> constantes,
+			Map<Patron, Posicion> distribucion, byte[][] espacio) {
+		super(nombre, constantes, distribucion, espacio);
+	}
+
+	/**
+	 * Constructor de un mundo vacío de las dimensiones indicadas.
+	 * Es el adecuado para mundos enormes: no crea ningún array en el heap.
+	 * @param nombre
+	 * @param constantes
+	 * @param distribucion
+	 * @param filas - el alto del mundo.
+	 * @param columnas - el ancho del mundo.
+	 */
+	public MundoDirecto(String nombre, List<Integer> constantes,
+			Map<Patron, Posicion> distribucion, int filas, int columnas) {
+		super(nombre, constantes, distribucion, filas, columnas);
+	}
+
+	/**
+	 * Constructor por defecto.
+	 */
+	public MundoDirecto() {
+		super();
+	}
+
+	/**
+	 * Constructor copia.
+	 * Copia las celdas fila a fila, sin crear una instantánea completa.
+	 * @param mundo - el Mundo a clonar
+	 */
+	public MundoDirecto(Mundo mundo) {
+		super(mundo.getNombre(), new ArrayList<Integer>(mundo.getConstantes()),
+				new Hashtable<Patron,Posicion>(mundo.getDistribucion()),
+				mundo.getFilas(), mundo.getColumnas());
+		setTopologia(mundo.getTopologia());
+		for (int i = 0; i < getFilas(); i++) {
+			for (int j = 0; j < getColumnas(); j++) {
+				if (mundo.getCelda(i, j) != 0) {
+					setCelda(i, j, (byte) 1);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Libera los búferes; el mundo no puede utilizarse después.
+	 */
+	public void liberar() {
+		celdas = null;
+		celdasAux = null;
+	}
+
+	/**
+	 * @return true si se ha llamado a liberar().
+	 */
+	public boolean isLiberado() {
+		return celdas == null;
+	}
+
+	/**
+	 * Obtiene el búfer de la generación actual sin copiarlo, con halo.
+	 * @return el búfer o null si se ha liberado.
+	 */
+	ByteBuffer getBufer() {
+		return celdas;
+	}
+
+	/**
+	 * Sustituye los búferes de la generación actual y de la siguiente;
+	 * ambos deben tener la capacidad de las dimensiones actuales con halo.
+	 * @param celdas
+	 * @param celdasAux
+	 */
+	void setBuferes(ByteBuffer celdas, ByteBuffer celdasAux) {
+		this.celdas = celdas;
+		this.celdasAux = celdasAux;
+	}
+
+	private ByteBuffer espacio() {
+		if (celdas == null) {
+			throw new IllegalStateException("MundoDirecto liberado: " + getNombre());
+		}
+		return celdas;
+	}
+
+	@Override
+	public byte getCelda(int fila, int columna) {
+		return espacio().get((fila + 1) * (getColumnas() + 2) + columna + 1);
+	}
+
+	@Override
+	public void setCelda(int fila, int columna, byte estado) {
+		espacio().put((fila + 1) * (getColumnas() + 2) + columna + 1, (byte) (estado != 0 ? 1 : 0));
+	}
+
+	@Override
+	public byte[][] copiarEspacio(byte[][] destino) {
+		int filas = getFilas();
+		int columnas = getColumnas();
+		if (!mismasDimensiones(destino, filas, columnas)) {
+			destino = new byte[filas][columnas];
+		}
+		ByteBuffer lectura = espacio().duplicate();
+		for (int i = 0; i < filas; i++) {
+			lectura.position((i + 1) * (columnas + 2) + 1);
+			lectura.get(destino[i], 0, columnas);
+		}
+		return destino;
+	}
+
+	@Override
+	public byte[] copiarCeldas(byte[] destino) {
+		int filas = getFilas();
+		int columnas = getColumnas();
+		if (destino == null || destino.length != filas * columnas) {
+			destino = new byte[filas * columnas];
+		}
+		ByteBuffer lectura = espacio().duplicate();
+		for (int i = 0; i < filas; i++) {
+			lectura.position((i + 1) * (columnas + 2) + 1);
+			lectura.get(destino, i * columnas, columnas);
+		}
+		return destino;
+	}
+
+	/**
+	 * Cuenta las células sobre el búfer directo, sin copiarlo al heap;
+	 * los nacimientos y muertes son Estadisticas.DESCONOCIDO.
+	 * @return las estadísticas de la generación actual.
+	 */
+	@Override
+	public Estadisticas getEstadisticas() {
+		int columnas = getColumnas();
+		int[] limites = new int[4];
+		int poblacion = contarCeldas(espacio().duplicate().order(ByteOrder.LITTLE_ENDIAN),
+				columnas + 3, columnas + 2, 0, getFilas(), 0, columnas, limites);
+		return new Estadisticas(poblacion, Estadisticas.DESCONOCIDO, Estadisticas.DESCONOCIDO,
+				limites[0], limites[1], limites[2], limites[3]);
+	}
+
+	@Override
+	public void setEspacio(byte[][] espacio) {
+		if (espacio == null || espacio.length == 0 || espacio[0].length == 0) {
+			setDimensiones(TAMAÑO, TAMAÑO);
+			return;
+		}
+		setDimensiones(espacio.length, espacio[0].length);
+		for (int i = 0; i < espacio.length; i++) {
+			for (int j = 0; j < Math.min(getColumnas(), espacio[i].length); j++) {
+				if (espacio[i][j] != 0) {
+					setCelda(i, j, (byte) 1);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Reserva un búfer directo vacío para las dimensiones actuales; el de
+	 * la siguiente generación se reserva en la primera generación.
+	 * @throws IllegalArgumentException - si el espacio con halo no cabe en un búfer.
+	 */
+	@Override
+	protected void reservarEspacio() {
+		long tamaño = (long) (getFilas() + 2) * (getColumnas() + 2);
+		if (tamaño > Integer.MAX_VALUE - 8) {
+			throw new IllegalArgumentException("Mundo demasiado grande: "
+					+ getFilas() + "x" + getColumnas());
+		}
+		liberar();
+		celdas = ByteBuffer.allocateDirect((int) tamaño).order(ByteOrder.nativeOrder());
+	}
+
+	/**
+	 * Establece la topología y vacía el halo de ambos búferes.
+	 * @param topologia - null equivale a LIMITADA.
+	 */
+	@Override
+	public void setTopologia(Topologia topologia) {
+		super.setTopologia(topologia);
+		limpiarHalo(celdas);
+		limpiarHalo(celdasAux);
+	}
+
+	//Métodos de la interface Leyes
+	/**
+	 * Calcula la siguiente generación sobre los búferes directos y los
+	 * intercambia.
+	 */
+	@Override
+	public Object actualizarEstado() {
+		ByteBuffer espacio = espacio();
+		if (celdasAux == null) {
+			celdasAux = ByteBuffer.allocateDirect(espacio.capacity()).order(ByteOrder.nativeOrder());
+		}
+		Regla regla = getRegla();
+		if (regla != reglaCompilada) {
+			entradas = MundoVectorial.compilarEntradas(regla);
+			reglaCompilada = regla;
+		}
+		int ancho = getColumnas() + 2;
+		rellenarHalo(espacio);
+		MundoVectorial.actualizarBloque(espacio, celdasAux, ancho, ancho + 1,
+				getFilas(), getColumnas(), entradas, regla.getTabla());
+		celdas = celdasAux;
+		celdasAux = espacio;
+		return this;
+	}
+
+	/**
+	 * Copia en el halo las celdas del borde opuesto según la topología,
+	 * como Mundo; con LIMITADA el halo se mantiene vacío.
+	 */
+	private void rellenarHalo(ByteBuffer espacio) {
+		Topologia topologia = getTopologia();
+		if (topologia == Topologia.LIMITADA) {
+			return;
+		}
+		int filas = getFilas();
+		int columnas = getColumnas();
+		int ancho = columnas + 2;
+		for (int i = 1; i <= filas; i++) {
+			int fila = i * ancho;
+			espacio.put(fila, espacio.get(fila + columnas));
+			espacio.put(fila + columnas + 1, espacio.get(fila + 1));
+		}
+		int ultima = filas * ancho;
+		int haloSur = (filas + 1) * ancho;
+		boolean klein = topologia == Topologia.KLEIN;
+		for (int k = 0; k < ancho; k++) {
+			espacio.put(k, espacio.get(klein ? ultima + ancho - 1 - k : ultima + k));
+			espacio.put(haloSur + k, espacio.get(klein ? ancho + ancho - 1 - k : ancho + k));
+		}
+	}
+
+	/**
+	 * Pone a 0 el halo del búfer recibido; puede ser null.
+	 */
+	private void limpiarHalo(ByteBuffer espacio) {
+		if (espacio == null) {
+			return;
+		}
+		int filas = getFilas();
+		int ancho = getColumnas() + 2;
+		int haloSur = (filas + 1) * ancho;
+		for (int k = 0; k < ancho; k++) {
+			espacio.put(k, (byte) 0);
+			espacio.put(haloSur + k, (byte) 0);
+		}
+		for (int i = 1; i <= filas; i++) {
+			espacio.put(i * ancho, (byte) 0);
+			espacio.put(i * ancho + ancho - 1, (byte) 0);
+		}
+	}
+
+	/**
+	 * Serializa los atributos de Mundo y después las celdas fila a fila.
+	 */
+	private void writeObject(ObjectOutputStream salida) throws IOException {
+		salida.defaultWriteObject();
+		byte[] fila = new byte[getColumnas()];
+		ByteBuffer lectura = espacio().duplicate();
+		for (int i = 0; i < getFilas(); i++) {
+			lectura.position((i + 1) * (getColumnas() + 2) + 1);
+			lectura.get(fila);
+			salida.write(fila);
+		}
+	}
+
+	/**
+	 * Reserva los búferes directos y lee las celdas.
+	 */
+	private void readObject(ObjectInputStream entrada)
+			throws IOException, ClassNotFoundException {
+		entrada.defaultReadObject();
+		reservarEspacio();
+		byte[] fila = new byte[getColumnas()];
+		for (int i = 0; i < getFilas(); i++) {
+			entrada.readFully(fila);
+			celdas.position((i + 1) * (getColumnas() + 2) + 1);
+			celdas.put(fila);
+		}
+		celdas.clear();
+	}
+
+} //class
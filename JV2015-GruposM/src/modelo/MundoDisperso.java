@@ -0,0 +1,329 @@
+package modelo;
+/**
+ * Proyecto: Juego de la vida.
+ *  Representa un Mundo que sólo recalcula las zonas con actividad.
+ *  El espacio se divide en teselas cuadradas; en cada generación sólo
+ *  se evalúan las teselas que cambiaron en la generación anterior y sus
+ *  vecinas. Una tesela sin cambios a su alrededor no puede cambiar, y
+ *  el búfer alternativo ya contiene su estado, de modo que el coste de
+ *  un mundo tranquilo es proporcional a su actividad y no a su área.
+ *  Con topologías que unen los bordes la vecindad de las teselas
+ *  también se une: una tesela del borde activa las del borde opuesto.
+ *  Al cambiar la topología o la regla, y al recuperar un mundo guardado,
+ *  se activan todas las teselas: el búfer alternativo no se guarda.
+ *  Cada tesela evaluada se cuenta tras calcularla y las estadísticas de
+ *  la generación se combinan a partir de las cuentas de todas las teselas.
+ *  @since: prototipo2.2
+ *  @source: MundoDisperso.java
+ *  @version: 1.0 - 2016/06/16
+ *  @author: ajp
+ */
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+public class MundoDisperso extends Mundo {
+
+	// Lado de las teselas en celdas.
+	public static final int TESELA = 16;
+
+	// Atributos
+	private transient int filasTeselas;
+	private transient int columnasTeselas;
+	private transient boolean[] activas;		// teselas a evaluar en la siguiente generación
+	private transient boolean[] cambiadas;		// teselas que cambiaron en la última generación
+	private transient int teselasActivas;
+	private transient int[] poblaciones;		// células vivas de cada tesela
+	private transient int[] limites;			// 4 por tesela: filaMin, filaMax, columnaMin, columnaMax
+
+	/**
+	 * Constructor convencional.
+	 * Recibe parámetros que se corresponden con los atributos de Mundo.
+	 * @param nombre
+	 * @param constantes
+	 * @param distribucion
+	 * @param espacio
+	 */
+	public MundoDisperso(String nombre, List<Integer> constantes,
+			Map<Patron, Posicion> distribucion, byte[][] espacio) {
+		super(nombre, constantes, distribucion, espacio);
+	}
+
+	/**
+	 * Constructor de un mundo vacío de las dimensiones indicadas.
+	 * @param nombre
+	 * @param constantes
+	 * @param distribucion
+	 * @param filas - el alto del mundo.
+	 * @param columnas - el ancho del mundo.
+	 */
+	public MundoDisperso(String nombre, List<Integer> constantes,
+			Map<Patron, Posicion> distribucion, int filas, int columnas) {
+		super(nombre, constantes, distribucion, filas, columnas);
+	}
+
+	/**
+	 * Constructor por defecto.
+	 */
+	public MundoDisperso() {
+		super();
+	}
+
+	/**
+	 * Constructor copia.
+	 * @param mundo - el Mundo a clonar
+	 */
+	public MundoDisperso(Mundo mundo) {
+		super(mundo);
+	}
+
+	/**
+	 * Obtiene el número de teselas que se evaluarán en la siguiente generación.
+	 * @return las teselas activas.
+	 */
+	public int getTeselasActivas() {
+		prepararTeselas();
+		return teselasActivas;
+	}
+
+	/**
+	 * @return el número total de teselas.
+	 */
+	public int getTeselas() {
+		prepararTeselas();
+		return filasTeselas * columnasTeselas;
+	}
+
+	/**
+	 * Activa todas las teselas si aún no existen: db4o recupera los mundos
+	 * sin llamar a readObject() ni guardar los atributos transient.
+	 */
+	private void prepararTeselas() {
+		if (activas == null) {
+			activarTodas();
+		}
+	}
+
+	/**
+	 * Establece el estado de una celda y activa su tesela y las vecinas.
+	 * @param fila
+	 * @param columna
+	 * @param estado - 1 viva, 0 vacía.
+	 */
+	@Override
+	public void setCelda(int fila, int columna, byte estado) {
+		super.setCelda(fila, columna, estado);
+		activarVecindad(fila / TESELA, columna / TESELA);
+	}
+
+	/**
+	 * Estampa la fila de un esquema y activa las teselas que ocupa y sus vecinas.
+	 */
+	@Override
+	protected void estamparFila(byte[] origen, int desde, int hasta, int fila, int columna) {
+		super.estamparFila(origen, desde, hasta, fila, columna);
+		int ultima = (columna + hasta - desde - 1) / TESELA;
+		for (int tc = columna / TESELA; tc <= ultima; tc++) {
+			activarVecindad(fila / TESELA, tc);
+		}
+	}
+
+	/**
+	 * Reserva el espacio y marca todas las teselas como activas.
+	 */
+	@Override
+	protected void reservarEspacio() {
+		super.reservarEspacio();
+		activarTodas();
+	}
+
+	/**
+	 * Establece la topología y activa todas las teselas: las del borde
+	 * tienen otras vecinas y las demás deben volver a evaluarse con ellas.
+	 * @param topologia
+	 */
+	@Override
+	public void setTopologia(Topologia topologia) {
+		super.setTopologia(topologia);
+		activarTodas();
+	}
+
+	/**
+	 * Establece la regla y activa todas las teselas: las que no cambiaban
+	 * con la regla anterior pueden cambiar con la nueva.
+	 * @param regla
+	 */
+	@Override
+	public void setRegla(Regla regla) {
+		super.setRegla(regla);
+		activarTodas();
+	}
+
+	/**
+	 * Marca todas las teselas para ser evaluadas en la siguiente generación.
+	 */
+	public void activarTodas() {
+		filasTeselas = (getFilas() + TESELA - 1) / TESELA;
+		columnasTeselas = (getColumnas() + TESELA - 1) / TESELA;
+		activas = new boolean[filasTeselas * columnasTeselas];
+		cambiadas = new boolean[activas.length];
+		poblaciones = new int[activas.length];
+		limites = new int[4 * activas.length];
+		Arrays.fill(activas, true);
+		teselasActivas = activas.length;
+	}
+
+	//Métodos de la interface Leyes
+	/**
+	 * Calcula la siguiente generación evaluando sólo las teselas activas,
+	 * que se cuentan en la nueva generación; las demás conservan su cuenta.
+	 * Después marca como activas las teselas cambiadas y sus vecinas.
+	 */
+	@Override
+	public Object actualizarEstado() {
+		int filas = getFilas();
+		int columnas = getColumnas();
+		prepararTeselas();
+		prepararGeneracion();
+		ByteBuffer siguiente = ByteBuffer.wrap(getCeldasAuxiliares()).order(ByteOrder.LITTLE_ENDIAN);
+		int[] limitesTesela = new int[4];
+		int numCambiadas = 0;
+		for (int tf = 0; tf < filasTeselas; tf++) {
+			int fila = tf * TESELA;
+			int filaHasta = Math.min(fila + TESELA, filas);
+			for (int tc = 0; tc < columnasTeselas; tc++) {
+				int t = tf * columnasTeselas + tc;
+				cambiadas[t] = false;
+				if (activas[t]) {
+					int columna = tc * TESELA;
+					int columnaHasta = Math.min(columna + TESELA, columnas);
+					int cambiadasTesela = actualizarRegion(fila, filaHasta, columna, columnaHasta);
+					cambiadas[t] = cambiadasTesela > 0;
+					numCambiadas += cambiadasTesela;
+					poblaciones[t] = contarCeldas(siguiente, columnas + 3, columnas + 2,
+							fila, filaHasta, columna, columnaHasta, limitesTesela);
+					System.arraycopy(limitesTesela, 0, limites, 4 * t, 4);
+				}
+			}
+		}
+		completarGeneracion(combinarCuentas(limitesTesela), numCambiadas, limitesTesela);
+		marcarActivas();
+		return this;
+	}
+
+	/**
+	 * Suma las cuentas de todas las teselas.
+	 * @param total - recibe los límites de todas las células vivas.
+	 * @return la población del mundo.
+	 */
+	private int combinarCuentas(int[] total) {
+		int poblacion = 0;
+		total[0] = total[2] = Integer.MAX_VALUE;
+		total[1] = total[3] = -1;
+		for (int t = 0; t < poblaciones.length; t++) {
+			if (poblaciones[t] > 0) {
+				poblacion += poblaciones[t];
+				total[0] = Math.min(total[0], limites[4 * t]);
+				total[1] = Math.max(total[1], limites[4 * t + 1]);
+				total[2] = Math.min(total[2], limites[4 * t + 2]);
+				total[3] = Math.max(total[3], limites[4 * t + 3]);
+			}
+		}
+		return poblacion;
+	}
+
+	/**
+	 * Avanza el número de generaciones recibido.
+	 * Termina en cuanto no queda ninguna tesela activa: el mundo ya no
+	 * cambia hasta que se modifique una celda.
+	 * @param generaciones - el número de generaciones, no negativo.
+	 * @return este mundo.
+	 */
+	@Override
+	public MundoDisperso avanzar(long generaciones) {
+		assert generaciones >= 0;
+		prepararTeselas();
+		for (long gen = 0; gen < generaciones && teselasActivas > 0; gen++) {
+			actualizarEstado();
+		}
+		return this;
+	}
+
+	/**
+	 * Activa cada tesela cambiada y sus ocho vecinas.
+	 */
+	private void marcarActivas() {
+		Arrays.fill(activas, false);
+		teselasActivas = 0;
+		for (int tf = 0; tf < filasTeselas; tf++) {
+			for (int tc = 0; tc < columnasTeselas; tc++) {
+				if (cambiadas[tf * columnasTeselas + tc]) {
+					activarVecindad(tf, tc);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Activa la tesela (tf, tc) y sus ocho vecinas según la topología.
+	 */
+	private void activarVecindad(int tf, int tc) {
+		prepararTeselas();
+		boolean unida = getTopologia() != Topologia.LIMITADA;
+		for (int f = tf - 1; f <= tf + 1; f++) {
+			boolean cruza = f < 0 || f >= filasTeselas;
+			if (cruza && !unida) {
+				continue;
+			}
+			int fila = (f + filasTeselas) % filasTeselas;
+			for (int c = tc - 1; c <= tc + 1; c++) {
+				if ((c < 0 || c >= columnasTeselas) && !unida) {
+					continue;
+				}
+				int columna = (c + columnasTeselas) % columnasTeselas;
+				if (cruza && getTopologia() == Topologia.KLEIN) {
+					activarInvertida(fila, columna);
+				}
+				else {
+					activar(fila * columnasTeselas + columna);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Activa las teselas de la fila tf que cubren las columnas de la
+	 * tesela tc reflejadas de izquierda a derecha; son una o dos.
+	 */
+	private void activarInvertida(int tf, int tc) {
+		int columnas = getColumnas();
+		int desde = columnas - Math.min(tc * TESELA + TESELA, columnas);
+		int hasta = columnas - 1 - tc * TESELA;
+		for (int c = desde / TESELA; c <= hasta / TESELA; c++) {
+			activar(tf * columnasTeselas + c);
+		}
+	}
+
+	/**
+	 * Recupera el mundo con todas las teselas activas: el búfer alternativo
+	 * de Mundo no se guarda y no contiene el estado de las inactivas.
+	 */
+	private void readObject(ObjectInputStream entrada)
+			throws IOException, ClassNotFoundException {
+		entrada.defaultReadObject();
+		activarTodas();
+	}
+
+	private void activar(int t) {
+		if (!activas[t]) {
+			activas[t] = true;
+			teselasActivas++;
+		}
+	}
+
+} //class
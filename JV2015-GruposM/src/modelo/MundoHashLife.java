@@ -0,0 +1,795 @@
+package modelo;
+/**
+ * Proyecto: Juego de la vida.
+ *  Representa un Mundo ilimitado calculado con el algoritmo HashLife.
+ *  El espacio se almacena en un árbol cuaternario canónico: cada nodo
+ *  existe una sola vez y memoriza su resultado, el centro del nodo
+ *  2^(nivel-2) generaciones después. Permite saltar 2^k generaciones
+ *  en una sola llamada en mundos grandes o muy regulares.
+ *  El espacio byte[][] se importa con su esquina superior izquierda en
+ *  el origen y se exporta con las mismas dimensiones; las células que
+ *  salen de esa ventana siguen evolucionando fuera de ella, por lo que
+ *  sólo admite la topología LIMITADA, entendida como plano ilimitado.
+ *  La tabla de nodos tiene un tamaño máximo (hashlife.maxNodos); al
+ *  superarlo se descartan los nodos no alcanzables desde la raíz y
+ *  los resultados memorizados.
+ *  @since: prototipo2.2
+ *  @source: MundoHashLife.java
+ *  @version: 1.0 - 2016/06/14
+ *  @author: ajp
+ */
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Hashtable;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import config.Configuracion;
+
+public class MundoHashLife extends Mundo {
+
+	private static final int NIVEL_MINIMO = 3;
+	private static final int CAPACIDAD_INICIAL = 1 << 16;
+
+	// Resultado de un nodo 4x4 por regla: las 4 células centrales tras una generación.
+	private static final Map<Regla, byte[]> TABLAS_4X4 = new HashMap<Regla, byte[]>();
+
+	// Atributos
+	private long generacion;
+	private Nodo raiz;
+	private Nodo viva;
+	private Nodo muerta;
+	private transient Nodo[] tabla;			// tabla de nodos canónicos
+	private transient int numNodos;
+	private transient Nodo[] vacios;		// nodo vacío canónico de cada nivel
+	private transient int maxNodos;
+	private transient byte[] tabla4x4;		// de la regla actual
+
+	/**
+	 * Nodo del árbol cuaternario. Un nodo de nivel k representa un
+	 * cuadrado de 2^k x 2^k celdas; las hojas (nivel 0) son células.
+	 * Es inmutable salvo los resultados memorizados.
+	 */
+	static final class Nodo implements Serializable {
+		final Nodo no;
+		final Nodo ne;
+		final Nodo so;
+		final Nodo se;
+		final int nivel;
+		final long poblacion;
+		final int hash;
+		transient Nodo resultado;		// centro tras 2^(nivel-2) generaciones
+		transient Nodo paso;			// centro tras 2^saltoPaso generaciones
+		transient int saltoPaso;
+		transient Nodo siguienteTabla;	// encadenamiento en la tabla
+
+		// Hoja.
+		Nodo(boolean viva) {
+			no = ne = so = se = null;
+			nivel = 0;
+			poblacion = viva ? 1 : 0;
+			hash = viva ? 1 : 0;
+		}
+
+		Nodo(Nodo no, Nodo ne, Nodo so, Nodo se) {
+			this.no = no;
+			this.ne = ne;
+			this.so = so;
+			this.se = se;
+			nivel = no.nivel + 1;
+			poblacion = no.poblacion + ne.poblacion + so.poblacion + se.poblacion;
+			hash = combinarHash(no, ne, so, se);
+		}
+	}
+
+	/**
+	 * Constructor convencional.
+	 * Recibe parámetros que se corresponden con los atributos de Mundo.
+	 * El espacio recibido se importa al árbol.
+	 * @param nombre
+	 * @param constantes
+	 * @param distribucion
+	 * @param espacio
+	 */
+	public MundoHashLife(String nombre, List<Integer> constantes,
+			Map<Patron, Posicion> distribucion, byte[][] espacio) {
+		super(nombre, constantes, distribucion, espacio);
+	}
+
+	/**
+	 * Constructor de un mundo vacío de las dimensiones indicadas.
+	 * @param nombre
+	 * @param constantes
+	 * @param distribucion
+	 * @param filas - el alto del mundo.
+	 * @param columnas - el ancho del mundo.
+	 */
+	public MundoHashLife(String nombre, List<Integer> constantes,
+			Map<Patron, Posicion> distribucion, int filas, int columnas) {
+		super(nombre, constantes, distribucion, filas, columnas);
+	}
+
+	/**
+	 * Constructor por defecto.
+	 */
+	public MundoHashLife() {
+		super();
+	}
+
+	/**
+	 * Constructor copia.
+	 * Si el mundo es HashLife se duplica el árbol completo, incluidas las
+	 * células fuera de la ventana; en otro caso se importa su espacio.
+	 * @param mundo - el Mundo a clonar
+	 */
+	public MundoHashLife(Mundo mundo) {
+		super(mundo.getNombre(), new ArrayList<Integer>(mundo.getConstantes()),
+				new Hashtable<Patron,Posicion>(mundo.getDistribucion()),
+				mundo.getFilas(), mundo.getColumnas());
+		setTopologia(mundo.getTopologia());
+		if (mundo instanceof MundoHashLife) {
+			MundoHashLife origen = (MundoHashLife) mundo;
+			generacion = origen.generacion;
+			raiz = copiarNodo(origen.raiz, new IdentityHashMap<Nodo,Nodo>());
+		}
+		else {
+			importar(mundo.copiarCeldas(null));
+		}
+	}
+
+	/**
+	 * @return la generación actual desde la importación.
+	 */
+	public long getGeneracion() {
+		return generacion;
+	}
+
+	/**
+	 * @return el número de células vivas en todo el mundo ilimitado.
+	 */
+	public long getPoblacion() {
+		return raiz.poblacion;
+	}
+
+	/**
+	 * Obtiene la población de la raíz y los límites de todo el plano, no
+	 * sólo de la ventana, descendiendo por el árbol sólo hacia los nodos
+	 * no vacíos del extremo buscado. Los nacimientos y muertes son
+	 * Estadisticas.DESCONOCIDO.
+	 * @return las estadísticas de la generación actual.
+	 */
+	@Override
+	public Estadisticas getEstadisticas() {
+		if (raiz.poblacion == 0) {
+			return new Estadisticas(0, Estadisticas.DESCONOCIDO, Estadisticas.DESCONOCIDO, 0, -1, 0, -1);
+		}
+		long mitad = 1L << (raiz.nivel - 1);
+		return new Estadisticas((int) Math.min(raiz.poblacion, Integer.MAX_VALUE),
+				Estadisticas.DESCONOCIDO, Estadisticas.DESCONOCIDO,
+				acotar(extremo(raiz, -mitad, false, false)), acotar(extremo(raiz, -mitad, false, true)),
+				acotar(extremo(raiz, -mitad, true, false)), acotar(extremo(raiz, -mitad, true, true)));
+	}
+
+	/**
+	 * Busca la menor o la mayor fila o columna viva de un nodo no vacío.
+	 * @param origen - la fila o la columna de la esquina del nodo.
+	 * @param columna - si se busca una columna; si no, una fila.
+	 * @param maximo - si se busca la mayor; si no, la menor.
+	 */
+	private static long extremo(Nodo n, long origen, boolean columna, boolean maximo) {
+		if (n.nivel == 0) {
+			return origen;
+		}
+		long mitad = 1L << (n.nivel - 1);
+		// Mitades inicial y final del nodo en la dirección buscada.
+		Nodo inicial1 = n.no;
+		Nodo inicial2 = columna ? n.so : n.ne;
+		Nodo final1 = columna ? n.ne : n.so;
+		Nodo final2 = n.se;
+		boolean finalVacia = final1.poblacion == 0 && final2.poblacion == 0;
+		boolean inicialVacia = inicial1.poblacion == 0 && inicial2.poblacion == 0;
+		if (maximo ? !finalVacia : inicialVacia) {
+			return extremo(final1, final2, origen + mitad, columna, maximo);
+		}
+		return extremo(inicial1, inicial2, origen, columna, maximo);
+	}
+
+	/**
+	 * Busca el extremo de dos nodos con la misma fila o columna de origen
+	 * de los que al menos uno no está vacío.
+	 */
+	private static long extremo(Nodo n1, Nodo n2, long origen, boolean columna, boolean maximo) {
+		if (n1.poblacion == 0) {
+			return extremo(n2, origen, columna, maximo);
+		}
+		if (n2.poblacion == 0) {
+			return extremo(n1, origen, columna, maximo);
+		}
+		long e1 = extremo(n1, origen, columna, maximo);
+		long e2 = extremo(n2, origen, columna, maximo);
+		return maximo ? Math.max(e1, e2) : Math.min(e1, e2);
+	}
+
+	private static int acotar(long coordenada) {
+		return (int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, coordenada));
+	}
+
+	/**
+	 * @return el número de nodos canónicos en la tabla.
+	 */
+	public int getNumNodos() {
+		return numNodos;
+	}
+
+	/**
+	 * Obtiene el estado de una celda; puede estar fuera de la ventana.
+	 * @param fila
+	 * @param columna
+	 * @return 1 si la célula está viva, 0 si no.
+	 */
+	@Override
+	public byte getCelda(int fila, int columna) {
+		long mitad = 1L << (raiz.nivel - 1);
+		if (columna < -mitad || columna >= mitad || fila < -mitad || fila >= mitad) {
+			return 0;
+		}
+		Nodo n = raiz;
+		long x = -mitad;
+		long y = -mitad;
+		while (n.nivel > 0 && n.poblacion > 0) {
+			mitad = 1L << (n.nivel - 1);
+			boolean este = columna >= x + mitad;
+			boolean sur = fila >= y + mitad;
+			n = sur ? (este ? n.se : n.so) : (este ? n.ne : n.no);
+			x += este ? mitad : 0;
+			y += sur ? mitad : 0;
+		}
+		return (byte) n.poblacion;
+	}
+
+	/**
+	 * Establece el estado de una celda; puede estar fuera de la ventana.
+	 * Sustituye los nodos del camino hasta la hoja.
+	 * @param fila
+	 * @param columna
+	 * @param estado - distinto de 0 viva, 0 vacía.
+	 */
+	@Override
+	public void setCelda(int fila, int columna, byte estado) {
+		long mitad = 1L << (raiz.nivel - 1);
+		while (columna < -mitad || columna >= mitad || fila < -mitad || fila >= mitad) {
+			raiz = expandir(raiz);
+			mitad <<= 1;
+		}
+		raiz = fijar(raiz, -mitad, -mitad, columna, fila, estado != 0);
+	}
+
+	/**
+	 * Establece la regla y descarta los resultados memorizados con la anterior.
+	 * En un plano ilimitado una regla con B0 haría nacer infinitas células.
+	 * @param regla - la regla; null equivale a B3/S23.
+	 * @throws UnsupportedOperationException - si la regla incluye B0.
+	 */
+	@Override
+	public void setRegla(Regla regla) {
+		if (regla != null && regla.nace(0)) {
+			throw new UnsupportedOperationException(
+					"MundoHashLife no admite reglas con B0: " + regla);
+		}
+		super.setRegla(regla);
+		tabla4x4 = obtenerTabla4x4(getRegla());
+		if (raiz != null) {
+			recolectar();
+		}
+	}
+
+	/**
+	 * El plano de HashLife es ilimitado: sus bordes no se pueden unir.
+	 * @param topologia - sólo se admite LIMITADA o null.
+	 * @throws UnsupportedOperationException - con TOROIDAL o KLEIN.
+	 */
+	@Override
+	public void setTopologia(Topologia topologia) {
+		if (topologia != null && topologia != Topologia.LIMITADA) {
+			throw new UnsupportedOperationException(
+					"MundoHashLife no admite la topología " + topologia);
+		}
+		super.setTopologia(topologia);
+	}
+
+	/**
+	 * Exporta la ventana de filas x columnas con origen en (0, 0).
+	 * @param destino - el array a rellenar; puede ser null.
+	 * @return el array con la copia; destino o uno nuevo si no era válido.
+	 */
+	@Override
+	public byte[][] copiarEspacio(byte[][] destino) {
+		int filas = getFilas();
+		int columnas = getColumnas();
+		if (!mismasDimensiones(destino, filas, columnas)) {
+			destino = new byte[filas][columnas];
+		}
+		byte[] celdas = copiarCeldas(null);
+		for (int i = 0; i < filas; i++) {
+			System.arraycopy(celdas, i * columnas, destino[i], 0, columnas);
+		}
+		return destino;
+	}
+
+	/**
+	 * Exporta la ventana de filas x columnas, fila a fila, en el array recibido.
+	 * @param destino - el array a rellenar; puede ser null.
+	 * @return el array con la copia; destino o uno nuevo si no era válido.
+	 */
+	@Override
+	public byte[] copiarCeldas(byte[] destino) {
+		int total = getFilas() * getColumnas();
+		if (destino == null || destino.length != total) {
+			destino = new byte[total];
+		}
+		else {
+			Arrays.fill(destino, (byte) 0);
+		}
+		long mitad = 1L << (raiz.nivel - 1);
+		exportar(raiz, -mitad, -mitad, destino);
+		return destino;
+	}
+
+	/**
+	 * Importa el espacio recibido con su esquina superior izquierda en el origen.
+	 * Reinicia la tabla de nodos.
+	 * @param espacio the espacio to set
+	 */
+	@Override
+	public void setEspacio(byte[][] espacio) {
+		if (espacio == null || espacio.length == 0 || espacio[0].length == 0) {
+			setDimensiones(TAMAÑO, TAMAÑO);
+			return;
+		}
+		setDimensiones(espacio.length, espacio[0].length);
+		int columnas = getColumnas();
+		byte[] celdas = new byte[espacio.length * columnas];
+		for (int i = 0; i < espacio.length; i++) {
+			System.arraycopy(espacio[i], 0, celdas, i * columnas,
+					Math.min(columnas, espacio[i].length));
+		}
+		importar(celdas);
+	}
+
+	/**
+	 * Reinicia la tabla de nodos con un árbol vacío que cubre la ventana.
+	 */
+	@Override
+	protected void reservarEspacio() {
+		iniciarTabla();
+		generacion = 0;
+		raiz = vacio(nivelVentana());
+	}
+
+	/**
+	 * Construye el árbol a partir de las celdas de la ventana, fila a fila.
+	 */
+	private void importar(byte[] celdas) {
+		int nivel = nivelVentana();
+		long mitad = 1L << (nivel - 1);
+		raiz = construir(celdas, nivel, -mitad, -mitad);
+	}
+
+	/**
+	 * Nivel mínimo de una raíz centrada en el origen que contiene la ventana.
+	 */
+	private int nivelVentana() {
+		int nivel = NIVEL_MINIMO;
+		while ((1L << (nivel - 1)) < Math.max(getFilas(), getColumnas())) {
+			nivel++;
+		}
+		return nivel;
+	}
+
+	//Métodos de la interface Leyes
+	/**
+	 * Avanza una generación.
+	 */
+	@Override
+	public Object actualizarEstado() {
+		avanzar(1);
+		return this;
+	}
+
+	/**
+	 * Avanza el número de generaciones recibido descomponiéndolo en
+	 * saltos de potencias de dos.
+	 * @param generaciones - el número de generaciones, no negativo.
+	 * @return este mundo.
+	 */
+	@Override
+	public MundoHashLife avanzar(long generaciones) {
+		assert generaciones >= 0;
+		for (int k = 0; generaciones != 0; k++, generaciones >>>= 1) {
+			if ((generaciones & 1) != 0) {
+				avanzarPotencia(k);
+			}
+		}
+		return this;
+	}
+
+	/**
+	 * Avanza 2^k generaciones en un solo salto.
+	 * Amplía la raíz con bordes vacíos hasta que el patrón quede en el
+	 * cuarto central y el salto quepa en su resultado.
+	 * @param k - el exponente del salto.
+	 * @return este mundo.
+	 */
+	public MundoHashLife avanzarPotencia(int k) {
+		while (raiz.nivel > NIVEL_MINIMO && centrado(raiz)) {
+			raiz = centro(raiz);
+		}
+		while (raiz.nivel < k + 3 || !centrado(raiz)) {
+			raiz = expandir(raiz);
+		}
+		raiz = paso(expandir(raiz), k);
+		generacion += 1L << k;
+		if (numNodos > maxNodos) {
+			recolectar();
+		}
+		return this;
+	}
+
+	// Árbol canónico.
+
+	/**
+	 * Obtiene el nodo canónico con los cuatro hijos recibidos.
+	 */
+	private Nodo crear(Nodo no, Nodo ne, Nodo so, Nodo se) {
+		int hash = combinarHash(no, ne, so, se);
+		int indice = hash & (tabla.length - 1);
+		for (Nodo n = tabla[indice]; n != null; n = n.siguienteTabla) {
+			if (n.no == no && n.ne == ne && n.so == so && n.se == se) {
+				return n;
+			}
+		}
+		Nodo nuevo = new Nodo(no, ne, so, se);
+		insertar(nuevo);
+		return nuevo;
+	}
+
+	private void insertar(Nodo nodo) {
+		if (numNodos >= tabla.length >> 1) {
+			redimensionar();
+		}
+		int indice = nodo.hash & (tabla.length - 1);
+		nodo.siguienteTabla = tabla[indice];
+		tabla[indice] = nodo;
+		numNodos++;
+	}
+
+	private void redimensionar() {
+		Nodo[] anterior = tabla;
+		tabla = new Nodo[anterior.length << 1];
+		for (Nodo cabeza : anterior) {
+			Nodo n = cabeza;
+			while (n != null) {
+				Nodo siguiente = n.siguienteTabla;
+				int indice = n.hash & (tabla.length - 1);
+				n.siguienteTabla = tabla[indice];
+				tabla[indice] = n;
+				n = siguiente;
+			}
+		}
+	}
+
+	private static int combinarHash(Nodo no, Nodo ne, Nodo so, Nodo se) {
+		int h = no.hash;
+		h = h * 1000003 + ne.hash;
+		h = h * 1000003 + so.hash;
+		h = h * 1000003 + se.hash;
+		return h ^ (h >>> 16);
+	}
+
+	private void iniciarTabla() {
+		tabla = new Nodo[CAPACIDAD_INICIAL];
+		numNodos = 0;
+		vacios = new Nodo[64];
+		maxNodos = Configuracion.getEntero("hashlife.maxNodos", 1 << 21);
+		if (viva == null) {
+			viva = new Nodo(true);
+			muerta = new Nodo(false);
+		}
+		vacios[0] = muerta;
+	}
+
+	/**
+	 * Descarta los nodos no alcanzables desde la raíz y todos los
+	 * resultados memorizados para mantener la memoria acotada.
+	 */
+	private void recolectar() {
+		Nodo[] anterior = tabla;
+		tabla = new Nodo[CAPACIDAD_INICIAL];
+		numNodos = 0;
+		vacios = new Nodo[64];
+		vacios[0] = muerta;
+		for (Nodo cabeza : anterior) {
+			for (Nodo n = cabeza; n != null; n = n.siguienteTabla) {
+				n.resultado = null;
+				n.paso = null;
+			}
+		}
+		reinsertar(raiz);
+	}
+
+	private void reinsertar(Nodo nodo) {
+		if (nodo.nivel == 0) {
+			return;
+		}
+		int indice = nodo.hash & (tabla.length - 1);
+		for (Nodo n = tabla[indice]; n != null; n = n.siguienteTabla) {
+			if (n == nodo) {
+				return;
+			}
+		}
+		reinsertar(nodo.no);
+		reinsertar(nodo.ne);
+		reinsertar(nodo.so);
+		reinsertar(nodo.se);
+		insertar(nodo);
+	}
+
+	private Nodo copiarNodo(Nodo nodo, IdentityHashMap<Nodo,Nodo> copiados) {
+		if (nodo.nivel == 0) {
+			return nodo.poblacion == 0 ? muerta : viva;
+		}
+		Nodo copia = copiados.get(nodo);
+		if (copia == null) {
+			copia = crear(copiarNodo(nodo.no, copiados), copiarNodo(nodo.ne, copiados),
+					copiarNodo(nodo.so, copiados), copiarNodo(nodo.se, copiados));
+			copiados.put(nodo, copia);
+		}
+		return copia;
+	}
+
+	private Nodo vacio(int nivel) {
+		if (vacios[nivel] == null) {
+			Nodo n = vacio(nivel - 1);
+			vacios[nivel] = crear(n, n, n, n);
+		}
+		return vacios[nivel];
+	}
+
+	// Importación y exportación.
+
+	/**
+	 * Construye el nodo que cubre el cuadrado de lado 2^nivel con esquina
+	 * superior izquierda en (x, y); la columna es x y la fila es y.
+	 */
+	private Nodo construir(byte[] celdas, int nivel, long x, long y) {
+		long lado = 1L << nivel;
+		if (x >= getColumnas() || y >= getFilas() || x + lado <= 0 || y + lado <= 0) {
+			return vacio(nivel);
+		}
+		if (nivel == 0) {
+			return celdas[(int) y * getColumnas() + (int) x] != 0 ? viva : muerta;
+		}
+		long mitad = lado >> 1;
+		return crear(construir(celdas, nivel - 1, x, y),
+				construir(celdas, nivel - 1, x + mitad, y),
+				construir(celdas, nivel - 1, x, y + mitad),
+				construir(celdas, nivel - 1, x + mitad, y + mitad));
+	}
+
+	private void exportar(Nodo nodo, long x, long y, byte[] destino) {
+		long lado = 1L << nodo.nivel;
+		if (nodo.poblacion == 0 || x >= getColumnas() || y >= getFilas()
+				|| x + lado <= 0 || y + lado <= 0) {
+			return;
+		}
+		if (nodo.nivel == 0) {
+			destino[(int) y * getColumnas() + (int) x] = 1;
+			return;
+		}
+		long mitad = lado >> 1;
+		exportar(nodo.no, x, y, destino);
+		exportar(nodo.ne, x + mitad, y, destino);
+		exportar(nodo.so, x, y + mitad, destino);
+		exportar(nodo.se, x + mitad, y + mitad, destino);
+	}
+
+	/**
+	 * Obtiene el nodo con la celda (x, y) sustituida; (nx, ny) es la
+	 * esquina superior izquierda del nodo.
+	 */
+	private Nodo fijar(Nodo n, long nx, long ny, long x, long y, boolean estado) {
+		if (n.nivel == 0) {
+			return estado ? viva : muerta;
+		}
+		long mitad = 1L << (n.nivel - 1);
+		boolean este = x >= nx + mitad;
+		boolean sur = y >= ny + mitad;
+		long hx = este ? nx + mitad : nx;
+		long hy = sur ? ny + mitad : ny;
+		return crear(!sur && !este ? fijar(n.no, hx, hy, x, y, estado) : n.no,
+				!sur && este ? fijar(n.ne, hx, hy, x, y, estado) : n.ne,
+				sur && !este ? fijar(n.so, hx, hy, x, y, estado) : n.so,
+				sur && este ? fijar(n.se, hx, hy, x, y, estado) : n.se);
+	}
+
+	// Evolución.
+
+	/**
+	 * Comprueba si toda la población está en el cuadrado central de lado mitad.
+	 */
+	private boolean centrado(Nodo n) {
+		return n.poblacion == n.no.se.poblacion + n.ne.so.poblacion
+				+ n.so.ne.poblacion + n.se.no.poblacion;
+	}
+
+	/**
+	 * Rodea el nodo de vacío manteniendo su centro; sube un nivel.
+	 */
+	private Nodo expandir(Nodo n) {
+		Nodo v = vacio(n.nivel - 1);
+		return crear(crear(v, v, v, n.no), crear(v, v, n.ne, v),
+				crear(v, n.so, v, v), crear(n.se, v, v, v));
+	}
+
+	private Nodo centro(Nodo n) {
+		return crear(n.no.se, n.ne.so, n.so.ne, n.se.no);
+	}
+
+	private Nodo centroHorizontal(Nodo o, Nodo e) {
+		return crear(o.ne, e.no, o.se, e.so);
+	}
+
+	private Nodo centroVertical(Nodo n, Nodo s) {
+		return crear(n.so, n.se, s.no, s.ne);
+	}
+
+	/**
+	 * Obtiene el centro del nodo 2^(nivel-2) generaciones después.
+	 */
+	private Nodo resultado(Nodo n) {
+		if (n.resultado != null) {
+			return n.resultado;
+		}
+		Nodo r;
+		if (n.poblacion == 0) {
+			r = vacio(n.nivel - 1);
+		}
+		else if (n.nivel == 2) {
+			r = resultadoBase(n);
+		}
+		else {
+			Nodo r00 = resultado(n.no);
+			Nodo r01 = resultado(centroHorizontal(n.no, n.ne));
+			Nodo r02 = resultado(n.ne);
+			Nodo r10 = resultado(centroVertical(n.no, n.so));
+			Nodo r11 = resultado(centro(n));
+			Nodo r12 = resultado(centroVertical(n.ne, n.se));
+			Nodo r20 = resultado(n.so);
+			Nodo r21 = resultado(centroHorizontal(n.so, n.se));
+			Nodo r22 = resultado(n.se);
+			r = crear(resultado(crear(r00, r01, r10, r11)),
+					resultado(crear(r01, r02, r11, r12)),
+					resultado(crear(r10, r11, r20, r21)),
+					resultado(crear(r11, r12, r21, r22)));
+		}
+		n.resultado = r;
+		return r;
+	}
+
+	/**
+	 * Obtiene el centro del nodo 2^k generaciones después, k <= nivel-2.
+	 */
+	private Nodo paso(Nodo n, int k) {
+		if (k == n.nivel - 2) {
+			return resultado(n);
+		}
+		if (n.paso != null && n.saltoPaso == k) {
+			return n.paso;
+		}
+		Nodo r;
+		if (n.poblacion == 0) {
+			r = vacio(n.nivel - 1);
+		}
+		else {
+			// Primera fase: sólo recentra, sin avanzar el tiempo.
+			Nodo c00 = centro(n.no);
+			Nodo c01 = centro(centroHorizontal(n.no, n.ne));
+			Nodo c02 = centro(n.ne);
+			Nodo c10 = centro(centroVertical(n.no, n.so));
+			Nodo c11 = centro(centro(n));
+			Nodo c12 = centro(centroVertical(n.ne, n.se));
+			Nodo c20 = centro(n.so);
+			Nodo c21 = centro(centroHorizontal(n.so, n.se));
+			Nodo c22 = centro(n.se);
+			r = crear(paso(crear(c00, c01, c10, c11), k),
+					paso(crear(c01, c02, c11, c12), k),
+					paso(crear(c10, c11, c20, c21), k),
+					paso(crear(c11, c12, c21, c22), k));
+		}
+		n.paso = r;
+		n.saltoPaso = k;
+		return r;
+	}
+
+	/**
+	 * Caso base: nodo 4x4, devuelve sus 2x2 células centrales
+	 * tras una generación consultando la tabla precalculada.
+	 */
+	private Nodo resultadoBase(Nodo n) {
+		int bits = 0;
+		Nodo[] cuadrantes = { n.no, n.ne, n.so, n.se };
+		for (int q = 0; q < 4; q++) {
+			Nodo c = cuadrantes[q];
+			int fila = (q >> 1) * 2;
+			int columna = (q & 1) * 2;
+			bits |= (int) c.no.poblacion << (fila * 4 + columna);
+			bits |= (int) c.ne.poblacion << (fila * 4 + columna + 1);
+			bits |= (int) c.so.poblacion << ((fila + 1) * 4 + columna);
+			bits |= (int) c.se.poblacion << ((fila + 1) * 4 + columna + 1);
+		}
+		int r = tabla4x4[bits];
+		return crear(hoja(r & 1), hoja(r & 2), hoja(r & 4), hoja(r & 8));
+	}
+
+	private Nodo hoja(int bit) {
+		return bit != 0 ? viva : muerta;
+	}
+
+	/**
+	 * Obtiene la tabla 4x4 de una regla; se genera una vez por regla.
+	 * Da, para cada configuración de 4x4 células (bit fila*4+columna),
+	 * las 4 células centrales de la siguiente generación (bits no, ne, so, se).
+	 */
+	private static byte[] obtenerTabla4x4(Regla regla) {
+		synchronized (TABLAS_4X4) {
+			byte[] tabla = TABLAS_4X4.get(regla);
+			if (tabla == null) {
+				tabla = generarTabla4x4(regla);
+				TABLAS_4X4.put(regla, tabla);
+			}
+			return tabla;
+		}
+	}
+
+	private static byte[] generarTabla4x4(Regla regla) {
+		byte[] tabla = new byte[1 << 16];
+		for (int bits = 0; bits < tabla.length; bits++) {
+			int r = 0;
+			for (int c = 0; c < 4; c++) {
+				int fila = 1 + (c >> 1);
+				int columna = 1 + (c & 1);
+				int vecinas = 0;
+				for (int df = -1; df <= 1; df++) {
+					for (int dc = -1; dc <= 1; dc++) {
+						if (df != 0 || dc != 0) {
+							vecinas += (bits >> ((fila + df) * 4 + columna + dc)) & 1;
+						}
+					}
+				}
+				int actual = (bits >> (fila * 4 + columna)) & 1;
+				if (regla.getTabla()[actual * 9 + vecinas] == 1) {
+					r |= 1 << c;
+				}
+			}
+			tabla[bits] = (byte) r;
+		}
+		return tabla;
+	}
+
+	/**
+	 * Reconstruye la tabla de nodos canónicos tras la deserialización.
+	 */
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		tabla4x4 = obtenerTabla4x4(getRegla());
+		iniciarTabla();
+		reinsertar(raiz);
+	}
+
+} //class
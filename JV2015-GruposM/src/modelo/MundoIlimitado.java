@@ -0,0 +1,570 @@
+package modelo;
+/**
+ * Proyecto: Juego de la vida.
+ *  Representa un Mundo ilimitado formado por teselas de 64x64 celdas.
+ *  Cada tesela es un array de 64 long, una palabra por fila como en
+ *  MundoCompacto, y se guarda en una TablaLong con la clave de sus
+ *  coordenadas de tesela. Antes de cada generación se crean las teselas
+ *  vecinas de las que tienen células en el borde y después se liberan
+ *  las que han quedado vacías, de modo que la memoria sigue al área viva
+ *  y no a la envolvente del patrón.
+ *  Las dimensiones del Mundo son una ventana con origen en (0, 0) que
+ *  se importa y exporta como en MundoHashLife; getCelda y setCelda
+ *  admiten cualquier coordenada int.
+ *  @since: prototipo2.2
+ *  @source: MundoIlimitado.java
+ *  @version: 1.0 - 2016/06/22
+ *  @author: ajp
+ */
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Hashtable;
+import java.util.List;
+import java.util.Map;
+
+import util.TablaLong;
+
+public class MundoIlimitado extends Mundo {
+
+	// Lado de las teselas en celdas; una fila de tesela es un long.
+	public static final int TESELA = 64;
+	private static final int DESPLAZAMIENTO = 6;
+	private static final int ULTIMA = TESELA - 1;
+
+	// Atributos
+	private TablaLong<Tesela> teselas;
+	private transient long[] claves;			// reutilizado entre generaciones
+	private transient MundoCompacto.Hojas hojas;
+	private transient boolean estable;		// la última generación no cambió nada
+
+	/**
+	 * Tesela de 64x64 celdas: el bit j de celdas[i] es la celda (i, j).
+	 */
+	static final class Tesela implements Serializable {
+		long[] celdas = new long[TESELA];
+		transient long[] aux;					// búfer de la siguiente generación
+
+		Tesela() {
+		}
+
+		Tesela(Tesela tesela) {
+			celdas = tesela.celdas.clone();
+		}
+
+		boolean vacia() {
+			long o = 0;
+			for (long fila : celdas) {
+				o |= fila;
+			}
+			return o == 0;
+		}
+	}
+
+	/**
+	 * Constructor convencional.
+	 * Recibe parámetros que se corresponden con los atributos de Mundo.
+	 * El espacio recibido se importa con su esquina superior izquierda en el origen.
+	 * @param nombre
+	 * @param constantes
+	 * @param distribucion
+	 * @param espacio
+	 */
+	public MundoIlimitado(String nombre, List<Integer> constantes,
+			Map<Patron, Posicion> distribucion, byte[][] espacio) {
+		super(nombre, constantes, distribucion, espacio);
+	}
+
+	/**
+	 * Constructor de un mundo vacío con una ventana de las dimensiones indicadas.
+	 * @param nombre
+	 * @param constantes
+	 * @param distribucion
+	 * @param filas - el alto de la ventana.
+	 * @param columnas - el ancho de la ventana.
+	 */
+	public MundoIlimitado(String nombre, List<Integer> constantes,
+			Map<Patron, Posicion> distribucion, int filas, int columnas) {
+		super(nombre, constantes, distribucion, filas, columnas);
+	}
+
+	/**
+	 * Constructor por defecto.
+	 */
+	public MundoIlimitado() {
+		super();
+	}
+
+	/**
+	 * Constructor copia.
+	 * Si el mundo es ilimitado se copian todas sus teselas; en otro caso
+	 * se importa su espacio.
+	 * @param mundo - el Mundo a clonar
+	 */
+	public MundoIlimitado(Mundo mundo) {
+		super(mundo.getNombre(), new ArrayList<Integer>(mundo.getConstantes()),
+				new Hashtable<Patron,Posicion>(mundo.getDistribucion()),
+				mundo.getFilas(), mundo.getColumnas());
+		setTopologia(mundo.getTopologia());
+		if (mundo instanceof MundoIlimitado) {
+			TablaLong<Tesela> origen = ((MundoIlimitado) mundo).teselas;
+			long[] clavesOrigen = origen.copiarClaves(null);
+			for (int k = 0; k < origen.size(); k++) {
+				teselas.put(clavesOrigen[k], new Tesela(origen.get(clavesOrigen[k])));
+			}
+		}
+		else {
+			importar(mundo.copiarCeldas(null));
+		}
+	}
+
+	/**
+	 * @return el número de teselas reservadas.
+	 */
+	public int getNumTeselas() {
+		return teselas.size();
+	}
+
+	/**
+	 * @return el número de células vivas en todo el mundo.
+	 */
+	public long getPoblacion() {
+		claves = teselas.copiarClaves(claves);
+		long poblacion = 0;
+		for (int k = 0; k < teselas.size(); k++) {
+			for (long fila : teselas.get(claves[k]).celdas) {
+				poblacion += Long.bitCount(fila);
+			}
+		}
+		return poblacion;
+	}
+
+	/**
+	 * Cuenta las células de todas las teselas con Long.bitCount(), no sólo
+	 * las de la ventana: los límites son los de todo el mundo y pueden
+	 * quedar fuera de ella. Los nacimientos y muertes son
+	 * Estadisticas.DESCONOCIDO.
+	 * @return las estadísticas de la generación actual.
+	 */
+	@Override
+	public Estadisticas getEstadisticas() {
+		claves = teselas.copiarClaves(claves);
+		long poblacion = 0;
+		int filaMin = Integer.MAX_VALUE, filaMax = Integer.MIN_VALUE;
+		int columnaMin = Integer.MAX_VALUE, columnaMax = Integer.MIN_VALUE;
+		for (int k = 0; k < teselas.size(); k++) {
+			long[] celdas = teselas.get(claves[k]).celdas;
+			int filaTesela = fila(claves[k]) << DESPLAZAMIENTO;
+			int columnaTesela = columna(claves[k]) << DESPLAZAMIENTO;
+			long o = 0;
+			for (int i = 0; i < TESELA; i++) {
+				if (celdas[i] != 0) {
+					filaMin = Math.min(filaMin, filaTesela + i);
+					filaMax = Math.max(filaMax, filaTesela + i);
+					poblacion += Long.bitCount(celdas[i]);
+					o |= celdas[i];
+				}
+			}
+			if (o != 0) {
+				columnaMin = Math.min(columnaMin, columnaTesela + Long.numberOfTrailingZeros(o));
+				columnaMax = Math.max(columnaMax, columnaTesela + ULTIMA - Long.numberOfLeadingZeros(o));
+			}
+		}
+		return new Estadisticas((int) Math.min(poblacion, Integer.MAX_VALUE),
+				Estadisticas.DESCONOCIDO, Estadisticas.DESCONOCIDO,
+				filaMin, filaMax, columnaMin, columnaMax);
+	}
+
+	/**
+	 * Obtiene las células vivas de todo el mundo, no sólo de la ventana.
+	 * @return la fila de cada célula en los 32 bits altos y la columna en
+	 * los bajos, tesela a tesela.
+	 */
+	long[] copiarVivas() {
+		long[] vivas = new long[(int) getPoblacion()];
+		claves = teselas.copiarClaves(claves);
+		int n = 0;
+		for (int k = 0; k < teselas.size(); k++) {
+			long[] celdas = teselas.get(claves[k]).celdas;
+			int filaTesela = fila(claves[k]) << DESPLAZAMIENTO;
+			int columnaTesela = columna(claves[k]) << DESPLAZAMIENTO;
+			for (int i = 0; i < TESELA; i++) {
+				for (long bits = celdas[i]; bits != 0; bits &= bits - 1) {
+					vivas[n++] = clave(filaTesela + i, columnaTesela + Long.numberOfTrailingZeros(bits));
+				}
+			}
+		}
+		return vivas;
+	}
+
+	/**
+	 * Calcula una huella de las células vivas de todo el mundo que no
+	 * depende de su posición: la XOR de DetectorCiclos.zobrist() de cada
+	 * célula relativa a la esquina del rectángulo que las contiene. Dos
+	 * generaciones con la misma huella tienen la misma forma, quizá
+	 * desplazada.
+	 * @param esquina - recibe la fila y la columna mínimas y la población.
+	 * @return la huella; 0 si no hay células vivas.
+	 */
+	long calcularForma(long[] esquina) {
+		claves = teselas.copiarClaves(claves);
+		long filaMin = Long.MAX_VALUE;
+		long columnaMin = Long.MAX_VALUE;
+		long poblacion = 0;
+		for (int k = 0; k < teselas.size(); k++) {
+			long[] celdas = teselas.get(claves[k]).celdas;
+			long o = 0;
+			for (int i = 0; i < TESELA; i++) {
+				if (celdas[i] != 0) {
+					filaMin = Math.min(filaMin, ((long) fila(claves[k]) << DESPLAZAMIENTO) + i);
+					poblacion += Long.bitCount(celdas[i]);
+					o |= celdas[i];
+				}
+			}
+			if (o != 0) {
+				columnaMin = Math.min(columnaMin,
+						((long) columna(claves[k]) << DESPLAZAMIENTO) + Long.numberOfTrailingZeros(o));
+			}
+		}
+		esquina[0] = filaMin;
+		esquina[1] = columnaMin;
+		esquina[2] = poblacion;
+		long huella = 0;
+		for (int k = 0; k < teselas.size(); k++) {
+			long[] celdas = teselas.get(claves[k]).celdas;
+			long filaTesela = ((long) fila(claves[k]) << DESPLAZAMIENTO) - filaMin;
+			long columnaTesela = ((long) columna(claves[k]) << DESPLAZAMIENTO) - columnaMin;
+			for (int i = 0; i < TESELA; i++) {
+				for (long bits = celdas[i]; bits != 0; bits &= bits - 1) {
+					long columna = columnaTesela + Long.numberOfTrailingZeros(bits);
+					huella ^= DetectorCiclos.zobrist(((filaTesela + i) << 32) | columna);
+				}
+			}
+		}
+		return huella;
+	}
+
+	/**
+	 * Obtiene el estado de una celda; puede estar fuera de la ventana.
+	 * @param fila
+	 * @param columna
+	 * @return 1 si la célula está viva, 0 si no.
+	 */
+	@Override
+	public byte getCelda(int fila, int columna) {
+		Tesela tesela = teselas.get(clave(fila >> DESPLAZAMIENTO, columna >> DESPLAZAMIENTO));
+		if (tesela == null) {
+			return 0;
+		}
+		return (byte) ((tesela.celdas[fila & ULTIMA] >>> columna) & 1L);
+	}
+
+	/**
+	 * Establece el estado de una celda; puede estar fuera de la ventana.
+	 * Reserva la tesela si es necesario; las vacías se liberan al actualizar.
+	 * @param fila
+	 * @param columna
+	 * @param estado - distinto de 0 viva, 0 vacía.
+	 */
+	@Override
+	public void setCelda(int fila, int columna, byte estado) {
+		long clave = clave(fila >> DESPLAZAMIENTO, columna >> DESPLAZAMIENTO);
+		Tesela tesela = teselas.get(clave);
+		if (tesela == null) {
+			if (estado == 0) {
+				return;
+			}
+			tesela = new Tesela();
+			teselas.put(clave, tesela);
+		}
+		if (estado != 0) {
+			tesela.celdas[fila & ULTIMA] |= 1L << columna;
+		}
+		else {
+			tesela.celdas[fila & ULTIMA] &= ~(1L << columna);
+		}
+	}
+
+	/**
+	 * Exporta la ventana de filas x columnas con origen en (0, 0).
+	 * @param destino - el array a rellenar; puede ser null.
+	 * @return el array con la copia; destino o uno nuevo si no era válido.
+	 */
+	@Override
+	public byte[][] copiarEspacio(byte[][] destino) {
+		int filas = getFilas();
+		int columnas = getColumnas();
+		if (!mismasDimensiones(destino, filas, columnas)) {
+			destino = new byte[filas][columnas];
+		}
+		byte[] celdas = copiarCeldas(null);
+		for (int i = 0; i < filas; i++) {
+			System.arraycopy(celdas, i * columnas, destino[i], 0, columnas);
+		}
+		return destino;
+	}
+
+	/**
+	 * Exporta la ventana de filas x columnas, fila a fila, en el array recibido.
+	 * Sólo recorre las teselas reservadas que cortan la ventana.
+	 * @param destino - el array a rellenar; puede ser null.
+	 * @return el array con la copia; destino o uno nuevo si no era válido.
+	 */
+	@Override
+	public byte[] copiarCeldas(byte[] destino) {
+		int filas = getFilas();
+		int columnas = getColumnas();
+		if (destino == null || destino.length != filas * columnas) {
+			destino = new byte[filas * columnas];
+		}
+		else {
+			Arrays.fill(destino, (byte) 0);
+		}
+		for (int tf = 0; tf <= (filas - 1) >> DESPLAZAMIENTO; tf++) {
+			for (int tc = 0; tc <= (columnas - 1) >> DESPLAZAMIENTO; tc++) {
+				Tesela tesela = teselas.get(clave(tf, tc));
+				if (tesela == null) {
+					continue;
+				}
+				int hastaFila = Math.min(TESELA, filas - tf * TESELA);
+				int hastaColumna = Math.min(TESELA, columnas - tc * TESELA);
+				for (int i = 0; i < hastaFila; i++) {
+					long palabra = tesela.celdas[i];
+					int inicio = (tf * TESELA + i) * columnas + tc * TESELA;
+					for (int j = 0; j < hastaColumna && palabra >>> j != 0; j++) {
+						destino[inicio + j] = (byte) ((palabra >>> j) & 1L);
+					}
+				}
+			}
+		}
+		return destino;
+	}
+
+	/**
+	 * Importa el espacio recibido con su esquina superior izquierda en el origen.
+	 * @param espacio the espacio to set
+	 */
+	@Override
+	public void setEspacio(byte[][] espacio) {
+		if (espacio == null || espacio.length == 0 || espacio[0].length == 0) {
+			setDimensiones(TAMAÑO, TAMAÑO);
+			return;
+		}
+		setDimensiones(espacio.length, espacio[0].length);
+		for (int i = 0; i < espacio.length; i++) {
+			for (int j = 0; j < Math.min(getColumnas(), espacio[i].length); j++) {
+				if (espacio[i][j] != 0) {
+					setCelda(i, j, (byte) 1);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Libera todas las teselas; la ventana queda vacía.
+	 */
+	@Override
+	protected void reservarEspacio() {
+		teselas = new TablaLong<Tesela>();
+	}
+
+	/**
+	 * Un mundo ilimitado no tiene bordes que unir.
+	 * @param topologia - sólo se admite LIMITADA o null.
+	 * @throws UnsupportedOperationException - con TOROIDAL o KLEIN.
+	 */
+	@Override
+	public void setTopologia(Topologia topologia) {
+		if (topologia != null && topologia != Topologia.LIMITADA) {
+			throw new UnsupportedOperationException(
+					"MundoIlimitado no admite la topología " + topologia);
+		}
+		super.setTopologia(topologia);
+	}
+
+	/**
+	 * Una regla con B0 haría nacer células en todas las teselas no reservadas.
+	 * @param regla - la regla; null equivale a B3/S23.
+	 * @throws UnsupportedOperationException - si la regla incluye B0.
+	 */
+	@Override
+	public void setRegla(Regla regla) {
+		if (regla != null && regla.nace(0)) {
+			throw new UnsupportedOperationException(
+					"MundoIlimitado no admite reglas con B0: " + regla);
+		}
+		super.setRegla(regla);
+	}
+
+	private void importar(byte[] celdas) {
+		int columnas = getColumnas();
+		for (int k = 0; k < celdas.length; k++) {
+			if (celdas[k] != 0) {
+				setCelda(k / columnas, k % columnas, (byte) 1);
+			}
+		}
+	}
+
+	//Métodos de la interface Leyes
+	/**
+	 * Calcula la siguiente generación de todas las teselas reservadas.
+	 * Primero reserva las vecinas de las teselas con células en el borde,
+	 * ya que sólo ahí pueden nacer células fuera de las teselas actuales;
+	 * al final libera las teselas vacías.
+	 */
+	@Override
+	public Object actualizarEstado() {
+		if (hojas == null || hojas.regla != getRegla()) {
+			hojas = new MundoCompacto.Hojas(getRegla());
+		}
+		reservarVecinas();
+		claves = teselas.copiarClaves(claves);
+		int numTeselas = teselas.size();
+		for (int k = 0; k < numTeselas; k++) {
+			actualizarTesela(claves[k]);
+		}
+		estable = true;
+		for (int k = 0; k < numTeselas; k++) {
+			Tesela tesela = teselas.get(claves[k]);
+			long[] aux = tesela.aux;
+			tesela.aux = tesela.celdas;
+			tesela.celdas = aux;
+			estable = estable && Arrays.equals(tesela.celdas, tesela.aux);
+			if (tesela.vacia()) {
+				teselas.remove(claves[k]);
+			}
+		}
+		return this;
+	}
+
+	/**
+	 * Avanza el número de generaciones recibido.
+	 * Termina en cuanto una generación no cambia ninguna tesela, ya que
+	 * a partir de ahí el mundo no vuelve a cambiar.
+	 * @param generaciones - el número de generaciones, no negativo.
+	 * @return este mundo.
+	 */
+	@Override
+	public MundoIlimitado avanzar(long generaciones) {
+		assert generaciones >= 0;
+		for (long gen = 0; gen < generaciones; gen++) {
+			actualizarEstado();
+			if (estable) {
+				break;
+			}
+		}
+		return this;
+	}
+
+	/**
+	 * Reserva las teselas vecinas de cada borde o esquina con células vivas.
+	 */
+	private void reservarVecinas() {
+		claves = teselas.copiarClaves(claves);
+		int numTeselas = teselas.size();
+		for (int k = 0; k < numTeselas; k++) {
+			long[] celdas = teselas.get(claves[k]).celdas;
+			int tf = fila(claves[k]);
+			int tc = columna(claves[k]);
+			long izquierda = 0;
+			long derecha = 0;
+			for (long fila : celdas) {
+				izquierda |= fila & 1L;
+				derecha |= fila >>> ULTIMA;
+			}
+			boolean norte = celdas[0] != 0;
+			boolean sur = celdas[ULTIMA] != 0;
+			reservar(tf - 1, tc, norte);
+			reservar(tf + 1, tc, sur);
+			reservar(tf, tc - 1, izquierda != 0);
+			reservar(tf, tc + 1, derecha != 0);
+			reservar(tf - 1, tc - 1, (celdas[0] & 1L) != 0);
+			reservar(tf - 1, tc + 1, (celdas[0] >>> ULTIMA) != 0);
+			reservar(tf + 1, tc - 1, (celdas[ULTIMA] & 1L) != 0);
+			reservar(tf + 1, tc + 1, (celdas[ULTIMA] >>> ULTIMA) != 0);
+		}
+	}
+
+	private void reservar(int tf, int tc, boolean necesaria) {
+		if (necesaria && teselas.get(clave(tf, tc)) == null) {
+			teselas.put(clave(tf, tc), new Tesela());
+		}
+	}
+
+	/**
+	 * Calcula la siguiente generación de una tesela en su búfer auxiliar.
+	 * Las filas y columnas vecinas se toman de las ocho teselas de
+	 * alrededor; una tesela no reservada equivale a celdas vacías.
+	 */
+	private void actualizarTesela(long clave) {
+		int tf = fila(clave);
+		int tc = columna(clave);
+		Tesela tesela = teselas.get(clave);
+		if (tesela.aux == null) {
+			tesela.aux = new long[TESELA];
+		}
+		long[] c = tesela.celdas;
+		long[] o = celdas(tf, tc - 1);
+		long[] e = celdas(tf, tc + 1);
+		long[] n = celdas(tf - 1, tc);
+		long[] s = celdas(tf + 1, tc);
+		// Fila vecina superior e inferior de la tesela con sus bits laterales.
+		long norte = (n == null) ? 0 : n[ULTIMA];
+		long sur = (s == null) ? 0 : s[0];
+		long[] no = celdas(tf - 1, tc - 1);
+		long[] ne = celdas(tf - 1, tc + 1);
+		long[] so = celdas(tf + 1, tc - 1);
+		long[] se = celdas(tf + 1, tc + 1);
+		long norteO = (no == null) ? 0 : no[ULTIMA] >>> ULTIMA;
+		long norteE = (ne == null) ? 0 : ne[ULTIMA] & 1L;
+		long surO = (so == null) ? 0 : so[0] >>> ULTIMA;
+		long surE = (se == null) ? 0 : se[0] & 1L;
+
+		for (int i = 0; i < TESELA; i++) {
+			long fn = (i > 0) ? c[i - 1] : norte;
+			long fnO = (i > 0) ? bitO(o, i - 1) : norteO;
+			long fnE = (i > 0) ? bitE(e, i - 1) : norteE;
+			long fs = (i < ULTIMA) ? c[i + 1] : sur;
+			long fsO = (i < ULTIMA) ? bitO(o, i + 1) : surO;
+			long fsE = (i < ULTIMA) ? bitE(e, i + 1) : surE;
+			long fc = c[i];
+			tesela.aux[i] = MundoCompacto.siguiente(hojas, fc,
+					(fn << 1) | fnO, fn, (fn >>> 1) | (fnE << ULTIMA),
+					(fc << 1) | bitO(o, i), (fc >>> 1) | (bitE(e, i) << ULTIMA),
+					(fs << 1) | fsO, fs, (fs >>> 1) | (fsE << ULTIMA));
+		}
+	}
+
+	/**
+	 * Última celda de la fila i de la tesela del oeste, en el bit 0.
+	 */
+	private static long bitO(long[] o, int i) {
+		return (o == null) ? 0 : o[i] >>> ULTIMA;
+	}
+
+	/**
+	 * Primera celda de la fila i de la tesela del este, en el bit 0.
+	 */
+	private static long bitE(long[] e, int i) {
+		return (e == null) ? 0 : e[i] & 1L;
+	}
+
+	private long[] celdas(int tf, int tc) {
+		Tesela tesela = teselas.get(clave(tf, tc));
+		return (tesela == null) ? null : tesela.celdas;
+	}
+
+	private static long clave(int tf, int tc) {
+		return ((long) tf << 32) | (tc & 0xFFFFFFFFL);
+	}
+
+	private static int fila(long clave) {
+		return (int) (clave >> 32);
+	}
+
+	private static int columna(long clave) {
+		return (int) clave;
+	}
+
+} //class
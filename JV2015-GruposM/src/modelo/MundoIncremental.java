@@ -0,0 +1,403 @@
+package modelo;
+/**
+ * Proyecto: Juego de la vida.
+ *  Representa un Mundo que guarda, junto al estado de cada celda, el
+ *  número de vecinas vivas y sólo lo ajusta cuando una célula nace o
+ *  muere. Una celda cuyo estado y número de vecinas no han cambiado en
+ *  la última generación mantiene su estado, por lo que cada generación
+ *  sólo evalúa las celdas cambiadas y sus vecinas: el trabajo es
+ *  proporcional al número de cambios y no al tamaño del mundo.
+ *  Tras modificar la regla o la topología se evalúan todas las celdas
+ *  una vez. Los cambios de cada generación se registran, si se pide,
+ *  directamente desde la lista de celdas cambiadas.
+ *  @since: prototipo2.2
+ *  @source: MundoIncremental.java
+ *  @version: 1.0 - 2016/06/27
+ *  @author: ajp
+ */
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Hashtable;
+import java.util.List;
+import java.util.Map;
+
+public class MundoIncremental extends Mundo {
+
+	// Atributos
+	private byte[] estados;					// fila a fila, sin halo
+	private byte[] vecinas;					// vecinas vivas de cada celda
+	private int[] cambiadas;				// celdas cambiadas desde la última generación
+	private int numCambiadas;
+	private boolean revisarTodas;			// la próxima generación evalúa todas las celdas
+	private int nacimientos;				// de la última generación
+	private int muertes;
+	private transient int[] candidatas;
+	private transient int[] marcas;			// sello de la generación en que se añadió
+	private transient int sello;
+	private transient int[] vecindad;
+
+	/**
+	 * Constructor convencional.
+	 * Recibe parámetros que se corresponden con los atributos de Mundo.
+	 * @param nombre
+	 * @param constantes
+	 * @param distribucion
+	 * @param espacio
+	 */
+	public MundoIncremental(String nombre, List<Integer> constantes,
+			Map<Patron, Posicion> distribucion, byte[][] espacio) {
+		super(nombre, constantes, distribucion, espacio);
+	}
+
+	/**
+	 * Constructor de un mundo vacío de las dimensiones indicadas.
+	 * @param nombre
+	 * @param constantes
+	 * @param distribucion
+	 * @param filas - el alto del mundo.
+	 * @param columnas - el ancho del mundo.
+	 */
+	public MundoIncremental(String nombre, List<Integer> constantes,
+			Map<Patron, Posicion> distribucion, int filas, int columnas) {
+		super(nombre, constantes, distribucion, filas, columnas);
+	}
+
+	/**
+	 * Constructor por defecto.
+	 */
+	public MundoIncremental() {
+		super();
+	}
+
+	/**
+	 * Constructor copia.
+	 * @param mundo - el Mundo a clonar
+	 */
+	public MundoIncremental(Mundo mundo) {
+		super(mundo.getNombre(), new ArrayList<Integer>(mundo.getConstantes()),
+				new Hashtable<Patron,Posicion>(mundo.getDistribucion()),
+				mundo.getFilas(), mundo.getColumnas());
+		setTopologia(mundo.getTopologia());
+		byte[] celdas = mundo.copiarCeldas(null);
+		for (int celda = 0; celda < celdas.length; celda++) {
+			if (celdas[celda] != 0) {
+				cambiar(celda);
+			}
+		}
+		revisarTodas = true;
+	}
+
+	/**
+	 * @return el número de celdas que cambiaron en la última generación,
+	 * más las modificadas después con setCelda().
+	 */
+	public int getNumCambios() {
+		return numCambiadas;
+	}
+
+	/**
+	 * @return los cambios de la última generación o null si no se registran.
+	 */
+	@Override
+	public ConjuntoCambios getCambios() {
+		return getConjuntoCambios();
+	}
+
+	@Override
+	public byte getCelda(int fila, int columna) {
+		return estados[fila * getColumnas() + columna];
+	}
+
+	/**
+	 * Establece el estado de una celda y ajusta el número de vecinas
+	 * de las de alrededor.
+	 * @param fila
+	 * @param columna
+	 * @param estado - distinto de 0 viva, 0 vacía.
+	 */
+	@Override
+	public void setCelda(int fila, int columna, byte estado) {
+		int celda = fila * getColumnas() + columna;
+		if (estados[celda] != (estado != 0 ? 1 : 0)) {
+			cambiar(celda);
+			interrumpirCambios();
+			if (numCambiadas < cambiadas.length) {
+				cambiadas[numCambiadas++] = celda;
+			}
+			else {
+				revisarTodas = true;
+			}
+		}
+	}
+
+	/**
+	 * Cuenta las células sobre el array de estados, sin copiarlo; los
+	 * nacimientos y muertes se obtienen de las celdas cambiadas en la
+	 * última generación.
+	 * @return las estadísticas de la generación actual.
+	 */
+	@Override
+	public Estadisticas getEstadisticas() {
+		int[] limites = new int[4];
+		int poblacion = contarCeldas(ByteBuffer.wrap(estados).order(ByteOrder.LITTLE_ENDIAN),
+				0, getColumnas(), 0, getFilas(), 0, getColumnas(), limites);
+		return new Estadisticas(poblacion, nacimientos, muertes,
+				limites[0], limites[1], limites[2], limites[3]);
+	}
+
+	@Override
+	void anotarGeneracion(int nacimientos, int muertes) {
+		this.nacimientos = nacimientos;
+		this.muertes = muertes;
+	}
+
+	@Override
+	public byte[][] copiarEspacio(byte[][] destino) {
+		int filas = getFilas();
+		int columnas = getColumnas();
+		if (!mismasDimensiones(destino, filas, columnas)) {
+			destino = new byte[filas][columnas];
+		}
+		for (int i = 0; i < filas; i++) {
+			System.arraycopy(estados, i * columnas, destino[i], 0, columnas);
+		}
+		return destino;
+	}
+
+	@Override
+	public byte[] copiarCeldas(byte[] destino) {
+		if (destino == null || destino.length != estados.length) {
+			destino = new byte[estados.length];
+		}
+		System.arraycopy(estados, 0, destino, 0, estados.length);
+		return destino;
+	}
+
+	@Override
+	public void setEspacio(byte[][] espacio) {
+		if (espacio == null || espacio.length == 0 || espacio[0].length == 0) {
+			setDimensiones(TAMAÑO, TAMAÑO);
+			return;
+		}
+		setDimensiones(espacio.length, espacio[0].length);
+		for (int i = 0; i < espacio.length; i++) {
+			for (int j = 0; j < Math.min(getColumnas(), espacio[i].length); j++) {
+				if (espacio[i][j] != 0) {
+					cambiar(i * getColumnas() + j);
+				}
+			}
+		}
+		interrumpirCambios();
+	}
+
+	/**
+	 * Reserva el estado y las vecinas de las dimensiones actuales, vacíos.
+	 */
+	@Override
+	protected void reservarEspacio() {
+		int celdas = getFilas() * getColumnas();
+		estados = new byte[celdas];
+		vecinas = new byte[celdas];
+		cambiadas = new int[celdas];
+		numCambiadas = 0;
+		nacimientos = muertes = 0;
+		candidatas = null;
+		marcas = null;
+		revisarTodas = true;
+	}
+
+	/**
+	 * Cambia la topología y vuelve a contar las vecinas.
+	 * @param topologia - null equivale a LIMITADA.
+	 */
+	@Override
+	public void setTopologia(Topologia topologia) {
+		super.setTopologia(topologia);
+		if (estados != null) {
+			Arrays.fill(vecinas, (byte) 0);
+			for (int celda = 0; celda < estados.length; celda++) {
+				if (estados[celda] != 0) {
+					sumarVecinas(celda, 1);
+				}
+			}
+			revisarTodas = true;
+		}
+	}
+
+	/**
+	 * Cambia la regla; la siguiente generación evalúa todas las celdas.
+	 * @param regla - null equivale a B3/S23.
+	 */
+	@Override
+	public void setRegla(Regla regla) {
+		super.setRegla(regla);
+		revisarTodas = true;
+	}
+
+	//Métodos de la interface Leyes
+	/**
+	 * Calcula la siguiente generación evaluando sólo las candidatas: las
+	 * celdas cambiadas en la generación anterior y sus vecinas. Primero
+	 * obtiene todas las que cambian y después las cambia, ajustando las
+	 * vecinas, para que la generación sea simultánea.
+	 */
+	@Override
+	public Object actualizarEstado() {
+		byte[] tabla = getRegla().getTabla();
+		int numCandidatas = recogerCandidatas();
+		numCambiadas = 0;
+		for (int k = 0; k < numCandidatas; k++) {
+			int celda = candidatas[k];
+			if (tabla[estados[celda] * 9 + vecinas[celda]] != estados[celda]) {
+				cambiadas[numCambiadas++] = celda;
+			}
+		}
+		nacimientos = 0;
+		for (int k = 0; k < numCambiadas; k++) {
+			cambiar(cambiadas[k]);
+			nacimientos += estados[cambiadas[k]];
+		}
+		muertes = numCambiadas - nacimientos;
+		ConjuntoCambios conjunto = getConjuntoCambios();
+		if (conjunto != null) {
+			int columnas = getColumnas();
+			conjunto.iniciar(columnas);
+			for (int k = 0; k < numCambiadas; k++) {
+				conjunto.añadir(cambiadas[k] / columnas, cambiadas[k] % columnas);
+			}
+		}
+		return this;
+	}
+
+	/**
+	 * Avanza el número de generaciones recibido.
+	 * Termina en cuanto una generación no cambia ninguna celda.
+	 * @param generaciones - el número de generaciones, no negativo.
+	 * @return este mundo.
+	 */
+	@Override
+	public MundoIncremental avanzar(long generaciones) {
+		assert generaciones >= 0;
+		for (long gen = 0; gen < generaciones; gen++) {
+			actualizarEstado();
+			if (numCambiadas == 0) {
+				break;
+			}
+		}
+		return this;
+	}
+
+	/**
+	 * Reúne en candidatas, sin repetir, las celdas cambiadas y sus vecinas
+	 * o todas las celdas si se ha pedido revisarlas.
+	 * @return el número de candidatas.
+	 */
+	private int recogerCandidatas() {
+		if (candidatas == null) {
+			candidatas = new int[estados.length];
+			marcas = new int[estados.length];
+			vecindad = new int[8];
+			sello = 0;
+		}
+		if (revisarTodas) {
+			revisarTodas = false;
+			for (int celda = 0; celda < estados.length; celda++) {
+				candidatas[celda] = celda;
+			}
+			return estados.length;
+		}
+		if (++sello == Integer.MAX_VALUE) {
+			Arrays.fill(marcas, 0);
+			sello = 1;
+		}
+		int numCandidatas = 0;
+		for (int k = 0; k < numCambiadas; k++) {
+			int celda = cambiadas[k];
+			if (marcas[celda] != sello) {
+				marcas[celda] = sello;
+				candidatas[numCandidatas++] = celda;
+			}
+			int n = obtenerVecindad(celda);
+			for (int v = 0; v < n; v++) {
+				int vecina = vecindad[v];
+				if (marcas[vecina] != sello) {
+					marcas[vecina] = sello;
+					candidatas[numCandidatas++] = vecina;
+				}
+			}
+		}
+		return numCandidatas;
+	}
+
+	/**
+	 * Invierte el estado de una celda y ajusta las vecinas de las de alrededor.
+	 */
+	private void cambiar(int celda) {
+		estados[celda] ^= 1;
+		sumarVecinas(celda, (estados[celda] != 0) ? 1 : -1);
+	}
+
+	private void sumarVecinas(int celda, int incremento) {
+		if (vecindad == null) {
+			vecindad = new int[8];
+		}
+		int n = obtenerVecindad(celda);
+		for (int v = 0; v < n; v++) {
+			vecinas[vecindad[v]] += incremento;
+		}
+	}
+
+	/**
+	 * Deja en vecindad las posiciones de las vecinas de una celda según la
+	 * topología; en mundos de una o dos filas o columnas con bordes unidos
+	 * una misma celda puede aparecer varias veces, como en el halo de Mundo.
+	 * @return el número de vecinas.
+	 */
+	private int obtenerVecindad(int celda) {
+		int filas = getFilas();
+		int columnas = getColumnas();
+		int i = celda / columnas;
+		int j = celda - i * columnas;
+		int n = 0;
+		if (i > 0 && i < filas - 1 && j > 0 && j < columnas - 1) {
+			vecindad[n++] = celda - columnas - 1;
+			vecindad[n++] = celda - columnas;
+			vecindad[n++] = celda - columnas + 1;
+			vecindad[n++] = celda - 1;
+			vecindad[n++] = celda + 1;
+			vecindad[n++] = celda + columnas - 1;
+			vecindad[n++] = celda + columnas;
+			vecindad[n++] = celda + columnas + 1;
+			return n;
+		}
+		Topologia topologia = getTopologia();
+		for (int di = -1; di <= 1; di++) {
+			for (int dj = -1; dj <= 1; dj++) {
+				if (di == 0 && dj == 0) {
+					continue;
+				}
+				int fila = i + di;
+				int columna = j + dj;
+				if (topologia == Topologia.LIMITADA) {
+					if (fila < 0 || fila >= filas || columna < 0 || columna >= columnas) {
+						continue;
+					}
+				}
+				else {
+					boolean cruza = fila < 0 || fila >= filas;
+					fila = (fila + filas) % filas;
+					columna = (columna + columnas) % columnas;
+					if (cruza && topologia == Topologia.KLEIN) {
+						columna = columnas - 1 - columna;
+					}
+				}
+				vecindad[n++] = fila * columnas + columna;
+			}
+		}
+		return n;
+	}
+
+} //class
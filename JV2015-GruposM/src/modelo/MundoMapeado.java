@@ -0,0 +1,306 @@
+package modelo;
+/**
+ * Proyecto: Juego de la vida.
+ *  Representa un Mundo cuyas celdas están en un fichero proyectado en
+ *  memoria con FileChannel.map, por lo que puede ser mayor que el heap
+ *  y que la memoria física: el sistema operativo carga y descarga las
+ *  páginas según se recorren. El fichero tiene una cabecera y dos
+ *  regiones con la disposición de Mundo (fila a fila con halo), una por
+ *  generación; la cabecera indica cuál es la actual.
+ *  Las generaciones se calculan fila a fila, en el orden del fichero,
+ *  con el motor de MundoDirecto.
+ *  El mundo se reanuda con abrir() sin deserializar sus celdas; al
+ *  serializarlo, p.e. en MundosDAO de fichero, sólo se guarda la
+ *  referencia al fichero con el nombre y la distribución.
+ *  Cada región está limitada a 2^31 bytes por el índice de ByteBuffer.
+ *  @since: prototipo2.2
+ *  @source: MundoMapeado.java
+ *  @version: 1.0 - 2016/06/29
+ *  @author: ajp
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectStreamException;
+import java.io.RandomAccessFile;
+import java.io.Serializable;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Hashtable;
+import java.util.List;
+import java.util.Map;
+
+public class MundoMapeado extends MundoDirecto {
+
+	// Cabecera del fichero.
+	private static final long MAGIA = 0x4A564D554E444F31L;		// "JVMUNDO1"
+	private static final int CABECERA = 64;
+	private static final int FILAS = 8;
+	private static final int COLUMNAS = 12;
+	private static final int ACTUAL = 16;
+	private static final int TOPOLOGIA = 20;
+	private static final int NACIMIENTO = 24;
+	private static final int SUPERVIVENCIA = 28;
+	private static final int GENERACION = 32;
+
+	// Atributos
+	private transient File fichero;
+	private transient RandomAccessFile acceso;
+	private transient MappedByteBuffer cabecera;
+	private transient ByteBuffer[] regiones;
+
+	/**
+	 * Constructor de un mundo vacío en un fichero nuevo; si existe se sobrescribe.
+	 * @param nombre
+	 * @param constantes
+	 * @param distribucion
+	 * @param filas - el alto del mundo.
+	 * @param columnas - el ancho del mundo.
+	 * @param fichero - el fichero de las celdas.
+	 * @throws UncheckedIOException - si no se puede crear el fichero.
+	 */
+	public MundoMapeado(String nombre, List<Integer> constantes,
+			Map<Patron, Posicion> distribucion, int filas, int columnas, File fichero) {
+		super(nombre, constantes, distribucion, filas, columnas);
+		this.fichero = fichero;
+		abrirFichero();
+		proyectar(true);
+	}
+
+	/**
+	 * Constructor copia en un fichero nuevo; si existe se sobrescribe.
+	 * @param mundo - el Mundo a clonar.
+	 * @param fichero - el fichero de las celdas.
+	 * @throws UncheckedIOException - si no se puede crear el fichero.
+	 */
+	public MundoMapeado(Mundo mundo, File fichero) {
+		this(mundo.getNombre(), new ArrayList<Integer>(mundo.getConstantes()),
+				new Hashtable<Patron,Posicion>(mundo.getDistribucion()),
+				mundo.getFilas(), mundo.getColumnas(), fichero);
+		setTopologia(mundo.getTopologia());
+		for (int i = 0; i < getFilas(); i++) {
+			for (int j = 0; j < getColumnas(); j++) {
+				if (mundo.getCelda(i, j) != 0) {
+					setCelda(i, j, (byte) 1);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Constructor de un mundo existente a partir de su cabecera.
+	 */
+	private MundoMapeado(File fichero, int[] datos) {
+		super(fichero.getName(), Arrays.asList(datos[3], datos[4]),
+				new Hashtable<Patron,Posicion>(), datos[0], datos[1]);
+		this.fichero = fichero;
+		abrirFichero();
+		proyectar(false);
+		setTopologia(Topologia.values()[datos[2]]);
+	}
+
+	/**
+	 * Reanuda un mundo guardado en un fichero sin leer sus celdas, que se
+	 * cargan según se utilizan. El nombre es el del fichero.
+	 * @param fichero
+	 * @return el mundo.
+	 * @throws UncheckedIOException - si no se puede leer o no es un fichero de mundo.
+	 */
+	public static MundoMapeado abrir(File fichero) {
+		try (RandomAccessFile lectura = new RandomAccessFile(fichero, "r")) {
+			if (lectura.length() < CABECERA || lectura.readLong() != MAGIA) {
+				throw new IOException("No es un fichero de mundo: " + fichero);
+			}
+			int[] datos = new int[5];
+			lectura.seek(FILAS);
+			datos[0] = lectura.readInt();
+			datos[1] = lectura.readInt();
+			lectura.seek(TOPOLOGIA);
+			datos[2] = lectura.readInt();
+			datos[3] = lectura.readInt();
+			datos[4] = lectura.readInt();
+			return new MundoMapeado(fichero, datos);
+		}
+		catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * @return el fichero de las celdas.
+	 */
+	public File getFichero() {
+		return fichero;
+	}
+
+	/**
+	 * @return las generaciones calculadas desde que se creó el fichero.
+	 */
+	public long getGeneracion() {
+		return cabecera.getLong(GENERACION);
+	}
+
+	/**
+	 * Escribe en el fichero las páginas modificadas.
+	 */
+	public void sincronizar() {
+		if (cabecera != null) {
+			((MappedByteBuffer) regiones[0]).force();
+			((MappedByteBuffer) regiones[1]).force();
+			cabecera.force();
+		}
+	}
+
+	/**
+	 * Sincroniza y cierra el fichero; el mundo no puede utilizarse después,
+	 * pero puede reanudarse con abrir().
+	 */
+	@Override
+	public void liberar() {
+		sincronizar();
+		cabecera = null;
+		regiones = null;
+		if (acceso != null) {
+			try {
+				acceso.close();
+			}
+			catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			acceso = null;
+		}
+		super.liberar();
+	}
+
+	/**
+	 * Vuelve a crear el fichero vacío para las dimensiones actuales.
+	 * Durante la construcción todavía no hay fichero y no hace nada.
+	 */
+	@Override
+	protected void reservarEspacio() {
+		if (fichero != null) {
+			proyectar(true);
+		}
+	}
+
+	@Override
+	public void setTopologia(Topologia topologia) {
+		super.setTopologia(topologia);
+		escribirCabecera();
+	}
+
+	@Override
+	public void setRegla(Regla regla) {
+		super.setRegla(regla);
+		escribirCabecera();
+	}
+
+	//Métodos de la interface Leyes
+	/**
+	 * Calcula la siguiente generación y anota en la cabecera la región
+	 * que pasa a ser la actual.
+	 */
+	@Override
+	public Object actualizarEstado() {
+		super.actualizarEstado();
+		cabecera.putInt(ACTUAL, (getBufer() == regiones[0]) ? 0 : 1);
+		cabecera.putLong(GENERACION, cabecera.getLong(GENERACION) + 1);
+		return this;
+	}
+
+	private void abrirFichero() {
+		try {
+			acceso = new RandomAccessFile(fichero, "rw");
+		}
+		catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Proyecta la cabecera y las dos regiones del fichero.
+	 * @param vaciar - si se trunca el fichero y se escribe una cabecera nueva.
+	 */
+	private void proyectar(boolean vaciar) {
+		long tamaño = (long) (getFilas() + 2) * (getColumnas() + 2);
+		if (tamaño > Integer.MAX_VALUE - 8) {
+			throw new IllegalArgumentException("Mundo demasiado grande: "
+					+ getFilas() + "x" + getColumnas());
+		}
+		try {
+			FileChannel canal = acceso.getChannel();
+			if (vaciar) {
+				// Al ampliar de nuevo el fichero las regiones quedan a 0.
+				canal.truncate(0);
+			}
+			cabecera = canal.map(FileChannel.MapMode.READ_WRITE, 0, CABECERA);
+			regiones = new ByteBuffer[] {
+				canal.map(FileChannel.MapMode.READ_WRITE, CABECERA, tamaño)
+						.order(ByteOrder.nativeOrder()),
+				canal.map(FileChannel.MapMode.READ_WRITE, CABECERA + tamaño, tamaño)
+						.order(ByteOrder.nativeOrder())
+			};
+		}
+		catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		if (vaciar) {
+			cabecera.putLong(0, MAGIA);
+			cabecera.putInt(FILAS, getFilas());
+			cabecera.putInt(COLUMNAS, getColumnas());
+			cabecera.putInt(ACTUAL, 0);
+			cabecera.putLong(GENERACION, 0);
+			escribirCabecera();
+		}
+		int actual = cabecera.getInt(ACTUAL);
+		setBuferes(regiones[actual], regiones[1 - actual]);
+	}
+
+	/**
+	 * Anota en la cabecera la topología y la regla.
+	 */
+	private void escribirCabecera() {
+		if (cabecera != null) {
+			cabecera.putInt(TOPOLOGIA, getTopologia().ordinal());
+			cabecera.putInt(NACIMIENTO, getRegla().getNacimiento());
+			cabecera.putInt(SUPERVIVENCIA, getRegla().getSupervivencia());
+		}
+	}
+
+	/**
+	 * Serializa sólo la referencia al fichero, tras sincronizarlo.
+	 */
+	private Object writeReplace() throws ObjectStreamException {
+		sincronizar();
+		return new Referencia(fichero, getNombre(), getDistribucion());
+	}
+
+	/**
+	 * Forma serializada de un MundoMapeado: al deserializarla se reanuda
+	 * el mundo desde su fichero.
+	 */
+	private static class Referencia implements Serializable {
+		private File fichero;
+		private String nombre;
+		private Map<Patron, Posicion> distribucion;
+
+		Referencia(File fichero, String nombre, Map<Patron, Posicion> distribucion) {
+			this.fichero = fichero;
+			this.nombre = nombre;
+			this.distribucion = distribucion;
+		}
+
+		private Object readResolve() throws ObjectStreamException {
+			MundoMapeado mundo = abrir(fichero);
+			mundo.setNombre(nombre);
+			mundo.setDistribucion(distribucion);
+			return mundo;
+		}
+	}
+
+} //class
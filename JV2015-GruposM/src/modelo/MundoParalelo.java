@@ -0,0 +1,199 @@
+package modelo;
+/**
+ * Proyecto: Juego de la vida.
+ *  Representa un Mundo que calcula cada generación en paralelo
+ *  repartiendo el espacio en franjas de filas sobre un ForkJoinPool.
+ *  Cada franja sólo lee la generación actual y sólo escribe sus filas
+ *  de la siguiente, por lo que el resultado es idéntico al secuencial.
+ *  Cada franja cuenta además sus filas recién calculadas, y las cuentas
+ *  se combinan en las estadísticas de la generación.
+ *  El número de hilos y el tamaño mínimo para paralelizar se
+ *  obtienen de la configuración, salvo que el mundo utilice un pool
+ *  propio con setParalelismo().
+ *  @since: prototipo2.2
+ *  @source: MundoParalelo.java
+ *  @version: 1.0 - 2016/06/12
+ *  @author: ajp
+ */
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import config.Configuracion;
+
+public class MundoParalelo extends Mundo {
+
+	// Franjas por hilo; más de una equilibra la carga entre hilos.
+	private static final int FRANJAS_HILO = 4;
+
+	// Pool compartido por todos los mundos paralelos.
+	private static ForkJoinPool pool;
+	// Celdas a partir de las que se paraleliza.
+	private static int umbral;
+
+	// Atributos
+	private transient ForkJoinPool poolPropio;		// null: el compartido
+	private transient int umbralPropio;
+
+	/**
+	 * Constructor convencional.
+	 * Recibe parámetros que se corresponden con los atributos de Mundo.
+	 * @param nombre
+	 * @param constantes
+	 * @param distribucion
+	 * @param espacio
+	 */
+	public MundoParalelo(String nombre, List<Integer> constantes,
+			Map<Patron, Posicion> distribucion, byte[][] espacio) {
+		super(nombre, constantes, distribucion, espacio);
+	}
+
+	/**
+	 * Constructor de un mundo vacío de las dimensiones indicadas.
+	 * @param nombre
+	 * @param constantes
+	 * @param distribucion
+	 * @param filas - el alto del mundo.
+	 * @param columnas - el ancho del mundo.
+	 */
+	public MundoParalelo(String nombre, List<Integer> constantes,
+			Map<Patron, Posicion> distribucion, int filas, int columnas) {
+		super(nombre, constantes, distribucion, filas, columnas);
+	}
+
+	/**
+	 * Constructor por defecto.
+	 */
+	public MundoParalelo() {
+		super();
+	}
+
+	/**
+	 * Constructor copia.
+	 * @param mundo - el Mundo a clonar
+	 */
+	public MundoParalelo(Mundo mundo) {
+		super(mundo);
+	}
+
+	/**
+	 *  Método estático de acceso al pool compartido.
+	 *  Si no existe lo crea con el número de hilos configurado
+	 *  en simulacion.hilos; 0 utiliza todos los procesadores.
+	 *  Lee también el umbral simulacion.umbralParalelo.
+	 *  @return el pool.
+	 */
+	public static synchronized ForkJoinPool getPool() {
+		if (pool == null) {
+			int hilos = Configuracion.getEntero("simulacion.hilos", 0);
+			if (hilos <= 0) {
+				hilos = Runtime.getRuntime().availableProcessors();
+			}
+			umbral = Configuracion.getEntero("simulacion.umbralParalelo", 65536);
+			pool = new ForkJoinPool(hilos);
+		}
+		return pool;
+	}
+
+	/**
+	 * Calcula con un pool propio del número de hilos indicado, a partir
+	 * del umbral recibido, en lugar del pool compartido y la configuración.
+	 * @param hilos - 0 vuelve al pool compartido.
+	 * @param umbral - celdas a partir de las que se paraleliza.
+	 */
+	public void setParalelismo(int hilos, int umbral) {
+		if (poolPropio != null) {
+			poolPropio.shutdown();
+		}
+		poolPropio = (hilos > 0) ? new ForkJoinPool(hilos) : null;
+		umbralPropio = umbral;
+	}
+
+	/**
+	 * @return el número de hilos con que se calcula.
+	 */
+	public int getParalelismo() {
+		return (poolPropio != null) ? poolPropio.getParallelism() : getPool().getParallelism();
+	}
+
+	//Métodos de la interface Leyes
+	/**
+	 * Calcula la siguiente generación repartiendo las filas en franjas.
+	 * Por debajo del umbral simulacion.umbralParalelo (en celdas) o con un
+	 * solo hilo utiliza el cálculo secuencial de Mundo.
+	 */
+	@Override
+	public Object actualizarEstado() {
+		int filas = getFilas();
+		ForkJoinPool pool = (poolPropio != null) ? poolPropio : getPool();
+		int umbral = (poolPropio != null) ? umbralPropio : MundoParalelo.umbral;
+		if (pool.getParallelism() == 1 || (long) filas * getColumnas() < umbral) {
+			return super.actualizarEstado();
+		}
+		int filasFranja = Math.max(1, filas / (pool.getParallelism() * FRANJAS_HILO));
+		prepararGeneracion();
+		int[] cuenta = pool.invoke(new TareaFranjas(0, filas, filasFranja));
+		completarGeneracion(cuenta[0], cuenta[1],
+				new int[] { cuenta[2], cuenta[3], cuenta[4], cuenta[5] });
+		return this;
+	}
+
+	/**
+	 * Tarea que divide un rango de filas por la mitad hasta
+	 * alcanzar el tamaño de franja y entonces lo calcula y lo cuenta.
+	 * Devuelve {población, cambiadas, filaMin, filaMax, columnaMin,
+	 * columnaMax} de sus filas en la nueva generación.
+	 */
+	private class TareaFranjas extends RecursiveTask<int[]> {
+
+		private int desde;
+		private int hasta;
+		private int filasFranja;
+
+		TareaFranjas(int desde, int hasta, int filasFranja) {
+			this.desde = desde;
+			this.hasta = hasta;
+			this.filasFranja = filasFranja;
+		}
+
+		@Override
+		protected int[] compute() {
+			if (hasta - desde <= filasFranja) {
+				int columnas = getColumnas();
+				int[] cuenta = new int[6];
+				cuenta[1] = actualizarRegion(desde, hasta, 0, columnas);
+				int[] limites = new int[4];
+				cuenta[0] = contarCeldas(
+						ByteBuffer.wrap(getCeldasAuxiliares()).order(ByteOrder.LITTLE_ENDIAN),
+						columnas + 3, columnas + 2, desde, hasta, 0, columnas, limites);
+				System.arraycopy(limites, 0, cuenta, 2, 4);
+				return cuenta;
+			}
+			int medio = (desde + hasta) >>> 1;
+			TareaFranjas primera = new TareaFranjas(desde, medio, filasFranja);
+			TareaFranjas segunda = new TareaFranjas(medio, hasta, filasFranja);
+			primera.fork();
+			int[] cuenta = segunda.compute();
+			int[] otra = primera.join();
+			if (otra[0] > 0) {
+				if (cuenta[0] == 0) {
+					System.arraycopy(otra, 2, cuenta, 2, 4);
+				}
+				else {
+					cuenta[2] = Math.min(cuenta[2], otra[2]);
+					cuenta[3] = Math.max(cuenta[3], otra[3]);
+					cuenta[4] = Math.min(cuenta[4], otra[4]);
+					cuenta[5] = Math.max(cuenta[5], otra[5]);
+				}
+			}
+			cuenta[0] += otra[0];
+			cuenta[1] += otra[1];
+			return cuenta;
+		}
+	}
+
+} //class
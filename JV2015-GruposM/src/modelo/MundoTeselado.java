@@ -0,0 +1,288 @@
+package modelo;
+/**
+ * Proyecto: Juego de la vida.
+ *  Representa un Mundo que avanza varias generaciones por tesela antes
+ *  de escribir el resultado (bloqueo temporal), para que un mundo mayor
+ *  que la caché no se lea y escriba de memoria en cada generación.
+ *  Cada tesela se copia con un margen de tantas celdas como generaciones
+ *  se van a calcular en un bloque local que cabe en la caché; en cada
+ *  generación la región válida del bloque se reduce una celda por lado
+ *  (trapecio), de modo que al final la tesela es exacta. Los márgenes
+ *  se solapan entre teselas vecinas y su cálculo se repite.
+ *  El bloque se calcula con el núcleo de 8 celdas de MundoVectorial.
+ *  Cada tesela se cuenta al escribirla, cuando aún está en la caché, y
+ *  las estadísticas se combinan a partir de esas cuentas.
+ *  El lado de las teselas y la profundidad temporal se obtienen de
+ *  teselado.lado y teselado.profundidad de la configuración.
+ *  @since: prototipo2.2
+ *  @source: MundoTeselado.java
+ *  @version: 1.0 - 2016/06/25
+ *  @author: ajp
+ */
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.List;
+import java.util.Map;
+
+import config.Configuracion;
+
+public class MundoTeselado extends Mundo {
+
+	// Atributos
+	private int lado;						// 0: se lee de la configuración
+	private int profundidad;
+	private transient Regla reglaCompilada;
+	private transient long[] entradas;
+	private transient byte[] bloque;		// tesela con margen y marco de una celda
+	private transient byte[] bloqueAux;
+
+	/**
+	 * Constructor convencional.
+	 * Recibe parámetros que se corresponden con los atributos de Mundo.
+	 * @param nombre
+	 * @param constantes
+	 * @param distribucion
+	 * @param espacio
+	 */
+	public MundoTeselado(String nombre, List<Integer> constantes,
+			Map<Patron, Posicion> distribucion, byte[][] espacio) {
+		super(nombre, constantes, distribucion, espacio);
+	}
+
+	/**
+	 * Constructor de un mundo vacío de las dimensiones indicadas.
+	 * @param nombre
+	 * @param constantes
+	 * @param distribucion
+	 * @param filas - el alto del mundo.
+	 * @param columnas - el ancho del mundo.
+	 */
+	public MundoTeselado(String nombre, List<Integer> constantes,
+			Map<Patron, Posicion> distribucion, int filas, int columnas) {
+		super(nombre, constantes, distribucion, filas, columnas);
+	}
+
+	/**
+	 * Constructor por defecto.
+	 */
+	public MundoTeselado() {
+		super();
+	}
+
+	/**
+	 * Constructor copia.
+	 * @param mundo - el Mundo a clonar
+	 */
+	public MundoTeselado(Mundo mundo) {
+		super(mundo);
+		if (mundo instanceof MundoTeselado) {
+			lado = ((MundoTeselado) mundo).lado;
+			profundidad = ((MundoTeselado) mundo).profundidad;
+		}
+	}
+
+	/**
+	 * @return el lado de las teselas en celdas.
+	 */
+	public int getLado() {
+		leerConfiguracion();
+		return lado;
+	}
+
+	/**
+	 * @return las generaciones que se calculan por tesela en cada bloque.
+	 */
+	public int getProfundidad() {
+		leerConfiguracion();
+		return profundidad;
+	}
+
+	/**
+	 * Establece el teselado en lugar del de la configuración.
+	 * @param lado - el lado de las teselas, al menos 8.
+	 * @param profundidad - las generaciones por bloque, al menos 1.
+	 */
+	public void setTeselado(int lado, int profundidad) {
+		assert lado >= 8 && profundidad >= 1;
+		this.lado = Math.max(8, lado);
+		this.profundidad = Math.max(1, profundidad);
+		bloque = null;
+		bloqueAux = null;
+	}
+
+	/**
+	 * Obtiene el teselado de teselado.lado y teselado.profundidad
+	 * si no se ha establecido.
+	 */
+	private void leerConfiguracion() {
+		if (lado == 0) {
+			setTeselado(Configuracion.getEntero("teselado.lado", 256),
+					Configuracion.getEntero("teselado.profundidad", 8));
+		}
+	}
+
+	//Métodos de la interface Leyes
+	/**
+	 * Avanza una generación.
+	 */
+	@Override
+	public Object actualizarEstado() {
+		avanzar(1);
+		return this;
+	}
+
+	/**
+	 * Avanza el número de generaciones recibido en bloques de hasta
+	 * profundidad generaciones; en cada bloque el espacio se lee y se
+	 * escribe una sola vez.
+	 * @param generaciones - el número de generaciones, no negativo.
+	 * @return este mundo.
+	 */
+	@Override
+	public MundoTeselado avanzar(long generaciones) {
+		assert generaciones >= 0;
+		leerConfiguracion();
+		Regla regla = getRegla();
+		if (regla != reglaCompilada) {
+			entradas = MundoVectorial.compilarEntradas(regla);
+			reglaCompilada = regla;
+		}
+		if (bloque == null) {
+			int ladoBloque = lado + 2 * profundidad + 2;
+			bloque = new byte[ladoBloque * ladoBloque];
+			bloqueAux = new byte[ladoBloque * ladoBloque];
+		}
+		int[] limitesTesela = new int[4];
+		int[] limites = new int[4];
+		while (generaciones > 0) {
+			int pasos = (int) Math.min(generaciones, profundidad);
+			prepararGeneracion();
+			int poblacion = 0;
+			for (int fila = 0; fila < getFilas(); fila += lado) {
+				for (int columna = 0; columna < getColumnas(); columna += lado) {
+					int vivas = actualizarTesela(fila, columna, pasos, limitesTesela);
+					if (vivas > 0) {
+						if (poblacion == 0) {
+							System.arraycopy(limitesTesela, 0, limites, 0, 4);
+						}
+						else {
+							limites[0] = Math.min(limites[0], limitesTesela[0]);
+							limites[1] = Math.max(limites[1], limitesTesela[1]);
+							limites[2] = Math.min(limites[2], limitesTesela[2]);
+							limites[3] = Math.max(limites[3], limitesTesela[3]);
+						}
+						poblacion += vivas;
+					}
+				}
+			}
+			// Sin las celdas cambiadas, nacimientos y muertes no se conocen.
+			completarGeneracion(poblacion, -1, limites);
+			generaciones -= pasos;
+		}
+		return this;
+	}
+
+	/**
+	 * Calcula pasos generaciones de la tesela con esquina (fila0, columna0),
+	 * escribe el resultado en el búfer auxiliar y lo cuenta.
+	 * Con LIMITADA el margen se recorta al mundo y el marco del bloque, que
+	 * está vacío, hace de exterior; por ese lado la región no se reduce.
+	 * @param limites - recibe los límites de las células vivas de la tesela.
+	 * @return las células vivas de la tesela.
+	 */
+	private int actualizarTesela(int fila0, int columna0, int pasos, int[] limites) {
+		int filas = getFilas();
+		int columnas = getColumnas();
+		int fila1 = Math.min(fila0 + lado, filas);
+		int columna1 = Math.min(columna0 + lado, columnas);
+		// Región ampliada con el margen.
+		int desdeFila = fila0 - pasos;
+		int hastaFila = fila1 + pasos;
+		int desdeColumna = columna0 - pasos;
+		int hastaColumna = columna1 + pasos;
+		if (getTopologia() == Topologia.LIMITADA) {
+			desdeFila = Math.max(desdeFila, 0);
+			hastaFila = Math.min(hastaFila, filas);
+			desdeColumna = Math.max(desdeColumna, 0);
+			hastaColumna = Math.min(hastaColumna, columnas);
+		}
+		int alto = hastaFila - desdeFila;
+		int anchoBloque = hastaColumna - desdeColumna + 2;
+		cargarBloque(desdeFila, hastaFila, desdeColumna, hastaColumna, anchoBloque);
+
+		// Reducción por generación de cada lado: 0 si está recortado.
+		int arriba = (desdeFila == fila0 - pasos) ? 1 : 0;
+		int abajo = (hastaFila == fila1 + pasos) ? 1 : 0;
+		int izquierda = (desdeColumna == columna0 - pasos) ? 1 : 0;
+		int derecha = (hastaColumna == columna1 + pasos) ? 1 : 0;
+		byte[] actual = bloque;
+		byte[] siguiente = bloqueAux;
+		byte[] tabla = reglaCompilada.getTabla();
+		for (int paso = 1; paso <= pasos; paso++) {
+			int primeraFila = arriba * paso;
+			int primeraColumna = izquierda * paso;
+			MundoVectorial.actualizarBloque(
+					ByteBuffer.wrap(actual).order(ByteOrder.nativeOrder()),
+					ByteBuffer.wrap(siguiente).order(ByteOrder.nativeOrder()),
+					anchoBloque, (primeraFila + 1) * anchoBloque + primeraColumna + 1,
+					alto - abajo * paso - primeraFila,
+					anchoBloque - 2 - derecha * paso - primeraColumna,
+					entradas, tabla);
+			byte[] aux = actual;
+			actual = siguiente;
+			siguiente = aux;
+		}
+
+		// Sólo la tesela, sin el margen, pasa al búfer auxiliar del mundo.
+		byte[] destino = getCeldasAuxiliares();
+		int ancho = columnas + 2;
+		for (int fila = fila0; fila < fila1; fila++) {
+			System.arraycopy(actual, (fila - desdeFila + 1) * anchoBloque + columna0 - desdeColumna + 1,
+					destino, (fila + 1) * ancho + columna0 + 1, columna1 - columna0);
+		}
+		return contarCeldas(ByteBuffer.wrap(destino).order(ByteOrder.LITTLE_ENDIAN),
+				ancho + 1, ancho, fila0, fila1, columna0, columna1, limites);
+	}
+
+	/**
+	 * Copia la región ampliada en el bloque y vacía el marco de ambos bloques.
+	 * Las celdas fuera del mundo, que sólo existen en las topologías con
+	 * bordes unidos, se obtienen de la celda a la que equivalen.
+	 */
+	private void cargarBloque(int desdeFila, int hastaFila,
+			int desdeColumna, int hastaColumna, int anchoBloque) {
+		int filas = getFilas();
+		int columnas = getColumnas();
+		int ancho = columnas + 2;
+		byte[] celdas = getCeldasInternas();
+		boolean klein = getTopologia() == Topologia.KLEIN;
+		int alto = hastaFila - desdeFila;
+		int ultima = (alto + 1) * anchoBloque;
+		for (int j = 0; j < anchoBloque; j++) {
+			bloque[j] = bloqueAux[j] = 0;
+			bloque[ultima + j] = bloqueAux[ultima + j] = 0;
+		}
+		for (int fila = desdeFila; fila < hastaFila; fila++) {
+			int inicio = (fila - desdeFila + 1) * anchoBloque;
+			bloque[inicio] = bloqueAux[inicio] = 0;
+			bloque[inicio + anchoBloque - 1] = bloqueAux[inicio + anchoBloque - 1] = 0;
+			if (fila >= 0 && fila < filas && desdeColumna >= 0 && hastaColumna <= columnas) {
+				System.arraycopy(celdas, (fila + 1) * ancho + desdeColumna + 1,
+						bloque, inicio + 1, hastaColumna - desdeColumna);
+				continue;
+			}
+			int vuelta = Math.floorDiv(fila, filas);
+			int origen = (fila - vuelta * filas + 1) * ancho + 1;
+			boolean invertida = klein && (vuelta & 1) != 0;
+			for (int columna = desdeColumna; columna < hastaColumna; columna++) {
+				int equivalente = Math.floorMod(columna, columnas);
+				if (invertida) {
+					equivalente = columnas - 1 - equivalente;
+				}
+				bloque[inicio + 1 + columna - desdeColumna] = celdas[origen + equivalente];
+			}
+		}
+	}
+
+} //class
@@ -0,0 +1,180 @@
+package modelo;
+/**
+ * Proyecto: Juego de la vida.
+ *  Representa un Mundo que calcula 8 celdas a la vez tratando cada long
+ *  como un vector de 8 bytes (SWAR): las celdas se leen de 8 en 8 del
+ *  array con halo de Mundo a través de un ByteBuffer, se suman las ocho
+ *  filas vecinas byte a byte sin acarreo entre bytes (la suma no pasa
+ *  de 8) y la regla se aplica con máscaras comparando cada byte con las
+ *  entradas vivas de su tabla, sin saltos por celda.
+ *  Las columnas que no completan un grupo de 8 se calculan celda a
+ *  celda. El almacenamiento es el de Mundo, por lo
+ *  que admite cualquier regla y topología.
+ *  @since: prototipo2.2
+ *  @source: MundoVectorial.java
+ *  @version: 1.0 - 2016/06/23
+ *  @author: ajp
+ */
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.List;
+import java.util.Map;
+
+public class MundoVectorial extends Mundo {
+
+	// Celdas por vector.
+	static final int CARRILES = 8;
+	private static final long UNOS = 0x0101010101010101L;
+	private static final long SIETES = 0x7F7F7F7F7F7F7F7FL;
+
+	// Entradas de la tabla de la regla con resultado 1, repetidas en los 8 bytes.
+	private transient Regla reglaCompilada;
+	private transient long[] entradas;
+
+	/**
+	 * Constructor convencional.
+	 * Recibe parámetros que se corresponden con los atributos de Mundo.
+	 * @param nombre
+	 * @param constantes
+	 * @param distribucion
+	 * @param espacio
+	 */
+	public MundoVectorial(String nombre, List<Integer> constantes,
+			Map<Patron, Posicion> distribucion, byte[][] espacio) {
+		super(nombre, constantes, distribucion, espacio);
+	}
+
+	/**
+	 * Constructor de un mundo vacío de las dimensiones indicadas.
+	 * @param nombre
+	 * @param constantes
+	 * @param distribucion
+	 * @param filas - el alto del mundo.
+	 * @param columnas - el ancho del mundo.
+	 */
+	public MundoVectorial(String nombre, List<Integer> constantes,
+			Map<Patron, Posicion> distribucion, int filas, int columnas) {
+		super(nombre, constantes, distribucion, filas, columnas);
+	}
+
+	/**
+	 * Constructor por defecto.
+	 */
+	public MundoVectorial() {
+		super();
+	}
+
+	/**
+	 * Constructor copia.
+	 * @param mundo - el Mundo a clonar
+	 */
+	public MundoVectorial(Mundo mundo) {
+		super(mundo);
+	}
+
+	/**
+	 * Calcula la región de 8 en 8 columnas y el resto celda a celda.
+	 * @param filaDesde - primera fila, incluida.
+	 * @param filaHasta - última fila, excluida.
+	 * @param columnaDesde - primera columna, incluida.
+	 * @param columnaHasta - última columna, excluida.
+	 * @return el número de células de la región que cambian de estado.
+	 */
+	@Override
+	protected int actualizarRegion(int filaDesde, int filaHasta,
+			int columnaDesde, int columnaHasta) {
+		Regla regla = getRegla();
+		if (regla != reglaCompilada) {
+			entradas = compilarEntradas(regla);
+			reglaCompilada = regla;
+		}
+		int ancho = getColumnas() + 2;
+		return actualizarBloque(
+				ByteBuffer.wrap(getCeldasInternas()).order(ByteOrder.nativeOrder()),
+				ByteBuffer.wrap(getCeldasAuxiliares()).order(ByteOrder.nativeOrder()),
+				ancho, (filaDesde + 1) * ancho + columnaDesde + 1,
+				filaHasta - filaDesde, columnaHasta - columnaDesde,
+				entradas, regla.getTabla());
+	}
+
+	/**
+	 * Calcula un bloque de celdas de un array fila a fila de la anchura
+	 * indicada, leyendo de espacio y escribiendo en nuevaRealidad. Las
+	 * vecinas del bloque deben estar en el array (halo o margen).
+	 * Cada byte del índice es vecinas + 16 * estado (como mucho 24), por lo
+	 * que índice ^ entrada no pasa de 31 y al sumarle 0x7F su bit 7 sólo
+	 * queda a 0 si el byte coincide con la entrada.
+	 * @param espacio - la generación actual.
+	 * @param nuevaRealidad - la siguiente generación.
+	 * @param ancho - la distancia entre filas en el array.
+	 * @param primera - la posición de la primera celda del bloque.
+	 * @param filas - el alto del bloque.
+	 * @param columnas - el ancho del bloque.
+	 * @param entradas - las entradas vivas obtenidas con compilarEntradas().
+	 * @param tabla - la tabla de la regla, para las columnas sobrantes.
+	 * @return el número de células del bloque que cambian de estado.
+	 */
+	static int actualizarBloque(ByteBuffer espacio, ByteBuffer nuevaRealidad,
+			int ancho, int primera, int filas, int columnas, long[] entradas, byte[] tabla) {
+		int vectorizadas = columnas & -CARRILES;
+		int cambios = 0;
+
+		for (int i = 0; i < filas; i++) {
+			int celda = primera + i * ancho;
+			int fin = celda + vectorizadas;
+			for (; celda < fin; celda += CARRILES) {
+				int n = celda - ancho;
+				int s = celda + ancho;
+				long vecinas = espacio.getLong(n - 1) + espacio.getLong(n) + espacio.getLong(n + 1)
+						+ espacio.getLong(celda - 1) + espacio.getLong(celda + 1)
+						+ espacio.getLong(s - 1) + espacio.getLong(s) + espacio.getLong(s + 1);
+				long estado = espacio.getLong(celda);
+				long indice = vecinas | (estado << 4);
+				long coincide = 0;
+				for (long entrada : entradas) {
+					coincide |= ~((indice ^ entrada) + SIETES);
+				}
+				long siguiente = (coincide >>> 7) & UNOS;
+				nuevaRealidad.putLong(celda, siguiente);
+				cambios += Long.bitCount(estado ^ siguiente);
+			}
+			// Columnas que no completan un grupo de 8.
+			for (fin = primera + i * ancho + columnas; celda < fin; celda++) {
+				int n = celda - ancho;
+				int s = celda + ancho;
+				int vecinas = espacio.get(n - 1) + espacio.get(n) + espacio.get(n + 1)
+						+ espacio.get(celda - 1) + espacio.get(celda + 1)
+						+ espacio.get(s - 1) + espacio.get(s) + espacio.get(s + 1);
+				int estado = espacio.get(celda);
+				byte siguiente = tabla[estado * 9 + vecinas];
+				nuevaRealidad.put(celda, siguiente);
+				cambios += estado ^ siguiente;
+			}
+		}
+		return cambios;
+	}
+
+	/**
+	 * Obtiene las entradas de la tabla de una regla cuyo resultado es una
+	 * célula viva, repetidas en los 8 bytes de un long.
+	 * @param regla
+	 * @return las entradas: vecinas para nacer, vecinas + 16 para sobrevivir.
+	 */
+	static long[] compilarEntradas(Regla regla) {
+		long[] vivas = new long[18];
+		int n = 0;
+		for (int vecinas = 0; vecinas <= 8; vecinas++) {
+			if (regla.nace(vecinas)) {
+				vivas[n++] = vecinas * UNOS;
+			}
+			if (regla.sobrevive(vecinas)) {
+				vivas[n++] = (vecinas + 16) * UNOS;
+			}
+		}
+		long[] entradas = new long[n];
+		System.arraycopy(vivas, 0, entradas, 0, n);
+		return entradas;
+	}
+
+} //class
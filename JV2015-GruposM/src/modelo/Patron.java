@@ -2,6 +2,13 @@ package modelo;
 /** 
  * Proyecto: Juego de la vida.
  *  Implementa el concepto de Patron de celdas según el modelo2.1
+ *  Dos patrones son iguales si tienen el mismo nombre y el mismo esquema,
+ *  por lo que sirven de clave en la distribución de Mundo; el esquema no
+ *  debe modificarse mientras el patrón es una clave.
+ *  La huella identifica su forma con independencia del nombre, de la
+ *  posición en el esquema y de los giros y reflexiones.
+ *  Guarda la Clasificacion calculada por Clasificador hasta que cambia
+ *  el esquema, de modo que se almacena con el patrón en los DAO.
  *  @since: prototipo2.1
  *  @source: Patron.java 
  *  @version: 1.0 - 20/04/2016
@@ -15,6 +22,9 @@ public class Patron implements Serializable {
 	//Atributos
 	private String nombre;
 	private byte[][] esquema;
+	private long huella;
+	private transient boolean huellaCalculada;
+	private Clasificacion clasificacion;
 	
 	/**
 	 * Constructor convencional.
@@ -51,6 +61,7 @@ public class Patron implements Serializable {
 		for (int i=0; i <p.esquema.length; i++) {
 			this.esquema[i] = Arrays.copyOf(p.esquema[i], p.esquema[i].length);
 		}                                
+		this.clasificacion = p.clasificacion;
 	}
 	
 	 /** Constructor especial.
@@ -108,8 +119,196 @@ public class Patron implements Serializable {
 		else {
 			this.esquema = esquema;
 		}
+		huellaCalculada = false;
+		clasificacion = null;
+	}
+
+	/**
+	 * @return la clasificación guardada; null si no se ha clasificado
+	 * desde el último cambio de esquema.
+	 */
+	public Clasificacion getClasificacion() {
+		return clasificacion;
+	}
+
+	/**
+	 * @param clasificacion the clasificacion to set
+	 */
+	public void setClasificacion(Clasificacion clasificacion) {
+		this.clasificacion = clasificacion;
+	}
+
+	/**
+	 * Obtiene la huella de la forma: un valor de 64 bits que sólo depende de
+	 * las células vivas recortadas al rectángulo que las contiene y que es el
+	 * mismo para los 8 giros y reflexiones. Es el mínimo, entre las 8
+	 * orientaciones, de la combinación de los valores de sus células.
+	 * Se calcula una vez y se guarda hasta el siguiente setEsquema().
+	 * @return la huella; patrones con distinta huella tienen distinta forma.
+	 */
+	public long getHuella() {
+		if (!huellaCalculada) {
+			huella = calcularHuella(obtenerVivas());
+			huellaCalculada = true;
+		}
+		return huella;
+	}
+
+	/**
+	 * Comprueba si otro patrón tiene la misma forma, aunque esté desplazado,
+	 * girado o reflejado en su esquema. Sólo recorre las células cuando las
+	 * huellas coinciden.
+	 * @param otro
+	 * @return true si alguna orientación de este patrón coincide con el otro.
+	 */
+	public boolean mismaForma(Patron otro) {
+		if (getHuella() != otro.getHuella()) {
+			return false;
+		}
+		return coincidenVivas(obtenerVivas(), otro.obtenerVivas());
+	}
+
+	/**
+	 * Calcula la huella de unas células vivas con el formato de obtenerVivas().
+	 * @param vivas
+	 * @return el mínimo, entre las 8 orientaciones, de la combinación de los
+	 * valores de las células.
+	 */
+	static long calcularHuella(int[] vivas) {
+		long minima = Long.MAX_VALUE;
+		for (int orientacion = 0; orientacion < 8; orientacion++) {
+			long huellaOrientacion = 0;
+			for (int k = 2; k < vivas.length; k += 2) {
+				huellaOrientacion ^= DetectorCiclos.zobrist(
+						orientar(orientacion, vivas[k], vivas[k + 1], vivas[0], vivas[1]));
+			}
+			minima = Math.min(minima, huellaOrientacion);
+		}
+		return minima;
+	}
+
+	/**
+	 * Comprueba si alguna orientación de unas células vivas coincide con
+	 * otras, ambas con el formato de obtenerVivas().
+	 * @param vivas
+	 * @param vivasOtro
+	 * @return true si tienen la misma forma.
+	 */
+	static boolean coincidenVivas(int[] vivas, int[] vivasOtro) {
+		if (vivas.length != vivasOtro.length) {
+			return false;
+		}
+		int alto = vivasOtro[0];
+		int ancho = vivasOtro[1];
+		boolean[] rejilla = new boolean[alto * ancho];
+		for (int k = 2; k < vivasOtro.length; k += 2) {
+			rejilla[vivasOtro[k] * ancho + vivasOtro[k + 1]] = true;
+		}
+		for (int orientacion = 0; orientacion < 8; orientacion++) {
+			boolean girado = (orientacion & 4) != 0;
+			if ((girado ? vivas[1] : vivas[0]) != alto
+					|| (girado ? vivas[0] : vivas[1]) != ancho) {
+				continue;
+			}
+			boolean coinciden = true;
+			for (int k = 2; k < vivas.length && coinciden; k += 2) {
+				long celda = orientar(orientacion, vivas[k], vivas[k + 1], vivas[0], vivas[1]);
+				coinciden = rejilla[(int) (celda >>> 32) * ancho + (int) celda];
+			}
+			if (coinciden) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Obtiene las células vivas del esquema relativas al rectángulo que las
+	 * contiene; las filas pueden tener distinta longitud.
+	 * @return el alto y el ancho del rectángulo seguidos de la fila y la
+	 * columna de cada célula; {0, 0} si no hay ninguna.
+	 */
+	int[] obtenerVivas() {
+		int filaMin = Integer.MAX_VALUE;
+		int filaMax = -1;
+		int columnaMin = Integer.MAX_VALUE;
+		int columnaMax = -1;
+		int numVivas = 0;
+		for (int i = 0; i < esquema.length; i++) {
+			for (int j = 0; j < esquema[i].length; j++) {
+				if (esquema[i][j] != 0) {
+					filaMin = Math.min(filaMin, i);
+					filaMax = i;
+					columnaMin = Math.min(columnaMin, j);
+					columnaMax = Math.max(columnaMax, j);
+					numVivas++;
+				}
+			}
+		}
+		if (numVivas == 0) {
+			return new int[] { 0, 0 };
+		}
+		int[] vivas = new int[2 + 2 * numVivas];
+		vivas[0] = filaMax - filaMin + 1;
+		vivas[1] = columnaMax - columnaMin + 1;
+		int k = 2;
+		for (int i = filaMin; i <= filaMax; i++) {
+			for (int j = columnaMin; j < esquema[i].length; j++) {
+				if (esquema[i][j] != 0) {
+					vivas[k++] = i - filaMin;
+					vivas[k++] = j - columnaMin;
+				}
+			}
+		}
+		return vivas;
+	}
+
+	/**
+	 * Aplica a una celda de un rectángulo una de las 8 orientaciones: con el
+	 * bit 4 se traspone y con los bits 1 y 2 se reflejan las filas y las
+	 * columnas; entre todas forman los giros y reflexiones del rectángulo.
+	 * @param orientacion - de 0 a 7.
+	 * @param fila
+	 * @param columna
+	 * @param alto - del rectángulo antes de orientarlo.
+	 * @param ancho - del rectángulo antes de orientarlo.
+	 * @return la fila orientada en los 32 bits altos y la columna en los bajos.
+	 */
+	static long orientar(int orientacion, int fila, int columna, int alto, int ancho) {
+		if ((orientacion & 4) != 0) {
+			int aux = fila;
+			fila = columna;
+			columna = aux;
+			aux = alto;
+			alto = ancho;
+			ancho = aux;
+		}
+		if ((orientacion & 1) != 0) {
+			fila = alto - 1 - fila;
+		}
+		if ((orientacion & 2) != 0) {
+			columna = ancho - 1 - columna;
+		}
+		return ((long) fila << 32) | columna;
 	}
 	
+	@Override
+	public int hashCode() {
+		return 31 * nombre.hashCode() + Arrays.deepHashCode(esquema);
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (obj == null || getClass() != obj.getClass()) {
+			return false;
+		}
+		Patron otro = (Patron) obj;
+		return nombre.equals(otro.nombre) && Arrays.deepEquals(esquema, otro.esquema);
+	}
+
 	@Override
 	public String toString() {
 		return String.format("Patron [nombre=%s, esquema=%s]", nombre,
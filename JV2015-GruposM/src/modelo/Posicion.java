@@ -3,6 +3,8 @@ package modelo;
  * Proyecto: Juego de la vida.
  *  Es un punto del espacio donde se ubica un Patron de celulas, 
  *  según el modelo2.1
+ *  x es la fila e y la columna de la esquina superior izquierda del
+ *  patrón, como en Mundo.getCelda(fila, columna).
  *  @since: prototipo2.1
  *  @source: Posicion.java 
  *  @version: 1.0 - 24/04/2016
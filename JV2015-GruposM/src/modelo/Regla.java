@@ -0,0 +1,197 @@
+package modelo;
+/**
+ * Proyecto: Juego de la vida.
+ *  Representa una regla totalista exterior del tipo B3/S23: las cifras
+ *  tras la B son los números de vecinas con los que nace una célula y
+ *  las cifras tras la S aquellos con los que sobrevive.
+ *  Se almacena como dos máscaras de bits (bit k: k vecinas) y se compila
+ *  una sola vez en una tabla de 18 entradas indexada por
+ *  estado * 9 + vecinas que utilizan los motores de cálculo. La tabla no
+ *  se guarda: se vuelve a compilar al pedirla tras recuperar la regla por
+ *  serialización o con db4o.
+ *  Es inmutable, por lo que puede compartirse entre mundos.
+ *  @since: prototipo2.2
+ *  @source: Regla.java
+ *  @version: 1.0 - 2016/06/20
+ *  @author: ajp
+ */
+
+import java.io.Serializable;
+
+import util.Formato;
+
+public class Regla implements Serializable {
+
+	private static final int MASCARA = (1 << 9) - 1;
+
+	// Reglas conocidas.
+	public static final Regla CONWAY = new Regla("B3/S23");
+	public static final Regla HIGHLIFE = new Regla("B36/S23");
+	public static final Regla SEMILLAS = new Regla("B2/S");
+
+	// Atributos
+	private int nacimiento;
+	private int supervivencia;
+	private transient byte[] tabla;
+
+	/**
+	 * Constructor convencional.
+	 * Recibe las máscaras de nacimiento y supervivencia: el bit k indica
+	 * que la regla se aplica con k vecinas.
+	 * @param nacimiento
+	 * @param supervivencia
+	 */
+	public Regla(int nacimiento, int supervivencia) {
+		this.nacimiento = nacimiento & MASCARA;
+		this.supervivencia = supervivencia & MASCARA;
+		compilar();
+	}
+
+	/**
+	 * Constructor a partir del texto de la regla, p.e. "B36/S23".
+	 * Un texto no válido equivale a B3/S23.
+	 * @param texto
+	 */
+	public Regla(String texto) {
+		assert reglaValida(texto);
+		if (reglaValida(texto)) {
+			String[] partes = texto.toUpperCase().split("/");
+			nacimiento = cifras(partes[0].startsWith("B") ? partes[0] : partes[1]);
+			supervivencia = cifras(partes[0].startsWith("S") ? partes[0] : partes[1]);
+		}
+		else {
+			nacimiento = 1 << 3;
+			supervivencia = (1 << 2) | (1 << 3);
+		}
+		compilar();
+	}
+
+	/**
+	 * Constructor por defecto: B3/S23.
+	 */
+	public Regla() {
+		this("B3/S23");
+	}
+
+	/**
+	 * Constructor copia.
+	 * @param regla
+	 */
+	public Regla(Regla regla) {
+		this(regla.nacimiento, regla.supervivencia);
+	}
+
+	/**
+	 * @return la máscara de números de vecinas con los que nace una célula.
+	 */
+	public int getNacimiento() {
+		return nacimiento;
+	}
+
+	/**
+	 * @return la máscara de números de vecinas con los que sobrevive una célula.
+	 */
+	public int getSupervivencia() {
+		return supervivencia;
+	}
+
+	/**
+	 * @param vecinas - de 0 a 8.
+	 * @return true si una celda vacía con esas vecinas pasa a estar viva.
+	 */
+	public boolean nace(int vecinas) {
+		return (nacimiento >>> vecinas & 1) != 0;
+	}
+
+	/**
+	 * @param vecinas - de 0 a 8.
+	 * @return true si una célula viva con esas vecinas se mantiene.
+	 */
+	public boolean sobrevive(int vecinas) {
+		return (supervivencia >>> vecinas & 1) != 0;
+	}
+
+	/**
+	 * Obtiene la tabla compilada de la regla; no debe modificarse.
+	 * @return el siguiente estado indexado por estado * 9 + vecinas.
+	 */
+	byte[] getTabla() {
+		if (tabla == null) {
+			compilar();
+		}
+		return tabla;
+	}
+
+	/**
+	 * Comprueba la validez del texto de una regla: B y S seguidas de
+	 * cifras de 0 a 8, en cualquier orden, separadas por /.
+	 * @param texto.
+	 * @return true si cumple.
+	 */
+	public static boolean reglaValida(String texto) {
+		return texto != null && Formato.validar(texto.toUpperCase(), Formato.PATRON_REGLA);
+	}
+
+	/**
+	 * Convierte las cifras de una parte de la regla en una máscara.
+	 */
+	private static int cifras(String parte) {
+		int mascara = 0;
+		for (int i = 1; i < parte.length(); i++) {
+			mascara |= 1 << (parte.charAt(i) - '0');
+		}
+		return mascara;
+	}
+
+	/**
+	 * Genera la tabla de 18 entradas a partir de las máscaras.
+	 * Sólo se asigna completa, por lo que otro hilo que la compile a la
+	 * vez obtiene una tabla igual.
+	 */
+	private void compilar() {
+		byte[] compilada = new byte[18];
+		for (int vecinas = 0; vecinas <= 8; vecinas++) {
+			compilada[vecinas] = (byte) (nace(vecinas) ? 1 : 0);
+			compilada[9 + vecinas] = (byte) (sobrevive(vecinas) ? 1 : 0);
+		}
+		tabla = compilada;
+	}
+
+	@Override
+	public int hashCode() {
+		return nacimiento * 512 + supervivencia;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (obj == null || getClass() != obj.getClass()) {
+			return false;
+		}
+		Regla otra = (Regla) obj;
+		return nacimiento == otra.nacimiento && supervivencia == otra.supervivencia;
+	}
+
+	/**
+	 * @return el texto de la regla, p.e. "B3/S23".
+	 */
+	@Override
+	public String toString() {
+		StringBuilder texto = new StringBuilder("B");
+		for (int vecinas = 0; vecinas <= 8; vecinas++) {
+			if (nace(vecinas)) {
+				texto.append(vecinas);
+			}
+		}
+		texto.append("/S");
+		for (int vecinas = 0; vecinas <= 8; vecinas++) {
+			if (sobrevive(vecinas)) {
+				texto.append(vecinas);
+			}
+		}
+		return texto.toString();
+	}
+
+} //class
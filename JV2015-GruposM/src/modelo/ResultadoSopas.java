@@ -0,0 +1,207 @@
+package modelo;
+/**
+ * Proyecto: Juego de la vida.
+ *  Resultado acumulado de una búsqueda de sopas aleatorias: el número de
+ *  sopas, las que no se han estabilizado, las generaciones y el tiempo de
+ *  cálculo sumados, el recuento de objetos por nombre del catálogo y, por
+ *  huella de forma, un representante y las apariciones de cada objeto
+ *  desconocido. Los resultados parciales de cada hilo se combinan entre
+ *  sí en cualquier orden; no es seguro para hilos.
+ *  @since: prototipo2.2
+ *  @source: ResultadoSopas.java
+ *  @version: 1.0 - 2016/07/07
+ *  @author: ajp
+ */
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+public class ResultadoSopas implements Serializable {
+
+	// Atributos
+	private long sopas;
+	private long inestables;
+	private long generaciones;
+	private long nanos;
+	private Map<String, Long> recuento;
+	private Map<Long, Patron> desconocidos;
+	private Map<Long, Long> apariciones;
+
+	/**
+	 * Constructor por defecto: un resultado vacío.
+	 */
+	public ResultadoSopas() {
+		recuento = new TreeMap<String, Long>();
+		desconocidos = new HashMap<Long, Patron>();
+		apariciones = new HashMap<Long, Long>();
+	}
+
+	/**
+	 * @return el número de sopas calculadas.
+	 */
+	public long getSopas() {
+		return sopas;
+	}
+
+	/**
+	 * @return el número de sopas que no se han estabilizado en las
+	 * generaciones máximas; se cuentan igualmente.
+	 */
+	public long getInestables() {
+		return inestables;
+	}
+
+	/**
+	 * @return las generaciones calculadas en todas las sopas.
+	 */
+	public long getGeneraciones() {
+		return generaciones;
+	}
+
+	/**
+	 * @return los nanosegundos de cálculo sumados de todos los hilos.
+	 */
+	public long getNanos() {
+		return nanos;
+	}
+
+	/**
+	 * @return las sopas calculadas por segundo en cada núcleo; 0 si no se
+	 * ha medido tiempo.
+	 */
+	public double getSopasSegundoNucleo() {
+		return (nanos == 0) ? 0 : sopas * 1e9 / nanos;
+	}
+
+	/**
+	 * @return una copia del número de objetos de cada nombre del catálogo,
+	 * y de los que no están en él como Censo.DESCONOCIDO.
+	 */
+	public Map<String, Long> getRecuento() {
+		return new TreeMap<String, Long>(recuento);
+	}
+
+	/**
+	 * @return el número de formas desconocidas distintas.
+	 */
+	public int getNumDesconocidos() {
+		return desconocidos.size();
+	}
+
+	/**
+	 * Obtiene los objetos desconocidos más raros.
+	 * @param maxApariciones - las apariciones a partir de las que un objeto
+	 * deja de ser raro.
+	 * @return un patrón nuevo por cada forma desconocida que ha aparecido
+	 * como mucho maxApariciones veces, las menos frecuentes primero.
+	 */
+	public List<Patron> obtenerRaros(int maxApariciones) {
+		List<Long> huellas = new ArrayList<Long>();
+		for (Map.Entry<Long, Long> entrada : apariciones.entrySet()) {
+			if (entrada.getValue() <= maxApariciones) {
+				huellas.add(entrada.getKey());
+			}
+		}
+		Collections.sort(huellas, new Comparator<Long>() {
+			@Override
+			public int compare(Long h1, Long h2) {
+				int comparacion = apariciones.get(h1).compareTo(apariciones.get(h2));
+				return (comparacion != 0) ? comparacion : h1.compareTo(h2);
+			}
+		});
+		List<Patron> raros = new ArrayList<Patron>();
+		for (Long huella : huellas) {
+			Patron patron = desconocidos.get(huella);
+			raros.add(new Patron(patron.getNombre(), patron.getEsquema()));
+		}
+		return raros;
+	}
+
+	/**
+	 * @param patron - un patrón con la forma de un objeto desconocido.
+	 * @return las veces que ha aparecido su forma.
+	 */
+	public long getApariciones(Patron patron) {
+		Long cuenta = apariciones.get(patron.getHuella());
+		return (cuenta == null) ? 0 : cuenta;
+	}
+
+	/**
+	 * Añade el censo de una sopa.
+	 * @param censo - el recuento devuelto por Censo.contar().
+	 * @param nuevos - los grupos desconocidos recogidos por Censo.contar().
+	 * @param generaciones - las generaciones calculadas.
+	 * @param estabilizada - si ha llegado a estabilizarse.
+	 */
+	void añadirSopa(Map<String, Integer> censo, List<Patron> nuevos, int generaciones,
+			boolean estabilizada) {
+		sopas++;
+		if (!estabilizada) {
+			inestables++;
+		}
+		this.generaciones += generaciones;
+		for (Map.Entry<String, Integer> entrada : censo.entrySet()) {
+			sumar(recuento, entrada.getKey(), entrada.getValue());
+		}
+		for (Patron patron : nuevos) {
+			long huella = patron.getHuella();
+			if (!desconocidos.containsKey(huella)) {
+				desconocidos.put(huella, new Patron(String.format("Sopa%016X", huella),
+						patron.getEsquema()));
+			}
+			sumar(apariciones, huella, 1);
+		}
+	}
+
+	/**
+	 * Añade tiempo de cálculo de un hilo.
+	 * @param nanos
+	 */
+	void añadirNanos(long nanos) {
+		this.nanos += nanos;
+	}
+
+	/**
+	 * Acumula en este resultado otro resultado parcial.
+	 * @param otro - no se modifica.
+	 * @return este resultado.
+	 */
+	public ResultadoSopas combinar(ResultadoSopas otro) {
+		sopas += otro.sopas;
+		inestables += otro.inestables;
+		generaciones += otro.generaciones;
+		nanos += otro.nanos;
+		for (Map.Entry<String, Long> entrada : otro.recuento.entrySet()) {
+			sumar(recuento, entrada.getKey(), entrada.getValue());
+		}
+		for (Map.Entry<Long, Long> entrada : otro.apariciones.entrySet()) {
+			if (!desconocidos.containsKey(entrada.getKey())) {
+				desconocidos.put(entrada.getKey(), otro.desconocidos.get(entrada.getKey()));
+			}
+			sumar(apariciones, entrada.getKey(), entrada.getValue());
+		}
+		return this;
+	}
+
+	private static <K> void sumar(Map<K, Long> mapa, K clave, long cantidad) {
+		Long cuenta = mapa.get(clave);
+		mapa.put(clave, (cuenta == null) ? cantidad : cuenta + cantidad);
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return String.format("ResultadoSopas [sopas=%d, inestables=%d, generaciones=%d, "
+				+ "sopas/s/núcleo=%.1f, desconocidos=%d, recuento=%s]", sopas, inestables,
+				generaciones, getSopasSegundoNucleo(), desconocidos.size(), recuento);
+	}
+
+} //class
@@ -9,7 +9,10 @@ package modelo;
  *  @author: ajp
  */
 
+import java.io.File;
+import java.io.IOException;
 import java.io.Serializable;
+import java.io.UncheckedIOException;
 import java.util.Hashtable;
 import java.util.Map;
 
@@ -21,11 +24,16 @@ public class Simulacion implements Serializable {
 		PREPARADA, INICIADA, COMPLETADA
 	}
 	
+	public enum MotorSimulacion  {
+		ESTANDAR, COMPACTO, PARALELO, HASHLIFE, DISPERSO, ILIMITADO, VECTORIAL, TESELADO, INCREMENTAL, DIRECTO, MAPEADO
+	}
+	
 	//Atributos
 	private Usuario usr;
 	private Fecha fecha;
 	private Mundo mundo;
 	private EstadoSimulacion estado;
+	private int periodo;					// 0 si no se ha detectado
 
 	/**
 	 * Constructor convencional.
@@ -64,6 +72,7 @@ public class Simulacion implements Serializable {
 	 */
 	public Simulacion(Simulacion s) {
 		this(s.usr, new Fecha(s.fecha), new Mundo(s.mundo), s.estado);
+		setPeriodo(s.periodo);
 	}
 	
 	public Usuario getUsr() {
@@ -82,6 +91,52 @@ public class Simulacion implements Serializable {
 		return estado;
 	}
 
+	/**
+	 * @return el periodo con el que se repite el mundo al completarse la
+	 * simulación: 1 estado fijo, p oscilación de periodo p, 0 no detectado.
+	 */
+	public int getPeriodo() {
+		return periodo;
+	}
+
+	/**
+	 * Obtiene el motor de cálculo según la representación del mundo.
+	 * @return el motor.
+	 */
+	public MotorSimulacion getMotor() {
+		if (mundo instanceof MundoHashLife) {
+			return MotorSimulacion.HASHLIFE;
+		}
+		if (mundo instanceof MundoIlimitado) {
+			return MotorSimulacion.ILIMITADO;
+		}
+		if (mundo instanceof MundoDisperso) {
+			return MotorSimulacion.DISPERSO;
+		}
+		if (mundo instanceof MundoMapeado) {
+			return MotorSimulacion.MAPEADO;
+		}
+		if (mundo instanceof MundoDirecto) {
+			return MotorSimulacion.DIRECTO;
+		}
+		if (mundo instanceof MundoIncremental) {
+			return MotorSimulacion.INCREMENTAL;
+		}
+		if (mundo instanceof MundoTeselado) {
+			return MotorSimulacion.TESELADO;
+		}
+		if (mundo instanceof MundoVectorial) {
+			return MotorSimulacion.VECTORIAL;
+		}
+		if (mundo instanceof MundoParalelo) {
+			return MotorSimulacion.PARALELO;
+		}
+		if (mundo instanceof MundoCompacto) {
+			return MotorSimulacion.COMPACTO;
+		}
+		return MotorSimulacion.ESTANDAR;
+	}
+
 	/**
 	 * Obtiene idSesion concatenando idUsr + un número como texto con el formato:
 	 * año+mes+dia+hora+minuto de la fecha de sesión.
@@ -108,11 +163,107 @@ public class Simulacion implements Serializable {
 		this.estado = estado;
 	}
 
+	/**
+	 * @param periodo - 0 si no se ha detectado.
+	 */
+	public void setPeriodo(int periodo) {
+		assert periodo >= 0;
+		this.periodo = periodo;
+	}
+
+	/**
+	 * Selecciona el motor de cálculo de la simulación convirtiendo 
+	 * el mundo actual a la representación correspondiente.
+	 * Al dejar HASHLIFE o ILIMITADO sólo se conserva la ventana del espacio
+	 * y al dejar DIRECTO o MAPEADO se libera el almacenamiento fuera del heap.
+	 * MAPEADO utiliza un fichero temporal que se borra al terminar el programa.
+	 * @param motor - el motor a utilizar.
+	 * @throws UnsupportedOperationException - HASHLIFE o ILIMITADO con un mundo
+	 * toroidal o de Klein.
+	 * @throws UncheckedIOException - si no se puede crear el fichero de MAPEADO.
+	 */
+	public void setMotor(MotorSimulacion motor) {
+		setMotor(motor, null);
+	}
+
+	/**
+	 * Selecciona el motor de cálculo como setMotor(motor); con MAPEADO las
+	 * celdas se guardan en el fichero recibido, que se sobrescribe.
+	 * @param motor - el motor a utilizar.
+	 * @param fichero - el fichero de MAPEADO; null utiliza uno temporal.
+	 * @throws UnsupportedOperationException - HASHLIFE o ILIMITADO con un mundo
+	 * toroidal o de Klein.
+	 * @throws UncheckedIOException - si no se puede crear el fichero de MAPEADO.
+	 */
+	public void setMotor(MotorSimulacion motor, File fichero) {
+		if (motor == getMotor()) {
+			return;
+		}
+		Mundo anterior = mundo;
+		switch (motor) {
+		case COMPACTO:
+			mundo = new MundoCompacto(mundo);
+			break;
+		case PARALELO:
+			mundo = new MundoParalelo(mundo);
+			break;
+		case HASHLIFE:
+			mundo = new MundoHashLife(mundo);
+			break;
+		case DISPERSO:
+			mundo = new MundoDisperso(mundo);
+			break;
+		case ILIMITADO:
+			mundo = new MundoIlimitado(mundo);
+			break;
+		case VECTORIAL:
+			mundo = new MundoVectorial(mundo);
+			break;
+		case TESELADO:
+			mundo = new MundoTeselado(mundo);
+			break;
+		case INCREMENTAL:
+			mundo = new MundoIncremental(mundo);
+			break;
+		case DIRECTO:
+			mundo = new MundoDirecto(mundo);
+			break;
+		case MAPEADO:
+			if (fichero == null) {
+				try {
+					fichero = File.createTempFile("simulacion", ".jvm");
+				}
+				catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+				fichero.deleteOnExit();
+			}
+			mundo = new MundoMapeado(mundo, fichero);
+			break;
+		default:
+			mundo = new Mundo(mundo);
+		}
+		if (anterior instanceof MundoDirecto) {
+			((MundoDirecto) anterior).liberar();
+		}
+	}
+
+	/**
+	 * Libera el almacenamiento fuera del heap del mundo, si lo tiene.
+	 * Debe llamarse cuando la simulación deja de utilizarse; el mundo
+	 * no puede utilizarse después.
+	 */
+	public void liberar() {
+		if (mundo instanceof MundoDirecto) {
+			((MundoDirecto) mundo).liberar();
+		}
+	}
+
 	@Override
 	public String toString() {
 		return String.format(
-				"Simulacion [usr=%s, fecha=%s, mundo=%s, estado=%s]", usr,
-				fecha, mundo, estado);
+				"Simulacion [usr=%s, fecha=%s, mundo=%s, estado=%s, periodo=%d]", usr,
+				fecha, mundo, estado, periodo);
 	}
 	
 } //class
@@ -0,0 +1,75 @@
+package modelo.test;
+/**
+ * Proyecto: Juego de la vida.
+ *  Clase JUnit 4 para pruebas de BusquedaSopas y ResultadoSopas.
+ *  @since: prototipo2.2
+ *  @source: BusquedaSopasTest.java
+ *  @version: 1.0 - 2016/07/07
+ *  @author: ajp
+ */
+import static org.junit.Assert.*;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import modelo.BusquedaSopas;
+import modelo.Censo;
+import modelo.Patron;
+import modelo.Regla;
+import modelo.ResultadoSopas;
+
+public class BusquedaSopasTest {
+
+	private BusquedaSopas crear(long semilla) {
+		return new BusquedaSopas(semilla, 8, Regla.CONWAY, Censo.obtenerPredeterminados());
+	}
+
+	@Test
+	public void testDeterminista() {
+		ResultadoSopas resultado1 = crear(2016).buscar(300);
+		ResultadoSopas resultado2 = crear(2016).buscar(300);
+		assertEquals(300, resultado1.getSopas());
+		assertEquals(resultado1.getGeneraciones(), resultado2.getGeneraciones());
+		assertEquals(resultado1.getRecuento(), resultado2.getRecuento());
+		assertEquals(resultado1.getNumDesconocidos(), resultado2.getNumDesconocidos());
+		assertTrue(resultado1.getRecuento().get("Bloque") > 0);
+		assertTrue(resultado1.getSopasSegundoNucleo() > 0);
+	}
+
+	@Test
+	public void testCombinar() {
+		BusquedaSopas busqueda = crear(7);
+		ResultadoSopas primero = busqueda.buscar(100);
+		ResultadoSopas segundo = busqueda.buscar(150);
+		Map<String, Long> recuento1 = primero.getRecuento();
+		Map<String, Long> recuento2 = segundo.getRecuento();
+		long generaciones = primero.getGeneraciones() + segundo.getGeneraciones();
+		primero.combinar(segundo);
+		assertEquals(250, primero.getSopas());
+		assertEquals(generaciones, primero.getGeneraciones());
+		for (Map.Entry<String, Long> entrada : primero.getRecuento().entrySet()) {
+			long esperado = 0;
+			if (recuento1.containsKey(entrada.getKey())) {
+				esperado += recuento1.get(entrada.getKey());
+			}
+			if (recuento2.containsKey(entrada.getKey())) {
+				esperado += recuento2.get(entrada.getKey());
+			}
+			assertEquals(esperado, (long) entrada.getValue());
+		}
+		// Los raros van de menos a más frecuentes y no están en el catálogo.
+		List<Patron> raros = primero.obtenerRaros(Integer.MAX_VALUE);
+		assertEquals(primero.getNumDesconocidos(), raros.size());
+		for (int k = 1; k < raros.size(); k++) {
+			assertTrue(primero.getApariciones(raros.get(k - 1)) <= primero.getApariciones(raros.get(k)));
+		}
+		for (Patron raro : raros) {
+			for (Patron conocido : Censo.obtenerPredeterminados()) {
+				assertFalse(raro.mismaForma(conocido));
+			}
+		}
+	}
+
+} //class
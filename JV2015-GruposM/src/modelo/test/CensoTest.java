@@ -0,0 +1,110 @@
+package modelo.test;
+/**
+ * Proyecto: Juego de la vida.
+ *  Clase JUnit 4 para pruebas de Censo.
+ *  @since: prototipo2.2
+ *  @source: CensoTest.java
+ *  @version: 1.0 - 2016/07/04
+ *  @author: ajp
+ */
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import modelo.Censo;
+import modelo.Mundo;
+import modelo.MundoCompacto;
+import modelo.MundoIlimitado;
+import modelo.Patron;
+
+public class CensoTest {
+
+	private void colocar(Mundo mundo, int fila, int columna, byte[][] esquema) {
+		for (int i = 0; i < esquema.length; i++) {
+			for (int j = 0; j < esquema[i].length; j++) {
+				if (esquema[i][j] != 0) {
+					mundo.setCelda(fila + i, columna + j, (byte) 1);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testObjetosComunes() {
+		Mundo mundo = new MundoCompacto("Censo", null, null, 40, 40);
+		colocar(mundo, 2, 2, new byte[][] { { 1, 1 }, { 1, 1 } });
+		colocar(mundo, 2, 30, new byte[][] { { 1, 1, 1 } });
+		colocar(mundo, 10, 2, new byte[][] { { 0, 1, 0 }, { 0, 0, 1 }, { 1, 1, 1 } });
+		colocar(mundo, 25, 5, new byte[][] {
+			{ 0, 1, 0, 0, 1 },
+			{ 1, 0, 0, 0, 0 },
+			{ 1, 0, 0, 0, 1 },
+			{ 1, 1, 1, 1, 0 } });
+		Censo censo = new Censo();
+		assertEquals(2, censo.getAlcance());
+		// Todas las fases del planeador y de la nave se reconocen.
+		for (int gen = 0; gen < 4; gen++) {
+			Map<String, Integer> recuento = censo.contar(mundo);
+			assertEquals(Integer.valueOf(1), recuento.get("Bloque"));
+			assertEquals(Integer.valueOf(1), recuento.get("Parpadeador"));
+			assertEquals(Integer.valueOf(1), recuento.get("Planeador"));
+			assertEquals(Integer.valueOf(1), recuento.get("Nave ligera"));
+			assertNull(recuento.get(Censo.DESCONOCIDO));
+			mundo.actualizarEstado();
+		}
+	}
+
+	@Test
+	public void testToroidal() {
+		Mundo mundo = new Mundo("Censo", null, null, 10, 10);
+		mundo.setTopologia(Mundo.Topologia.TOROIDAL);
+		// Bloque repartido entre las cuatro esquinas.
+		mundo.setCelda(0, 0, (byte) 1);
+		mundo.setCelda(0, 9, (byte) 1);
+		mundo.setCelda(9, 0, (byte) 1);
+		mundo.setCelda(9, 9, (byte) 1);
+		Map<String, Integer> recuento = new Censo().contar(mundo);
+		assertEquals(Integer.valueOf(1), recuento.get("Bloque"));
+		assertEquals(1, recuento.size());
+	}
+
+	@Test
+	public void testCatalogo() {
+		Patron ele = new Patron("Ele", new byte[][] { { 1, 0 }, { 1, 1 } });
+		Censo censo = new Censo(Arrays.asList(ele));
+		assertEquals(1, censo.getAlcance());
+		Mundo mundo = new Mundo("Censo", null, null, 12, 12);
+		colocar(mundo, 1, 1, new byte[][] { { 1, 1 }, { 0, 1 } });
+		colocar(mundo, 6, 6, new byte[][] { { 1, 1 }, { 1, 1 } });
+		Map<String, Integer> recuento = censo.contar(mundo);
+		assertEquals(Integer.valueOf(1), recuento.get("Ele"));
+		assertEquals(Integer.valueOf(1), recuento.get(Censo.DESCONOCIDO));
+	}
+
+	@Test
+	public void testIlimitado() {
+		MundoIlimitado mundo = new MundoIlimitado("Censo", null, null, 8, 8);
+		colocar(mundo, 0, 0, new byte[][] { { 0, 1, 0 }, { 0, 0, 1 }, { 1, 1, 1 } });
+		colocar(mundo, 0, 6, new byte[][] { { 1, 1 }, { 1, 0 } });
+		// El planeador sale de la ventana y se sigue contando.
+		mundo.avanzar(400);
+		List<Patron> desconocidos = new ArrayList<Patron>();
+		Map<String, Integer> recuento = new Censo().contar(mundo, desconocidos);
+		assertEquals(Integer.valueOf(1), recuento.get("Planeador"));
+		assertEquals(Integer.valueOf(1), recuento.get("Bloque"));
+		assertEquals(2, recuento.size());
+		assertTrue(desconocidos.isEmpty());
+		mundo.setCelda(-50, -50, (byte) 1);
+		mundo.setCelda(-50, -49, (byte) 1);
+		recuento = new Censo().contar(mundo, desconocidos);
+		assertEquals(Integer.valueOf(1), recuento.get(Censo.DESCONOCIDO));
+		assertEquals(1, desconocidos.size());
+		assertArrayEquals(new byte[][] { { 1, 1 } }, desconocidos.get(0).getEsquema());
+	}
+
+} //class
@@ -0,0 +1,107 @@
+package modelo.test;
+/**
+ * Proyecto: Juego de la vida.
+ *  Clase JUnit 4 para pruebas de Clasificador.
+ *  @since: prototipo2.2
+ *  @source: ClasificadorTest.java
+ *  @version: 1.0 - 2016/07/06
+ *  @author: ajp
+ */
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import modelo.Clasificacion;
+import modelo.Clasificador;
+import modelo.Patron;
+import modelo.Regla;
+
+public class ClasificadorTest {
+
+	private Clasificador clasificador = new Clasificador(Regla.CONWAY, 512, 2000);
+
+	@Test
+	public void testEstableYOscilador() {
+		Clasificacion bloque = clasificador.clasificar(
+				new Patron("Bloque", new byte[][] { { 1, 1 }, { 1, 1 } }));
+		assertEquals(Clasificacion.Destino.ESTABLE, bloque.getDestino());
+		assertEquals(1, bloque.getPeriodo());
+		Clasificacion parpadeador = clasificador.clasificar(
+				new Patron("Parpadeador", new byte[][] { { 1, 1, 1 } }));
+		assertEquals(Clasificacion.Destino.OSCILADOR, parpadeador.getDestino());
+		assertEquals(2, parpadeador.getPeriodo());
+		assertEquals(0, parpadeador.getGeneraciones());
+	}
+
+	@Test
+	public void testNaves() {
+		Clasificacion planeador = clasificador.clasificar(
+				new Patron("Planeador", new byte[][] { { 0, 1, 0 }, { 0, 0, 1 }, { 1, 1, 1 } }));
+		assertEquals(Clasificacion.Destino.NAVE, planeador.getDestino());
+		assertEquals(4, planeador.getPeriodo());
+		assertEquals(1, planeador.getDesplazamientoFilas());
+		assertEquals(1, planeador.getDesplazamientoColumnas());
+		Clasificacion naveLigera = clasificador.clasificar(new Patron("Nave ligera", new byte[][] {
+			{ 0, 1, 0, 0, 1 },
+			{ 1, 0, 0, 0, 0 },
+			{ 1, 0, 0, 0, 1 },
+			{ 1, 1, 1, 1, 0 } }));
+		assertEquals(Clasificacion.Destino.NAVE, naveLigera.getDestino());
+		assertEquals(4, naveLigera.getPeriodo());
+		assertEquals(0, naveLigera.getDesplazamientoFilas());
+		assertEquals(-2, naveLigera.getDesplazamientoColumnas());
+	}
+
+	@Test
+	public void testMuereYCrece() {
+		Clasificacion celula = clasificador.clasificar(new Patron("Celula", new byte[][] { { 1 } }));
+		assertEquals(Clasificacion.Destino.MUERE, celula.getDestino());
+		assertEquals(1, celula.getGeneraciones());
+		// El cañón de planeadores de Gosper crece sin límite.
+		Patron cañon = new Patron("Gosper", new byte[][] {
+			"000000000000000000000000100000000000".getBytes(),
+			"000000000000000000000010100000000000".getBytes(),
+			"000000000000110000001100000000000011".getBytes(),
+			"000000000001000100001100000000000011".getBytes(),
+			"110000000010000010001100000000000000".getBytes(),
+			"110000000010001011000010100000000000".getBytes(),
+			"000000000010000010000000100000000000".getBytes(),
+			"000000000001000100000000000000000000".getBytes(),
+			"000000000000110000000000000000000000".getBytes() });
+		for (byte[] fila : cañon.getEsquema()) {
+			for (int j = 0; j < fila.length; j++) {
+				fila[j] -= '0';
+			}
+		}
+		assertEquals(Clasificacion.Destino.CRECE, new Clasificador(Regla.CONWAY, 512, 100)
+				.clasificar(cañon).getDestino());
+		assertEquals(Clasificacion.Destino.INDETERMINADO, new Clasificador(Regla.CONWAY, 20, 2000)
+				.clasificar(new Patron("Gosper", cañon.getEsquema())).getDestino());
+	}
+
+	@Test
+	public void testCache() {
+		Patron bloque = new Patron("Bloque", new byte[][] { { 1, 1 }, { 1, 1 } });
+		Patron parpadeador = new Patron("Parpadeador", new byte[][] { { 1, 1, 1 } });
+		List<Patron> clasificados = clasificador.clasificarTodos(Arrays.asList(bloque, parpadeador));
+		assertEquals(2, clasificados.size());
+		Clasificacion clasificacion = bloque.getClasificacion();
+		assertNotNull(clasificacion);
+		assertSame(clasificacion, clasificador.clasificar(bloque));
+		assertTrue(clasificador.clasificarTodos(Arrays.asList(bloque, parpadeador)).isEmpty());
+		// Otra regla o un esquema nuevo obligan a clasificar de nuevo.
+		assertEquals(1, new Clasificador(Regla.HIGHLIFE, 512, 2000)
+				.clasificarTodos(Arrays.asList(bloque)).size());
+		parpadeador.setEsquema(new byte[][] { { 1 } });
+		assertNull(parpadeador.getClasificacion());
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void testReglaB0() {
+		new Clasificador(new Regla("B03/S23"), 512, 2000);
+	}
+
+} //class
@@ -0,0 +1,124 @@
+package modelo.test;
+/**
+ * Proyecto: Juego de la vida.
+ *  Clase JUnit 4 para pruebas de DetectorCiclos.
+ *  @since: prototipo2.2
+ *  @source: DetectorCiclosTest.java
+ *  @version: 1.0 - 2016/06/24
+ *  @author: ajp
+ */
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import modelo.DetectorCiclos;
+import modelo.Mundo;
+import modelo.MundoCompacto;
+
+public class DetectorCiclosTest {
+
+	/**
+	 * Avanza el mundo hasta detectar un periodo o agotar las generaciones.
+	 * @return el periodo detectado o 0.
+	 */
+	private int buscarPeriodo(Mundo mundo, DetectorCiclos detector, int generaciones) {
+		detector.registrar(mundo);
+		for (int gen = 0; gen < generaciones; gen++) {
+			mundo.actualizarEstado();
+			int periodo = detector.registrar(mundo);
+			if (periodo > 0) {
+				return periodo;
+			}
+		}
+		return 0;
+	}
+
+	@Test
+	public void testEstadoFijo() {
+		Mundo mundo = new Mundo("Bloque", null, null, 6, 6);
+		mundo.setCelda(2, 2, (byte) 1);
+		mundo.setCelda(2, 3, (byte) 1);
+		mundo.setCelda(3, 2, (byte) 1);
+		mundo.setCelda(3, 3, (byte) 1);
+		assertEquals(1, buscarPeriodo(mundo, new DetectorCiclos(16), 10));
+	}
+
+	@Test
+	public void testIntermitente() {
+		Mundo mundo = new MundoCompacto("Intermitente", null, null, 7, 9);
+		mundo.setCelda(3, 3, (byte) 1);
+		mundo.setCelda(3, 4, (byte) 1);
+		mundo.setCelda(3, 5, (byte) 1);
+		assertEquals(2, buscarPeriodo(mundo, new DetectorCiclos(16), 10));
+	}
+
+	@Test
+	public void testPlaneadorToroidal() {
+		// En un toro de 8x8 el planeador vuelve a su posición cada 32 generaciones.
+		Mundo mundo = new Mundo("Planeador", null, null, 8, 8);
+		mundo.setTopologia(Mundo.Topologia.TOROIDAL);
+		mundo.setCelda(0, 1, (byte) 1);
+		mundo.setCelda(1, 2, (byte) 1);
+		mundo.setCelda(2, 0, (byte) 1);
+		mundo.setCelda(2, 1, (byte) 1);
+		mundo.setCelda(2, 2, (byte) 1);
+		assertEquals(0, buscarPeriodo(mundo, new DetectorCiclos(16), 100));
+		assertEquals(32, buscarPeriodo(mundo, new DetectorCiclos(64), 100));
+	}
+
+	@Test
+	public void testColision() {
+		// Un conjunto de celdas cuyo hash es 0, el del mundo vacío, obtenido
+		// por eliminación gaussiana de los valores de las 256 celdas.
+		long[] base = new long[64];
+		long[][] combinaciones = new long[64][];
+		long[] conjunto = null;
+		for (int celda = 0; celda < 256 && conjunto == null; celda++) {
+			long valor = zobrist(celda);
+			long[] combinacion = new long[4];
+			combinacion[celda >>> 6] |= 1L << celda;
+			for (int bit = 63; bit >= 0 && valor != 0; bit--) {
+				if ((valor >>> bit & 1) == 0) {
+					continue;
+				}
+				if (base[bit] == 0) {
+					base[bit] = valor;
+					combinaciones[bit] = combinacion;
+					valor = -1;
+					break;
+				}
+				valor ^= base[bit];
+				for (int w = 0; w < 4; w++) {
+					combinacion[w] ^= combinaciones[bit][w];
+				}
+			}
+			if (valor == 0) {
+				conjunto = combinacion;
+			}
+		}
+		assertNotNull(conjunto);
+		Mundo mundo = new Mundo("Colision", null, null, 16, 16);
+		DetectorCiclos detector = new DetectorCiclos(16);
+		detector.registrar(mundo);
+		for (int celda = 0; celda < 256; celda++) {
+			if ((conjunto[celda >>> 6] >>> celda & 1) != 0) {
+				mundo.setCelda(celda / 16, celda % 16, (byte) 1);
+			}
+		}
+		// Mismo hash, distinto estado: no es un estado fijo.
+		assertEquals(0, detector.registrar(mundo));
+		assertEquals(0, detector.getHash());
+		assertEquals(1, detector.registrar(mundo));
+	}
+
+	/**
+	 * La función de mezcla splitmix64 de DetectorCiclos.
+	 */
+	private static long zobrist(long posicion) {
+		long z = (posicion + 1) * 0x9E3779B97F4A7C15L;
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+
+}
@@ -0,0 +1,102 @@
+package modelo.test;
+/**
+ * Proyecto: Juego de la vida.
+ *  Clase JUnit 4 para pruebas de MotorLotes.
+ *  @since: prototipo2.2
+ *  @source: MotorLotesTest.java
+ *  @version: 1.0 - 2016/06/26
+ *  @author: ajp
+ */
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import modelo.MotorLotes;
+import modelo.Mundo;
+import modelo.MundoCompacto;
+import modelo.Estadisticas;
+import modelo.MundoHashLife;
+import modelo.MundoIncremental;
+import modelo.Regla;
+import modelo.Simulacion;
+import modelo.Simulacion.EstadoSimulacion;
+import util.Fecha;
+
+public class MotorLotesTest {
+
+	@Test
+	public void testAvanzar() {
+		// 150 mundos: más de un lote por grupo, dos tamaños, tres reglas,
+		// tres topologías y motores distintos.
+		Random aleatorio = new Random(2016);
+		Regla[] reglas = { Regla.CONWAY, Regla.HIGHLIFE, Regla.SEMILLAS };
+		List<Simulacion> simulaciones = new ArrayList<Simulacion>();
+		List<Mundo> esperados = new ArrayList<Mundo>();
+		for (int n = 0; n < 150; n++) {
+			int lado = (n % 2 == 0) ? 12 : 20;
+			Mundo mundo = (n % 5 == 0) ? new MundoCompacto("Lote", null, null, lado, lado)
+					: new Mundo("Lote", null, null, lado, lado);
+			for (int i = 0; i < lado; i++) {
+				for (int j = 0; j < lado; j++) {
+					mundo.setCelda(i, j, (byte) (aleatorio.nextInt(3) == 0 ? 1 : 0));
+				}
+			}
+			mundo.setRegla(reglas[n % 3]);
+			mundo.setTopologia(Mundo.Topologia.values()[(n / 3) % 3]);
+			if (n == 149) {
+				mundo.setTopologia(Mundo.Topologia.LIMITADA);
+				mundo = new MundoHashLife(mundo);
+			}
+			esperados.add(new Mundo(mundo));
+			simulaciones.add(new Simulacion(null, new Fecha(), mundo,
+					EstadoSimulacion.PREPARADA));
+		}
+		MotorLotes.avanzar(simulaciones, 30);
+		for (int n = 0; n < 150; n++) {
+			Mundo esperado = esperados.get(n);
+			if (n == 149) {
+				// HashLife no está limitado a su ventana: se compara con él mismo.
+				esperado = new MundoHashLife(esperado).avanzar(30);
+			}
+			else {
+				esperado.avanzar(30);
+			}
+			assertArrayEquals(esperado.copiarCeldas(null),
+					simulaciones.get(n).getMundo().copiarCeldas(null));
+		}
+	}
+
+	@Test
+	public void testEstadisticas() {
+		// Los nacimientos y muertes de la última generación deben coincidir
+		// con los de un mundo avanzado por su cuenta.
+		Random aleatorio = new Random(26);
+		List<Simulacion> simulaciones = new ArrayList<Simulacion>();
+		List<Mundo> esperados = new ArrayList<Mundo>();
+		for (int n = 0; n < 10; n++) {
+			Mundo mundo = (n % 2 == 0) ? new Mundo("Lote", null, null, 16, 16)
+					: new MundoIncremental("Lote", null, null, 16, 16);
+			for (int i = 0; i < 16; i++) {
+				for (int j = 0; j < 16; j++) {
+					mundo.setCelda(i, j, (byte) (aleatorio.nextInt(3) == 0 ? 1 : 0));
+				}
+			}
+			esperados.add(new Mundo(mundo));
+			simulaciones.add(new Simulacion(null, new Fecha(), mundo,
+					EstadoSimulacion.PREPARADA));
+		}
+		MotorLotes.avanzar(simulaciones, 5);
+		for (int n = 0; n < 10; n++) {
+			Estadisticas esperadas = esperados.get(n).avanzar(5).getEstadisticas();
+			Estadisticas obtenidas = simulaciones.get(n).getMundo().getEstadisticas();
+			assertEquals(esperadas.getPoblacion(), obtenidas.getPoblacion());
+			assertEquals(esperadas.getNacimientos(), obtenidas.getNacimientos());
+			assertEquals(esperadas.getMuertes(), obtenidas.getMuertes());
+		}
+	}
+
+}
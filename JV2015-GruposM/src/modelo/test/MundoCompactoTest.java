@@ -0,0 +1,120 @@
+package modelo.test;
+/**
+ * Proyecto: Juego de la vida.
+ *  Clase JUnit 4 para pruebas de MundoCompacto.
+ *  @since: prototipo2.2
+ *  @source: MundoCompactoTest.java
+ *  @version: 1.0 - 2016/06/10
+ *  @author: ajp
+ */
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Hashtable;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import modelo.Mundo;
+import modelo.MundoCompacto;
+import modelo.Patron;
+import modelo.Posicion;
+
+public class MundoCompactoTest {
+	private byte[][] espacioPrueba;
+	private MundoCompacto mundo1;
+
+	@Before
+	public void crearObjetosPrueba() {
+		espacioPrueba = new byte[][]{
+			{ 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0 },
+			{ 0, 0, 1, 0, 0, 0, 0, 0, 0, 0, 0, 0 },
+			{ 0, 0, 0, 1, 0, 0, 0, 0, 1, 1, 1, 0 },
+			{ 0, 1, 1, 1, 0, 0, 0, 0, 0, 0, 0, 0 },
+			{ 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0 },
+			{ 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0 },
+			{ 0, 0, 0, 0, 0, 1, 1, 1, 0, 0, 0, 0 },
+			{ 0, 0, 0, 0, 0, 1, 0, 1, 0, 0, 0, 0 },
+			{ 0, 0, 0, 0, 0, 1, 1, 1, 0, 0, 0, 0 },
+			{ 0, 1, 1, 0, 0, 0, 0, 0, 0, 0, 0, 0 },
+			{ 0, 1, 1, 0, 0, 0, 0, 0, 0, 0, 0, 0 },
+			{ 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0 }
+		};
+		mundo1 = new MundoCompacto("Prueba0", new ArrayList<Integer>(),
+				new Hashtable<Patron,Posicion>(), espacioPrueba);
+	}
+
+	@After
+	public void borrarObjetosPrueba() {
+		mundo1 = null;
+	}
+
+	@Test
+	public void testGetEspacio() {
+		assertArrayEquals(espacioPrueba, mundo1.getEspacio());
+	}
+
+	@Test
+	public void testMundoCopia() {
+		MundoCompacto mundo2 = new MundoCompacto(mundo1);
+		mundo1.actualizarEstado();
+		assertArrayEquals(espacioPrueba, mundo2.getEspacio());
+	}
+
+	@Test
+	public void testActualizarEstado() {
+		for (int gen = 0; gen < 30; gen++) {
+			mundo1.actualizarEstado();
+			espacioPrueba = generacionReferencia(espacioPrueba);
+			assertArrayEquals(espacioPrueba, mundo1.getEspacio());
+		}
+	}
+
+	@Test
+	public void testActualizarEstadoVariasPalabras() {
+		// Filas de 150 columnas: tres palabras con la última incompleta.
+		byte[][] espacio = new byte[40][150];
+		Random aleatorio = new Random(2016);
+		for (int i = 0; i < espacio.length; i++) {
+			for (int j = 0; j < espacio[i].length; j++) {
+				espacio[i][j] = (byte) (aleatorio.nextInt(3) == 0 ? 1 : 0);
+			}
+		}
+		Mundo mundo2 = new MundoCompacto("Prueba1", null, null, espacio);
+		for (int gen = 0; gen < 20; gen++) {
+			mundo2.actualizarEstado();
+			espacio = generacionReferencia(espacio);
+			assertArrayEquals(espacio, mundo2.getEspacio());
+		}
+	}
+
+	/**
+	 * Cálculo directo de una generación B3/S23 con las celdas exteriores vacías.
+	 */
+	private static byte[][] generacionReferencia(byte[][] espacio) {
+		int filas = espacio.length;
+		int columnas = espacio[0].length;
+		byte[][] nuevo = new byte[filas][columnas];
+		for (int i = 0; i < filas; i++) {
+			for (int j = 0; j < columnas; j++) {
+				int vecinas = 0;
+				for (int di = -1; di <= 1; di++) {
+					for (int dj = -1; dj <= 1; dj++) {
+						int f = i + di;
+						int c = j + dj;
+						if ((di != 0 || dj != 0) && f >= 0 && f < filas && c >= 0 && c < columnas) {
+							vecinas += espacio[f][c];
+						}
+					}
+				}
+				if (vecinas == 3 || (vecinas == 2 && espacio[i][j] == 1)) {
+					nuevo[i][j] = 1;
+				}
+			}
+		}
+		return nuevo;
+	}
+
+}
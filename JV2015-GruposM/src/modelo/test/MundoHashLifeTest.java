@@ -0,0 +1,111 @@
+package modelo.test;
+/**
+ * Proyecto: Juego de la vida.
+ *  Clase JUnit 4 para pruebas de MundoHashLife.
+ *  @since: prototipo2.2
+ *  @source: MundoHashLifeTest.java
+ *  @version: 1.0 - 2016/06/14
+ *  @author: ajp
+ */
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Hashtable;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import modelo.Mundo;
+import modelo.MundoCompacto;
+import modelo.MundoHashLife;
+import modelo.Patron;
+import modelo.Posicion;
+
+public class MundoHashLifeTest {
+	private byte[][] espacioPrueba;
+
+	@Before
+	public void crearObjetosPrueba() {
+		// Sopa aleatoria de 24x24 en el centro de un espacio de 160x160.
+		espacioPrueba = new byte[160][160];
+		Random aleatorio = new Random(2016);
+		for (int i = 68; i < 92; i++) {
+			for (int j = 68; j < 92; j++) {
+				espacioPrueba[i][j] = (byte) (aleatorio.nextBoolean() ? 1 : 0);
+			}
+		}
+	}
+
+	@After
+	public void borrarObjetosPrueba() {
+		espacioPrueba = null;
+	}
+
+	@Test
+	public void testGetEspacio() {
+		Mundo mundo = new MundoHashLife("Prueba0", new ArrayList<Integer>(),
+				new Hashtable<Patron,Posicion>(), espacioPrueba);
+		assertArrayEquals(espacioPrueba, mundo.getEspacio());
+	}
+
+	@Test
+	public void testActualizarEstado() {
+		MundoHashLife mundo1 = new MundoHashLife("Prueba0", null, null, espacioPrueba);
+		Mundo mundo2 = new MundoCompacto("Prueba0", null, null, espacioPrueba);
+		for (int gen = 0; gen < 40; gen++) {
+			mundo1.actualizarEstado();
+			mundo2.actualizarEstado();
+			assertArrayEquals(mundo2.getEspacio(), mundo1.getEspacio());
+		}
+		assertEquals(40, mundo1.getGeneracion());
+	}
+
+	@Test
+	public void testAvanzar() {
+		MundoHashLife mundo1 = new MundoHashLife("Prueba0", null, null, espacioPrueba);
+		MundoHashLife mundo2 = new MundoHashLife(mundo1);
+		mundo1.avanzar(100);
+		for (int gen = 0; gen < 100; gen++) {
+			mundo2.actualizarEstado();
+		}
+		assertArrayEquals(mundo2.getEspacio(), mundo1.getEspacio());
+		assertEquals(mundo2.getPoblacion(), mundo1.getPoblacion());
+	}
+
+	@Test
+	public void testAvanzarPotenciaPlaneador() {
+		byte[][] planeador = new byte[8][8];
+		planeador[0][1] = 1;
+		planeador[1][2] = 1;
+		planeador[2][0] = 1;
+		planeador[2][1] = 1;
+		planeador[2][2] = 1;
+		MundoHashLife mundo = new MundoHashLife("Planeador", null, null, planeador);
+		// Cada 4 generaciones se desplaza una celda en diagonal.
+		mundo.avanzarPotencia(20);
+		assertEquals(5, mundo.getPoblacion());
+		assertEquals(1L << 20, mundo.getGeneracion());
+	}
+
+	@Test
+	public void testSerializacion() throws Exception {
+		MundoHashLife mundo1 = new MundoHashLife("Prueba0", null, null, espacioPrueba);
+		mundo1.avanzar(10);
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ObjectOutputStream salida = new ObjectOutputStream(bytes);
+		salida.writeObject(mundo1);
+		salida.close();
+		MundoHashLife mundo2 = (MundoHashLife) new ObjectInputStream(
+				new ByteArrayInputStream(bytes.toByteArray())).readObject();
+		mundo1.avanzar(10);
+		mundo2.avanzar(10);
+		assertArrayEquals(mundo1.getEspacio(), mundo2.getEspacio());
+	}
+
+}
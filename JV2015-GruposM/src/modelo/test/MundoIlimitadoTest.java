@@ -0,0 +1,111 @@
+package modelo.test;
+/**
+ * Proyecto: Juego de la vida.
+ *  Clase JUnit 4 para pruebas de MundoIlimitado.
+ *  @since: prototipo2.2
+ *  @source: MundoIlimitadoTest.java
+ *  @version: 1.0 - 2016/06/22
+ *  @author: ajp
+ */
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import modelo.Mundo;
+import modelo.MundoCompacto;
+import modelo.MundoIlimitado;
+import modelo.Regla;
+
+public class MundoIlimitadoTest {
+	private byte[][] espacioPrueba;
+
+	@Before
+	public void crearObjetosPrueba() {
+		// Sopa aleatoria de 40x40 en el centro de un espacio de 300x300.
+		espacioPrueba = new byte[300][300];
+		Random aleatorio = new Random(2016);
+		for (int i = 130; i < 170; i++) {
+			for (int j = 130; j < 170; j++) {
+				espacioPrueba[i][j] = (byte) (aleatorio.nextBoolean() ? 1 : 0);
+			}
+		}
+	}
+
+	@Test
+	public void testActualizarEstado() {
+		Mundo mundo1 = new MundoIlimitado("Prueba0", null, null, espacioPrueba);
+		Mundo mundo2 = new MundoCompacto("Prueba0", null, null, espacioPrueba);
+		for (int generacion = 0; generacion < 100; generacion++) {
+			mundo1.actualizarEstado();
+			mundo2.actualizarEstado();
+		}
+		assertArrayEquals(mundo2.getEspacio(), mundo1.getEspacio());
+	}
+
+	@Test
+	public void testPlaneadorLejano() {
+		// Un planeador avanza una celda en diagonal cada 4 generaciones
+		// y sólo ocupa las teselas que atraviesa.
+		MundoIlimitado mundo = new MundoIlimitado("Prueba0", null, null, 8, 8);
+		mundo.setCelda(0, 1, (byte) 1);
+		mundo.setCelda(1, 2, (byte) 1);
+		mundo.setCelda(2, 0, (byte) 1);
+		mundo.setCelda(2, 1, (byte) 1);
+		mundo.setCelda(2, 2, (byte) 1);
+		for (int generacion = 0; generacion < 4000; generacion++) {
+			mundo.actualizarEstado();
+		}
+		assertEquals(5, mundo.getPoblacion());
+		assertTrue(mundo.getNumTeselas() <= 4);
+		assertEquals(1, mundo.getCelda(1000, 1001));
+		assertEquals(1, mundo.getCelda(1002, 1002));
+		assertEquals(0, mundo.getCelda(1, 2));
+	}
+
+	@Test
+	public void testCoordenadasNegativas() {
+		MundoIlimitado mundo = new MundoIlimitado("Prueba0", null, null, 4, 4);
+		// Parpadeador vertical sobre el borde de las teselas negativas.
+		mundo.setCelda(-1, -64, (byte) 1);
+		mundo.setCelda(0, -64, (byte) 1);
+		mundo.setCelda(1, -64, (byte) 1);
+		mundo.actualizarEstado();
+		assertEquals(1, mundo.getCelda(0, -65));
+		assertEquals(1, mundo.getCelda(0, -64));
+		assertEquals(1, mundo.getCelda(0, -63));
+		assertEquals(0, mundo.getCelda(-1, -64));
+		assertEquals(3, mundo.getPoblacion());
+	}
+
+	@Test
+	public void testSerializacion() throws Exception {
+		MundoIlimitado mundo1 = new MundoIlimitado("Prueba0", null, null, espacioPrueba);
+		mundo1.setRegla(Regla.HIGHLIFE);
+		mundo1.actualizarEstado();
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ObjectOutputStream salida = new ObjectOutputStream(bytes);
+		salida.writeObject(mundo1);
+		salida.close();
+		ObjectInputStream entrada = new ObjectInputStream(
+				new ByteArrayInputStream(bytes.toByteArray()));
+		MundoIlimitado mundo2 = (MundoIlimitado) entrada.readObject();
+		mundo1.actualizarEstado();
+		mundo2.actualizarEstado();
+		assertEquals(Regla.HIGHLIFE, mundo2.getRegla());
+		assertArrayEquals(mundo1.getEspacio(), mundo2.getEspacio());
+		assertEquals(mundo1.getPoblacion(), mundo2.getPoblacion());
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void testTopologiaToroidal() {
+		new MundoIlimitado().setTopologia(Mundo.Topologia.TOROIDAL);
+	}
+
+}
@@ -0,0 +1,693 @@
+package modelo.test;
+/**
+ * Proyecto: Juego de la vida.
+ *  Clase JUnit 4 para pruebas de Mundo con dimensiones arbitrarias.
+ *  @since: prototipo2.2
+ *  @source: MundoTest.java
+ *  @version: 1.0 - 2016/06/18
+ *  @author: ajp
+ */
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Hashtable;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import modelo.ConjuntoCambios;
+import modelo.Estadisticas;
+import modelo.Mundo;
+import modelo.MundoCompacto;
+import modelo.MundoDirecto;
+import modelo.MundoDisperso;
+import modelo.MundoHashLife;
+import modelo.MundoIlimitado;
+import modelo.MundoIncremental;
+import modelo.MundoMapeado;
+import modelo.MundoParalelo;
+import modelo.MundoTeselado;
+import modelo.MundoVectorial;
+import modelo.Patron;
+import modelo.Posicion;
+import modelo.Regla;
+import modelo.Simulacion;
+
+public class MundoTest {
+	private byte[][] espacioPrueba;
+	private Mundo mundo1;
+
+	@Before
+	public void crearObjetosPrueba() {
+		// 4 filas x 7 columnas; intermitente cortado por el borde y bloque en la esquina.
+		espacioPrueba = new byte[][]{
+			{ 1, 1, 1, 0, 0, 0, 0 },
+			{ 0, 0, 0, 0, 0, 0, 0 },
+			{ 0, 0, 0, 0, 0, 1, 1 },
+			{ 0, 0, 0, 0, 0, 1, 1 }
+		};
+		mundo1 = new Mundo("Prueba0", new ArrayList<Integer>(),
+				new Hashtable<Patron,Posicion>(), espacioPrueba);
+	}
+
+	@After
+	public void borrarObjetosPrueba() {
+		mundo1 = null;
+	}
+
+	@Test
+	public void testDimensiones() {
+		assertEquals(4, mundo1.getFilas());
+		assertEquals(7, mundo1.getColumnas());
+		assertArrayEquals(espacioPrueba, mundo1.getEspacio());
+	}
+
+	@Test
+	public void testMundoVacio() {
+		Mundo mundo = new Mundo("Prueba1", null, null, 300, 2000);
+		assertEquals(300, mundo.getFilas());
+		assertEquals(2000, mundo.getColumnas());
+		assertEquals(600000, mundo.copiarCeldas(null).length);
+	}
+
+	@Test
+	public void testMundoCopia() {
+		Mundo mundo2 = new Mundo(mundo1);
+		assertArrayEquals(espacioPrueba, mundo2.getEspacio());
+		mundo2.setCelda(1, 3, (byte) 1);
+		assertEquals(0, mundo1.getCelda(1, 3));
+		assertEquals(1, mundo2.getCelda(1, 3));
+	}
+
+	@Test
+	public void testInstantanea() {
+		byte[][] instantanea = mundo1.getInstantanea();
+		byte[][] espacio = mundo1.getEspacio();
+		byte[][] destino = new byte[4][7];
+		assertSame(destino, mundo1.copiarEspacio(destino));
+		byte[] celdas = mundo1.copiarCeldas(null);
+		// Las copias no cambian con las generaciones siguientes.
+		mundo1.actualizarEstado();
+		mundo1.actualizarEstado();
+		assertArrayEquals(espacioPrueba, instantanea);
+		assertArrayEquals(espacioPrueba, espacio);
+		assertArrayEquals(espacioPrueba, destino);
+		assertEquals(1, celdas[0]);
+		assertEquals(0, mundo1.getCelda(0, 0));
+		// Modificar una copia no cambia el mundo.
+		espacio[1][3] = 1;
+		assertEquals(0, mundo1.getCelda(1, 3));
+		// Un destino de otras dimensiones se sustituye.
+		byte[][] corto = new byte[4][6];
+		byte[][] copia = mundo1.copiarEspacio(corto);
+		assertNotSame(corto, copia);
+		assertEquals(7, copia[0].length);
+		assertArrayEquals(mundo1.getEspacio(), copia);
+		byte[][] bajo = new byte[3][7];
+		assertNotSame(bajo, mundo1.copiarEspacio(bajo));
+		byte[] pequeño = new byte[10];
+		assertNotSame(pequeño, mundo1.copiarCeldas(pequeño));
+		assertEquals(28, mundo1.copiarCeldas(pequeño).length);
+	}
+
+	@Test
+	public void testActualizarEstado() {
+		byte[][] siguiente = new byte[][]{
+			{ 0, 1, 0, 0, 0, 0, 0 },
+			{ 0, 1, 0, 0, 0, 0, 0 },
+			{ 0, 0, 0, 0, 0, 1, 1 },
+			{ 0, 0, 0, 0, 0, 1, 1 }
+		};
+		mundo1.actualizarEstado();
+		assertArrayEquals(siguiente, mundo1.getEspacio());
+		// Fuera del mundo no hay vecinas: las dos células mueren.
+		siguiente[0][1] = 0;
+		siguiente[1][1] = 0;
+		mundo1.actualizarEstado();
+		assertArrayEquals(siguiente, mundo1.getEspacio());
+	}
+
+	@Test
+	public void testToroidal() {
+		// Un planeador recorre un toro de 8x8 en 32 generaciones.
+		byte[][] planeador = new byte[8][8];
+		planeador[0][1] = 1;
+		planeador[1][2] = 1;
+		planeador[2][0] = 1;
+		planeador[2][1] = 1;
+		planeador[2][2] = 1;
+		Mundo mundo = new Mundo("Planeador", null, null, planeador);
+		mundo.setTopologia(Mundo.Topologia.TOROIDAL);
+		for (int gen = 0; gen < 32; gen++) {
+			mundo.actualizarEstado();
+		}
+		assertArrayEquals(planeador, mundo.getEspacio());
+	}
+
+	@Test
+	public void testCambioTopologia() {
+		// Dos bloques en los bordes izquierdo y derecho, estables con
+		// LIMITADA, interactúan al unirse los bordes.
+		Mundo mundo = new Mundo("Bordes", null, null, 40, 40);
+		Patron bloque = new Patron("Bloque", new byte[][] { { 1, 1 }, { 1, 1 } });
+		mundo.estampar(bloque, new Posicion(0, 0));
+		mundo.estampar(bloque, new Posicion(0, 38));
+		Mundo[] motores = { new MundoDisperso(mundo), new MundoCompacto(mundo),
+				new MundoIncremental(mundo) };
+		for (Mundo.Topologia topologia : new Mundo.Topologia[] { Mundo.Topologia.TOROIDAL,
+				Mundo.Topologia.KLEIN, Mundo.Topologia.LIMITADA }) {
+			mundo.avanzar(5);
+			for (Mundo motor : motores) {
+				motor.avanzar(5);
+				assertArrayEquals(mundo.copiarCeldas(null), motor.copiarCeldas(null));
+			}
+			mundo.setTopologia(topologia);
+			for (Mundo motor : motores) {
+				motor.setTopologia(topologia);
+			}
+			for (int gen = 0; gen < 5; gen++) {
+				mundo.actualizarEstado();
+				for (Mundo motor : motores) {
+					motor.actualizarEstado();
+					assertArrayEquals(mundo.copiarCeldas(null), motor.copiarCeldas(null));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testKlein() {
+		// Intermitente vertical que cruza el borde superior: el borde inferior
+		// está invertido, así que su parte cruzada aparece en la columna opuesta.
+		Mundo mundo = new Mundo("Klein", null, null, 5, 6);
+		mundo.setTopologia(Mundo.Topologia.KLEIN);
+		mundo.setCelda(0, 1, (byte) 1);
+		mundo.setCelda(1, 1, (byte) 1);
+		mundo.setCelda(4, 4, (byte) 1);
+		mundo.actualizarEstado();
+		assertEquals(1, mundo.getCelda(0, 0));
+		assertEquals(1, mundo.getCelda(0, 1));
+		assertEquals(1, mundo.getCelda(0, 2));
+		assertEquals(0, mundo.getCelda(1, 1));
+		assertEquals(0, mundo.getCelda(4, 4));
+	}
+
+	@Test
+	public void testMundoCompacto() {
+		mundo1.setTopologia(Mundo.Topologia.KLEIN);
+		Mundo mundo2 = new MundoCompacto(mundo1);
+		for (int gen = 0; gen < 20; gen++) {
+			mundo1.actualizarEstado();
+			mundo2.actualizarEstado();
+			assertArrayEquals(mundo1.copiarCeldas(null), mundo2.copiarCeldas(null));
+		}
+	}
+
+	@Test
+	public void testMundoVectorial() {
+		// 21 columnas: dos grupos de 8 y un resto escalar de 5.
+		Mundo mundo = new Mundo("Prueba0", null, null, 19, 21);
+		Random aleatorio = new Random(2016);
+		for (int i = 0; i < 19; i++) {
+			for (int j = 0; j < 21; j++) {
+				mundo.setCelda(i, j, (byte) (aleatorio.nextBoolean() ? 1 : 0));
+			}
+		}
+		mundo.setTopologia(Mundo.Topologia.TOROIDAL);
+		Mundo mundo2 = new MundoVectorial(mundo);
+		for (int gen = 0; gen < 20; gen++) {
+			mundo.actualizarEstado();
+			mundo2.actualizarEstado();
+			assertArrayEquals(mundo.copiarCeldas(null), mundo2.copiarCeldas(null));
+		}
+	}
+
+	@Test
+	public void testMundoDisperso() throws Exception {
+		// Teselas incompletas en 37x45 en las tres topologías, con celdas y
+		// patrones añadidos entre generaciones y el mundo recuperado de su
+		// serialización.
+		Patron planeador = new Patron("Planeador", new byte[][] { { 0, 1, 0 }, { 0, 0, 1 }, { 1, 1, 1 } });
+		Random aleatorio = new Random(2016);
+		for (Mundo.Topologia topologia : Mundo.Topologia.values()) {
+			Mundo mundo = new Mundo("Prueba0", null, null, 37, 45);
+			for (int i = 10; i < 25; i++) {
+				for (int j = 10; j < 25; j++) {
+					mundo.setCelda(i, j, (byte) (aleatorio.nextBoolean() ? 1 : 0));
+				}
+			}
+			mundo.setTopologia(topologia);
+			Mundo mundo2 = new MundoDisperso(mundo);
+			for (int gen = 0; gen < 80; gen++) {
+				if (gen == 30) {
+					mundo.setCelda(36, 44, (byte) 1);
+					mundo2.setCelda(36, 44, (byte) 1);
+					mundo.setCelda(36, 43, (byte) 1);
+					mundo2.setCelda(36, 43, (byte) 1);
+				}
+				if (gen == 50) {
+					mundo.estampar(planeador, new Posicion(33, 1));
+					mundo2.estampar(planeador, new Posicion(33, 1));
+				}
+				if (gen == 60) {
+					mundo2 = serializar(mundo2);
+				}
+				mundo.actualizarEstado();
+				mundo2.actualizarEstado();
+				assertArrayEquals(mundo.copiarCeldas(null), mundo2.copiarCeldas(null));
+			}
+		}
+		// Un bloque en una tesela inactiva sobrevive a la serialización.
+		Mundo mundo = new Mundo("Prueba0", null, null, 100, 100);
+		mundo.estampar(new Patron("Bloque", new byte[][] { { 1, 1 }, { 1, 1 } }), new Posicion(1, 1));
+		mundo.estampar(new Patron("Parpadeador", new byte[][] { { 1, 1, 1 } }), new Posicion(90, 90));
+		Mundo mundo2 = new MundoDisperso(mundo);
+		mundo.avanzar(3);
+		mundo2.avanzar(3);
+		mundo2 = serializar(mundo2);
+		mundo.actualizarEstado();
+		mundo2.actualizarEstado();
+		assertEquals(1, mundo2.getCelda(1, 1));
+		assertArrayEquals(mundo.copiarCeldas(null), mundo2.copiarCeldas(null));
+	}
+
+	/**
+	 * @return una copia del mundo recuperada de su serialización.
+	 */
+	private static Mundo serializar(Mundo mundo) throws Exception {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ObjectOutputStream salida = new ObjectOutputStream(bytes);
+		salida.writeObject(mundo);
+		salida.close();
+		return (Mundo) new ObjectInputStream(
+				new ByteArrayInputStream(bytes.toByteArray())).readObject();
+	}
+
+	@Test
+	public void testTeselasActivas() {
+		// 64x64 en teselas de 16: un bloque no activa ninguna tesela.
+		MundoDisperso mundo = new MundoDisperso("Disperso", null, null, 64, 64);
+		assertEquals(16, mundo.getTeselas());
+		assertEquals(16, mundo.getTeselasActivas());
+		mundo.estampar(new Patron("Bloque", new byte[][] { { 1, 1 }, { 1, 1 } }), new Posicion(20, 20));
+		mundo.actualizarEstado();
+		assertEquals(0, mundo.getTeselasActivas());
+		assertSame(mundo, mundo.avanzar(10));
+		assertEquals(0, mundo.getTeselasActivas());
+		// Una celda activa su tesela y las ocho vecinas.
+		mundo.setCelda(40, 40, (byte) 1);
+		assertEquals(9, mundo.getTeselasActivas());
+		mundo.actualizarEstado();
+		assertEquals(0, mundo.getCelda(40, 40));
+		assertEquals(9, mundo.getTeselasActivas());
+		mundo.actualizarEstado();
+		assertEquals(0, mundo.getTeselasActivas());
+		// Un patrón en la esquina activa las teselas que ocupa y sus vecinas
+		// dentro del mundo.
+		mundo.estampar(new Patron("Planeador", new byte[][] { { 0, 1, 0 }, { 0, 0, 1 }, { 1, 1, 1 } }),
+				new Posicion(0, 0));
+		assertEquals(4, mundo.getTeselasActivas());
+		mundo.avanzar(4);
+		assertEquals(1, mundo.getCelda(1, 2));
+		assertEquals(1, mundo.getCelda(3, 3));
+		assertEquals(9, mundo.getEstadisticas().getPoblacion());
+	}
+
+	@Test
+	public void testMundoParalelo() {
+		// 4 hilos y franjas de 2 filas sobre 37x45 en las tres topologías,
+		// con una regla distinta de B3/S23 desde la décima generación.
+		Random aleatorio = new Random(2016);
+		for (Mundo.Topologia topologia : Mundo.Topologia.values()) {
+			Mundo mundo = new Mundo("Prueba0", null, null, 37, 45);
+			for (int i = 0; i < 37; i++) {
+				for (int j = 0; j < 45; j++) {
+					mundo.setCelda(i, j, (byte) (aleatorio.nextBoolean() ? 1 : 0));
+				}
+			}
+			mundo.setTopologia(topologia);
+			MundoParalelo mundo2 = new MundoParalelo(mundo);
+			mundo2.setParalelismo(4, 0);
+			assertEquals(4, mundo2.getParalelismo());
+			for (int gen = 0; gen < 30; gen++) {
+				if (gen == 10) {
+					mundo.setRegla(Regla.HIGHLIFE);
+					mundo2.setRegla(Regla.HIGHLIFE);
+				}
+				mundo.actualizarEstado();
+				mundo2.actualizarEstado();
+				assertArrayEquals(mundo.copiarCeldas(null), mundo2.copiarCeldas(null));
+			}
+			mundo2.setParalelismo(0, 0);
+		}
+	}
+
+	@Test
+	public void testAvanzar() {
+		// Cada motor avanza 150 generaciones de una sopa en una llamada; la
+		// sopa se estabiliza antes, lo que ejercita la terminación anticipada.
+		Mundo mundo = new Mundo("Prueba0", null, null, 40, 40);
+		Random aleatorio = new Random(7);
+		for (int i = 15; i < 25; i++) {
+			for (int j = 15; j < 25; j++) {
+				mundo.setCelda(i, j, (byte) (aleatorio.nextBoolean() ? 1 : 0));
+			}
+		}
+		Mundo[] motores = {
+			new MundoCompacto(mundo), new MundoDisperso(mundo),
+			new MundoIlimitado(mundo), new MundoHashLife(mundo)
+		};
+		for (int gen = 0; gen < 150; gen++) {
+			mundo.actualizarEstado();
+		}
+		for (Mundo motor : motores) {
+			assertSame(motor, motor.avanzar(150));
+			assertArrayEquals(mundo.copiarCeldas(null), motor.copiarCeldas(null));
+		}
+	}
+
+	@Test
+	public void testMundoTeselado() {
+		// Teselas de 16 con 5 generaciones por bloque sobre 37x45: teselas
+		// incompletas y márgenes que cruzan los bordes en las tres topologías.
+		Random aleatorio = new Random(2016);
+		for (Mundo.Topologia topologia : Mundo.Topologia.values()) {
+			Mundo mundo = new Mundo("Prueba0", null, null, 37, 45);
+			for (int i = 0; i < 37; i++) {
+				for (int j = 0; j < 45; j++) {
+					mundo.setCelda(i, j, (byte) (aleatorio.nextBoolean() ? 1 : 0));
+				}
+			}
+			mundo.setTopologia(topologia);
+			MundoTeselado mundo2 = new MundoTeselado(mundo);
+			mundo2.setTeselado(16, 5);
+			mundo2.avanzar(13);
+			mundo.avanzar(13);
+			assertArrayEquals(mundo.copiarCeldas(null), mundo2.copiarCeldas(null));
+		}
+	}
+
+	@Test
+	public void testMundoIncremental() {
+		// Cambios de celdas, de regla y de topología entre generaciones.
+		Random aleatorio = new Random(2016);
+		for (Mundo.Topologia topologia : Mundo.Topologia.values()) {
+			Mundo mundo = new Mundo("Prueba0", null, null, 23, 17);
+			for (int i = 0; i < 23; i++) {
+				for (int j = 0; j < 17; j++) {
+					mundo.setCelda(i, j, (byte) (aleatorio.nextBoolean() ? 1 : 0));
+				}
+			}
+			mundo.setTopologia(topologia);
+			Mundo mundo2 = new MundoIncremental(mundo);
+			for (int gen = 0; gen < 40; gen++) {
+				if (gen == 10) {
+					mundo.setCelda(0, 0, (byte) 1);
+					mundo2.setCelda(0, 0, (byte) 1);
+				}
+				if (gen == 20) {
+					mundo.setRegla(Regla.HIGHLIFE);
+					mundo2.setRegla(Regla.HIGHLIFE);
+				}
+				mundo.actualizarEstado();
+				mundo2.actualizarEstado();
+				assertArrayEquals(mundo.copiarCeldas(null), mundo2.copiarCeldas(null));
+			}
+		}
+	}
+
+	@Test
+	public void testMundoDirecto() throws Exception {
+		mundo1.setTopologia(Mundo.Topologia.TOROIDAL);
+		MundoDirecto mundo2 = new MundoDirecto(mundo1);
+		for (int gen = 0; gen < 10; gen++) {
+			mundo1.actualizarEstado();
+			mundo2.actualizarEstado();
+		}
+		assertArrayEquals(mundo1.getEspacio(), mundo2.getEspacio());
+		// Las celdas se serializan aunque los búferes no sean serializables.
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ObjectOutputStream salida = new ObjectOutputStream(bytes);
+		salida.writeObject(mundo2);
+		salida.close();
+		Mundo mundo3 = (Mundo) new ObjectInputStream(
+				new ByteArrayInputStream(bytes.toByteArray())).readObject();
+		mundo2.liberar();
+		assertTrue(mundo2.isLiberado());
+		mundo1.actualizarEstado();
+		mundo3.actualizarEstado();
+		assertArrayEquals(mundo1.getEspacio(), mundo3.getEspacio());
+	}
+
+	@Test
+	public void testMundoMapeado() throws Exception {
+		File fichero = File.createTempFile("mundo", ".jvm");
+		fichero.deleteOnExit();
+		mundo1.setTopologia(Mundo.Topologia.KLEIN);
+		MundoMapeado mundo2 = new MundoMapeado(mundo1, fichero);
+		for (int gen = 0; gen < 7; gen++) {
+			mundo1.actualizarEstado();
+			mundo2.actualizarEstado();
+		}
+		assertEquals(7, mundo2.getGeneracion());
+		mundo2.liberar();
+		// Se reanuda desde el fichero, con la región actual y la topología.
+		MundoMapeado mundo3 = MundoMapeado.abrir(fichero);
+		assertEquals(Mundo.Topologia.KLEIN, mundo3.getTopologia());
+		assertArrayEquals(mundo1.getEspacio(), mundo3.getEspacio());
+		// Sólo se serializa la referencia al fichero.
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ObjectOutputStream salida = new ObjectOutputStream(bytes);
+		salida.writeObject(mundo3);
+		salida.close();
+		mundo3.liberar();
+		MundoMapeado mundo4 = (MundoMapeado) new ObjectInputStream(
+				new ByteArrayInputStream(bytes.toByteArray())).readObject();
+		assertEquals(fichero, mundo4.getFichero());
+		mundo1.actualizarEstado();
+		mundo4.actualizarEstado();
+		assertArrayEquals(mundo1.getEspacio(), mundo4.getEspacio());
+		assertEquals(8, mundo4.getGeneracion());
+		mundo4.liberar();
+		// Se selecciona como motor de una simulación.
+		Simulacion simulacion = new Simulacion(null, null, new Mundo(mundo1),
+				Simulacion.EstadoSimulacion.PREPARADA);
+		simulacion.setMotor(Simulacion.MotorSimulacion.MAPEADO, fichero);
+		assertEquals(Simulacion.MotorSimulacion.MAPEADO, simulacion.getMotor());
+		assertArrayEquals(mundo1.getEspacio(), simulacion.getMundo().getEspacio());
+		simulacion.setMotor(Simulacion.MotorSimulacion.DIRECTO);
+		assertEquals(Simulacion.MotorSimulacion.DIRECTO, simulacion.getMotor());
+		assertArrayEquals(mundo1.getEspacio(), simulacion.getMundo().getEspacio());
+		simulacion.liberar();
+	}
+
+	@Test
+	public void testEstadisticas() {
+		Mundo mundo = new Mundo("Estadisticas", null, null, 40, 50);
+		// Planeador.
+		mundo.setCelda(10, 21, (byte) 1);
+		mundo.setCelda(11, 22, (byte) 1);
+		mundo.setCelda(12, 20, (byte) 1);
+		mundo.setCelda(12, 21, (byte) 1);
+		mundo.setCelda(12, 22, (byte) 1);
+		Estadisticas estadisticas = mundo.getEstadisticas();
+		assertEquals(5, estadisticas.getPoblacion());
+		assertEquals(10, estadisticas.getFilaMinima());
+		assertEquals(12, estadisticas.getFilaMaxima());
+		assertEquals(20, estadisticas.getColumnaMinima());
+		assertEquals(22, estadisticas.getColumnaMaxima());
+		mundo.actualizarEstado();
+		estadisticas = mundo.getEstadisticas();
+		assertEquals(5, estadisticas.getPoblacion());
+		assertEquals(2, estadisticas.getNacimientos());
+		assertEquals(2, estadisticas.getMuertes());
+		assertEquals(11, estadisticas.getFilaMinima());
+		assertEquals(13, estadisticas.getFilaMaxima());
+		// Tras 4 generaciones el planeador se ha desplazado en diagonal.
+		mundo.avanzar(3);
+		estadisticas = mundo.getEstadisticas();
+		assertEquals(11, estadisticas.getFilaMinima());
+		assertEquals(21, estadisticas.getColumnaMinima());
+		assertEquals(13, estadisticas.getFilaMaxima());
+		assertEquals(23, estadisticas.getColumnaMaxima());
+		// Al morir una célula del borde el rectángulo se ajusta.
+		mundo.setCelda(11, 22, (byte) 0);
+		estadisticas = mundo.getEstadisticas();
+		assertEquals(4, estadisticas.getPoblacion());
+		assertEquals(12, estadisticas.getFilaMinima());
+		// Las generaciones con márgenes omitidos coinciden con el espacio completo.
+		MundoCompacto compacto = new MundoCompacto(mundo);
+		mundo.avanzar(200);
+		compacto.avanzar(200);
+		assertArrayEquals(compacto.copiarCeldas(null), mundo.copiarCeldas(null));
+		assertEquals(compacto.getEstadisticas().getPoblacion(),
+				mundo.getEstadisticas().getPoblacion());
+	}
+
+	@Test
+	public void testEstadisticasMotores() {
+		// Sopa de 16x16 en el centro de 64x64: en 40 generaciones nada llega
+		// al borde, por lo que los motores ilimitados coinciden con Mundo.
+		Mundo mundo = new Mundo("Estadisticas", null, null, 64, 64);
+		Random aleatorio = new Random(18);
+		for (int i = 24; i < 40; i++) {
+			for (int j = 24; j < 40; j++) {
+				mundo.setCelda(i, j, (byte) (aleatorio.nextBoolean() ? 1 : 0));
+			}
+		}
+		MundoParalelo paralelo = new MundoParalelo(mundo);
+		paralelo.setParalelismo(4, 0);
+		MundoTeselado teselado = new MundoTeselado(mundo);
+		teselado.setTeselado(16, 3);
+		MundoDirecto directo = new MundoDirecto(mundo);
+		Mundo[] motores = { paralelo, new MundoDisperso(mundo), teselado,
+				new MundoCompacto(mundo), new MundoIlimitado(mundo), new MundoHashLife(mundo),
+				new MundoIncremental(mundo), directo };
+		for (int gen = 1; gen <= 40; gen++) {
+			mundo.actualizarEstado();
+			for (Mundo motor : motores) {
+				motor.actualizarEstado();
+			}
+			if (gen == 20) {
+				// Una célula en la esquina cambia los límites sin generación.
+				mundo.setCelda(0, 0, (byte) 1);
+				for (Mundo motor : motores) {
+					motor.setCelda(0, 0, (byte) 1);
+				}
+			}
+			Estadisticas esperadas = mundo.getEstadisticas();
+			for (Mundo motor : motores) {
+				String nombre = motor.getClass().getSimpleName() + " " + gen;
+				Estadisticas estadisticas = motor.getEstadisticas();
+				assertEquals(nombre, esperadas.getPoblacion(), estadisticas.getPoblacion());
+				assertEquals(nombre, esperadas.getFilaMinima(), estadisticas.getFilaMinima());
+				assertEquals(nombre, esperadas.getFilaMaxima(), estadisticas.getFilaMaxima());
+				assertEquals(nombre, esperadas.getColumnaMinima(), estadisticas.getColumnaMinima());
+				assertEquals(nombre, esperadas.getColumnaMaxima(), estadisticas.getColumnaMaxima());
+				if (estadisticas.getNacimientos() != Estadisticas.DESCONOCIDO) {
+					assertEquals(nombre, esperadas.getNacimientos(), estadisticas.getNacimientos());
+					assertEquals(nombre, esperadas.getMuertes(), estadisticas.getMuertes());
+				}
+			}
+			// Los motores que cuentan mientras calculan conocen nacimientos
+			// y muertes desde la segunda generación.
+			if (gen > 1 && gen != 21) {
+				assertEquals(esperadas.getNacimientos(), paralelo.getEstadisticas().getNacimientos());
+				assertEquals(esperadas.getNacimientos(), motores[1].getEstadisticas().getNacimientos());
+				assertEquals(esperadas.getNacimientos(), motores[6].getEstadisticas().getNacimientos());
+			}
+		}
+		paralelo.setParalelismo(0, 0);
+		directo.liberar();
+	}
+
+	@Test
+	public void testCambios() {
+		assertNull(mundo1.getCambios());
+		mundo1.setRegistroCambios(true);
+		ConjuntoCambios cambios = mundo1.getCambios();
+		long secuencia = cambios.getSecuencia();
+		byte[] antes = mundo1.copiarCeldas(null);
+		mundo1.actualizarEstado();
+		byte[] despues = mundo1.copiarCeldas(null);
+		assertSame(cambios, mundo1.getCambios());
+		assertEquals(secuencia + 1, cambios.getSecuencia());
+		int distintas = 0;
+		for (int k = 0; k < antes.length; k++) {
+			if (antes[k] != despues[k]) {
+				assertEquals(k, cambios.getPosicion(distintas++));
+			}
+		}
+		assertEquals(distintas, cambios.getNumCambios());
+		// Una modificación fuera de una generación rompe la secuencia.
+		mundo1.setCelda(0, 0, (byte) (1 - mundo1.getCelda(0, 0)));
+		assertTrue(cambios.getSecuencia() > secuencia + 2);
+		// MundoIncremental los obtiene de su lista de celdas cambiadas.
+		MundoIncremental incremental = new MundoIncremental(mundo1);
+		incremental.setRegistroCambios(true);
+		antes = incremental.copiarCeldas(null);
+		incremental.actualizarEstado();
+		despues = incremental.copiarCeldas(null);
+		cambios = incremental.getCambios();
+		for (int k = 0; k < cambios.getNumCambios(); k++) {
+			int posicion = cambios.getPosicion(k);
+			assertTrue(antes[posicion] != despues[posicion]);
+		}
+		distintas = 0;
+		for (int k = 0; k < antes.length; k++) {
+			distintas += (antes[k] != despues[k]) ? 1 : 0;
+		}
+		assertEquals(distintas, cambios.getNumCambios());
+		mundo1.setRegistroCambios(false);
+		assertNull(mundo1.getCambios());
+	}
+
+	@Test
+	public void testEstamparDistribucion() {
+		byte[][] esquema = { { 0, 1, 0 }, { 0, 0, 1 }, { 1, 1, 1 } };
+		Patron planeador = new Patron("Planeador", esquema);
+		// La identidad del patrón es su nombre y su esquema.
+		Patron copia = new Patron(planeador);
+		assertEquals(planeador, copia);
+		assertEquals(planeador.hashCode(), copia.hashCode());
+		assertFalse(planeador.equals(new Patron("Otro", esquema)));
+		Hashtable<Patron, Posicion> distribucion = new Hashtable<Patron, Posicion>();
+		distribucion.put(planeador, new Posicion(1, 2));
+		assertEquals(new Posicion(1, 2).getY(), distribucion.get(copia).getY());
+		// Un patrón cortado por el borde izquierdo e inferior.
+		distribucion.put(new Patron("Bloque", new byte[][] { { 1, 1 }, { 1, 1 } }),
+				new Posicion(9, -1));
+		Mundo[] mundos = { new Mundo("Estampado", null, distribucion, 10, 10),
+				new MundoCompacto("Estampado", null, distribucion, 10, 10),
+				new MundoIncremental("Estampado", null, distribucion, 10, 10) };
+		for (Mundo mundo : mundos) {
+			mundo.setCelda(1, 3, (byte) 1);
+			mundo.estamparDistribucion();
+			assertEquals(1, mundo.getCelda(1, 3));
+			assertEquals(0, mundo.getCelda(1, 2));
+			assertEquals(1, mundo.getCelda(2, 4));
+			assertEquals(1, mundo.getCelda(3, 2));
+			assertEquals(1, mundo.getCelda(3, 4));
+			assertEquals(1, mundo.getCelda(9, 0));
+			assertEquals(0, mundo.getCelda(8, 0));
+			assertEquals(6, mundo.getEstadisticas().getPoblacion());
+			assertEquals(9, mundo.getEstadisticas().getFilaMaxima());
+		}
+	}
+
+	@Test
+	public void testBuscar() {
+		Patron planeador = new Patron("Planeador", new byte[][] { { 0, 1, 0 }, { 0, 0, 1 }, { 1, 1, 1 } });
+		Mundo[] mundos = { new Mundo("Busqueda", null, null, 12, 80),
+				new MundoCompacto("Busqueda", null, null, 12, 80) };
+		for (Mundo mundo : mundos) {
+			mundo.estampar(planeador, new Posicion(1, 2));
+			// Girado, entre dos palabras de 64 celdas, y reflejado.
+			mundo.estampar(new Patron("Girado", new byte[][] { { 1, 0, 0 }, { 1, 0, 1 }, { 1, 1, 0 } }),
+					new Posicion(5, 62));
+			mundo.estampar(new Patron("Reflejado", new byte[][] { { 1, 1, 1 }, { 0, 0, 1 }, { 0, 1, 0 } }),
+					new Posicion(8, 70));
+			List<Posicion> encontradas = mundo.buscar(planeador, false);
+			assertEquals(1, encontradas.size());
+			assertEquals(1, encontradas.get(0).getX());
+			assertEquals(2, encontradas.get(0).getY());
+			encontradas = mundo.buscar(planeador, true);
+			assertEquals(3, encontradas.size());
+			assertEquals(5, encontradas.get(1).getX());
+			assertEquals(62, encontradas.get(1).getY());
+			assertEquals(70, encontradas.get(2).getY());
+			// Las celdas vacías del esquema también deben coincidir.
+			mundo.setCelda(1, 2, (byte) 1);
+			assertEquals(2, mundo.buscar(planeador, true).size());
+		}
+	}
+
+}
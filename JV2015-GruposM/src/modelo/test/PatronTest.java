@@ -0,0 +1,74 @@
+package modelo.test;
+/**
+ * Proyecto: Juego de la vida.
+ *  Clase JUnit 4 para pruebas de Patron.
+ *  @since: prototipo2.2
+ *  @source: PatronTest.java
+ *  @version: 1.0 - 2016/07/03
+ *  @author: ajp
+ */
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import modelo.Patron;
+
+public class PatronTest {
+
+	// Planeador y el mismo girado, reflejado y desplazado.
+	private static final byte[][] PLANEADOR = {
+		{ 0, 1, 0 },
+		{ 0, 0, 1 },
+		{ 1, 1, 1 }
+	};
+	private static final byte[][] PLANEADOR_GIRADO = {
+		{ 0, 0, 0, 0 },
+		{ 0, 1, 1, 0 },
+		{ 0, 1, 0, 1 },
+		{ 0, 1, 0, 0 }
+	};
+
+	@Test
+	public void testIgualdad() {
+		Patron patron1 = new Patron("Planeador", PLANEADOR);
+		Patron patron2 = new Patron(patron1);
+		assertEquals(patron1, patron2);
+		assertEquals(patron1.hashCode(), patron2.hashCode());
+		assertNotEquals(patron1, new Patron("Otro", PLANEADOR));
+	}
+
+	@Test
+	public void testHuellaOrientaciones() {
+		Patron patron = new Patron("Planeador", PLANEADOR);
+		Patron girado = new Patron("Girado", PLANEADOR_GIRADO);
+		byte[][] reflejado = new byte[3][];
+		for (int i = 0; i < 3; i++) {
+			reflejado[i] = PLANEADOR[2 - i].clone();
+		}
+		Patron patronReflejado = new Patron("Reflejado", reflejado);
+		assertEquals(patron.getHuella(), girado.getHuella());
+		assertEquals(patron.getHuella(), patronReflejado.getHuella());
+		assertTrue(patron.mismaForma(girado));
+		assertTrue(girado.mismaForma(patronReflejado));
+	}
+
+	@Test
+	public void testHuellaDistintaForma() {
+		Patron patron = new Patron("Planeador", PLANEADOR);
+		Patron bloque = new Patron("Bloque", new byte[][] { { 1, 1 }, { 1, 1 } });
+		Patron parpadeador = new Patron("Parpadeador", new byte[][] { { 1, 1, 1 } });
+		assertNotEquals(patron.getHuella(), bloque.getHuella());
+		assertFalse(patron.mismaForma(bloque));
+		assertFalse(bloque.mismaForma(parpadeador));
+		assertTrue(parpadeador.mismaForma(new Patron("Vertical", new byte[][] { {0, 1}, {0, 1}, {0, 1} })));
+	}
+
+	@Test
+	public void testHuellaSetEsquema() {
+		Patron patron = new Patron("Planeador", PLANEADOR);
+		long huella = patron.getHuella();
+		patron.setEsquema(new byte[][] { { 1, 1 }, { 1, 1 } });
+		assertNotEquals(huella, patron.getHuella());
+	}
+
+} //class
@@ -0,0 +1,117 @@
+package modelo.test;
+/**
+ * Proyecto: Juego de la vida.
+ *  Clase JUnit 4 para pruebas de Regla.
+ *  @since: prototipo2.2
+ *  @source: ReglaTest.java
+ *  @version: 1.0 - 2016/06/20
+ *  @author: ajp
+ */
+import static org.junit.Assert.*;
+
+import java.lang.reflect.Field;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import modelo.Mundo;
+import modelo.MundoCompacto;
+import modelo.MundoDisperso;
+import modelo.MundoHashLife;
+import modelo.Patron;
+import modelo.Posicion;
+import modelo.Regla;
+
+public class ReglaTest {
+
+	@Test
+	public void testReglaTexto() {
+		Regla regla = new Regla("B36/S23");
+		assertTrue(regla.nace(3));
+		assertTrue(regla.nace(6));
+		assertFalse(regla.nace(2));
+		assertTrue(regla.sobrevive(2));
+		assertFalse(regla.sobrevive(6));
+		assertEquals("B36/S23", regla.toString());
+		assertEquals(regla, new Regla("s23/b36"));
+		assertEquals(Regla.CONWAY, new Regla(1 << 3, (1 << 2) | (1 << 3)));
+	}
+
+	@Test
+	public void testReglaSinSupervivencia() {
+		assertEquals("B2/S", Regla.SEMILLAS.toString());
+		assertEquals(0, Regla.SEMILLAS.getSupervivencia());
+	}
+
+	@Test(expected = AssertionError.class)
+	public void testReglaNoValida() {
+		new Regla("B9/S23");
+	}
+
+	@Test
+	public void testConstantes() {
+		Mundo mundo = new Mundo("Semillas", Arrays.asList(1 << 2, 0), null, 5, 5);
+		assertEquals(Regla.SEMILLAS, mundo.getRegla());
+		mundo.setRegla(Regla.HIGHLIFE);
+		assertEquals(Arrays.asList(72, 12), mundo.getConstantes());
+	}
+
+	@Test
+	public void testSemillas() {
+		// Con B2/S dos células adyacentes mueren y hacen nacer a las que tocan a ambas.
+		Mundo mundo1 = new Mundo("Semillas", null, null, 4, 4);
+		mundo1.setRegla(Regla.SEMILLAS);
+		mundo1.setCelda(1, 1, (byte) 1);
+		mundo1.setCelda(1, 2, (byte) 1);
+		Mundo mundo2 = new MundoCompacto(mundo1);
+		mundo1.actualizarEstado();
+		mundo2.actualizarEstado();
+		byte[][] siguiente = new byte[][]{
+			{ 0, 1, 1, 0 },
+			{ 0, 0, 0, 0 },
+			{ 0, 1, 1, 0 },
+			{ 0, 0, 0, 0 }
+		};
+		assertArrayEquals(siguiente, mundo1.getEspacio());
+		assertArrayEquals(siguiente, mundo2.getEspacio());
+	}
+
+	@Test
+	public void testCambioRegla() {
+		// Un bloque estable con B3/S23 se expande con B2/S.
+		Mundo mundo1 = new Mundo("Cambio", null, null, 40, 40);
+		mundo1.estampar(new Patron("Bloque", new byte[][] { { 1, 1 }, { 1, 1 } }), new Posicion(19, 19));
+		Mundo mundo2 = new MundoDisperso(mundo1);
+		mundo1.avanzar(3);
+		mundo2.avanzar(3);
+		mundo1.setRegla(Regla.SEMILLAS);
+		mundo2.setRegla(Regla.SEMILLAS);
+		for (int gen = 0; gen < 6; gen++) {
+			mundo1.actualizarEstado();
+			mundo2.actualizarEstado();
+			assertArrayEquals(mundo1.copiarCeldas(null), mundo2.copiarCeldas(null));
+			if (gen == 0) {
+				assertEquals(8, mundo2.getEstadisticas().getPoblacion());
+			}
+		}
+	}
+
+	@Test
+	public void testReglaSinTabla() throws Exception {
+		// Como la recupera db4o: sin constructor ni atributos transient.
+		Regla regla = new Regla("B36/S23");
+		Field tabla = Regla.class.getDeclaredField("tabla");
+		tabla.setAccessible(true);
+		tabla.set(regla, null);
+		Mundo mundo1 = new Mundo("Tabla", null, null, 20, 20);
+		mundo1.estampar(new Patron("Parpadeador", new byte[][] { { 1, 1, 1 } }), new Posicion(9, 8));
+		Mundo mundo2 = new MundoHashLife(mundo1);
+		mundo1.setRegla(regla);
+		mundo2.setRegla(regla);
+		mundo1.actualizarEstado();
+		mundo2.actualizarEstado();
+		assertEquals(3, mundo1.getEstadisticas().getPoblacion());
+		assertArrayEquals(mundo1.copiarCeldas(null), mundo2.copiarCeldas(null));
+	}
+
+}
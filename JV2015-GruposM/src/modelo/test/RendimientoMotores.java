@@ -0,0 +1,67 @@
+package modelo.test;
+/**
+ * Proyecto: Juego de la vida.
+ *  Programa de medida del rendimiento del cálculo escalar de Mundo frente
+ *  al vectorial de MundoVectorial y al de MundoTeselado, que además
+ *  calcula varias generaciones por tesela, sobre la misma sopa aleatoria.
+ *  Argumentos opcionales: lado del mundo (1024) y generaciones (200).
+ *  Muestra nanosegundos por celda, celdas por segundo y la aceleración.
+ *  @since: prototipo2.2
+ *  @source: RendimientoMotores.java
+ *  @version: 1.0 - 2016/06/23
+ *  @author: ajp
+ */
+import java.util.Arrays;
+import java.util.Random;
+
+import modelo.Mundo;
+import modelo.MundoTeselado;
+import modelo.MundoVectorial;
+
+public class RendimientoMotores {
+
+	// Generaciones previas a la medida para que el compilador JIT actúe.
+	private static final int CALENTAMIENTO = 50;
+
+	public static void main(String[] args) {
+		int lado = (args.length > 0) ? Integer.parseInt(args[0]) : 1024;
+		int generaciones = (args.length > 1) ? Integer.parseInt(args[1]) : 200;
+
+		Mundo escalar = new Mundo("Escalar", null, null, lado, lado);
+		Random aleatorio = new Random(2016);
+		for (int i = 0; i < lado; i++) {
+			for (int j = 0; j < lado; j++) {
+				escalar.setCelda(i, j, (byte) (aleatorio.nextBoolean() ? 1 : 0));
+			}
+		}
+		escalar.setTopologia(Mundo.Topologia.TOROIDAL);
+		Mundo vectorial = new MundoVectorial(escalar);
+		Mundo teselado = new MundoTeselado(escalar);
+
+		double nsEscalar = medir(escalar, generaciones);
+		double nsVectorial = medir(vectorial, generaciones);
+		double nsTeselado = medir(teselado, generaciones);
+		System.out.printf("%dx%d, %d generaciones%n", lado, lado, generaciones);
+		System.out.printf("Escalar:   %6.3f ns/celda  %8.1f Mceldas/s%n", nsEscalar, 1000 / nsEscalar);
+		System.out.printf("Vectorial: %6.3f ns/celda  %8.1f Mceldas/s%n", nsVectorial, 1000 / nsVectorial);
+		System.out.printf("Teselado:  %6.3f ns/celda  %8.1f Mceldas/s%n", nsTeselado, 1000 / nsTeselado);
+		System.out.printf("Aceleración: x%.2f vectorial, x%.2f teselado%n",
+				nsEscalar / nsVectorial, nsEscalar / nsTeselado);
+		if (!Arrays.equals(escalar.copiarCeldas(null), vectorial.copiarCeldas(null))
+				|| !Arrays.equals(escalar.copiarCeldas(null), teselado.copiarCeldas(null))) {
+			System.out.println("ERROR: los motores no coinciden.");
+		}
+	}
+
+	/**
+	 * @return los nanosegundos por celda y generación.
+	 */
+	private static double medir(Mundo mundo, int generaciones) {
+		mundo.avanzar(CALENTAMIENTO);
+		long inicio = System.nanoTime();
+		mundo.avanzar(generaciones);
+		long tiempo = System.nanoTime() - inicio;
+		return (double) tiempo / generaciones / mundo.getFilas() / mundo.getColumnas();
+	}
+
+}
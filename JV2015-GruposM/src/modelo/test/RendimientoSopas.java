@@ -0,0 +1,57 @@
+package modelo.test;
+/**
+ * Proyecto: Juego de la vida.
+ *  Programa de medida del rendimiento de BusquedaSopas con el catálogo
+ *  predeterminado de Censo. Argumentos opcionales: número de sopas
+ *  (20000), lado de las sopas (16) y semilla (2016).
+ *  Muestra sopas por segundo en total y por núcleo, que es la medida a
+ *  seguir, y los objetos más frecuentes y más raros.
+ *  @since: prototipo2.2
+ *  @source: RendimientoSopas.java
+ *  @version: 1.0 - 2016/07/07
+ *  @author: ajp
+ */
+import java.util.List;
+import java.util.Map;
+
+import modelo.BusquedaSopas;
+import modelo.Censo;
+import modelo.Patron;
+import modelo.Regla;
+import modelo.ResultadoSopas;
+
+public class RendimientoSopas {
+
+	// Sopas previas a la medida para que el compilador JIT actúe.
+	private static final int CALENTAMIENTO = 2000;
+
+	public static void main(String[] args) {
+		long sopas = (args.length > 0) ? Long.parseLong(args[0]) : 20000;
+		int lado = (args.length > 1) ? Integer.parseInt(args[1]) : 16;
+		long semilla = (args.length > 2) ? Long.parseLong(args[2]) : 2016;
+
+		BusquedaSopas busqueda = new BusquedaSopas(semilla, lado, Regla.CONWAY,
+				Censo.obtenerPredeterminados());
+		busqueda.buscar(CALENTAMIENTO);
+		long inicio = System.nanoTime();
+		ResultadoSopas resultado = busqueda.buscar(sopas);
+		double segundos = (System.nanoTime() - inicio) / 1e9;
+
+		System.out.printf("%d sopas %dx%d, %d hilos%n", sopas, lado, lado,
+				Runtime.getRuntime().availableProcessors());
+		System.out.printf("Total:  %10.1f sopas/s  %6.1f generaciones/sopa  %d sin estabilizar%n",
+				sopas / segundos, (double) resultado.getGeneraciones() / sopas,
+				resultado.getInestables());
+		System.out.printf("Núcleo: %10.1f sopas/s%n", resultado.getSopasSegundoNucleo());
+		for (Map.Entry<String, Long> entrada : resultado.getRecuento().entrySet()) {
+			System.out.printf("  %-12s %10d%n", entrada.getKey(), entrada.getValue());
+		}
+		List<Patron> raros = resultado.obtenerRaros(1);
+		System.out.printf("%d formas desconocidas, %d vistas una vez%n",
+				resultado.getNumDesconocidos(), raros.size());
+		for (int k = 0; k < Math.min(5, raros.size()); k++) {
+			System.out.println("  " + raros.get(k).getNombre());
+		}
+	}
+
+}
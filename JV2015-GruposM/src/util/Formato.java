@@ -53,6 +53,8 @@ public class Formato {
 	public static final String PATRON_CP = "^([1-9]{2}|[0-9][1-9]|[1-9][0-9])[0-9]{3}$";
 	public static final String PATRON_NUMERO_POSTAL = "[\\d]+[\\w]?";
 
+	public static final String PATRON_REGLA = "^(B[0-8]*/S[0-8]*|S[0-8]*/B[0-8]*)$";
+
 	public static final String PATRON_NOMBRE_PERSONA = "^[A-ZÑ][áéíóúña-z \\w]+";
 	public static final String PATRON_APELLIDOS = "^[A-ZÑ][áéíóúña-z]+[ A-ZÑáéíóúñ\\w]*";
 	public static final String PATRON_TOPONIMO = "^[A-ZÑ][áéíóúña-z \\w]+";
@@ -0,0 +1,175 @@
+/**
+ * Proyecto: Juego de la vida.
+ *  Tabla hash con claves long primitivas, sin objetos Long por clave.
+ *  Direccionamiento abierto con sondeo lineal sobre arrays de potencia
+ *  de dos; el borrado desplaza hacia atrás las entradas siguientes, por
+ *  lo que no deja marcas de borrado. Sólo contiene arrays, de modo que
+ *  se puede persistir con serialización estándar y con db4o.
+ *  No admite valores null.
+ *  @since: prototipo2.2
+ *  @source: TablaLong.java
+ *  @version: 1.0 - 2016/06/22
+ *  @author: ajp
+ */
+package util;
+
+import java.io.Serializable;
+
+public class TablaLong<V> implements Serializable {
+
+	private static final int CAPACIDAD_INICIAL = 16;
+
+	// Atributos
+	private long[] claves;
+	private Object[] valores;		// null indica posición libre
+	private int tamaño;
+
+	/**
+	 * Constructor por defecto.
+	 */
+	public TablaLong() {
+		claves = new long[CAPACIDAD_INICIAL];
+		valores = new Object[CAPACIDAD_INICIAL];
+	}
+
+	/**
+	 * @return el número de entradas.
+	 */
+	public int size() {
+		return tamaño;
+	}
+
+	/**
+	 * Obtiene el valor asociado a una clave.
+	 * @param clave
+	 * @return el valor o null si no existe.
+	 */
+	@SuppressWarnings("unchecked")
+	public V get(long clave) {
+		int mascara = claves.length - 1;
+		for (int i = indice(clave, mascara); valores[i] != null; i = (i + 1) & mascara) {
+			if (claves[i] == clave) {
+				return (V) valores[i];
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Asocia un valor a una clave reemplazando el anterior.
+	 * @param clave
+	 * @param valor - no puede ser null.
+	 * @return el valor anterior o null si no existía.
+	 */
+	@SuppressWarnings("unchecked")
+	public V put(long clave, V valor) {
+		assert valor != null;
+		int mascara = claves.length - 1;
+		int i = indice(clave, mascara);
+		for (; valores[i] != null; i = (i + 1) & mascara) {
+			if (claves[i] == clave) {
+				V anterior = (V) valores[i];
+				valores[i] = valor;
+				return anterior;
+			}
+		}
+		claves[i] = clave;
+		valores[i] = valor;
+		if (++tamaño * 2 > claves.length) {
+			redimensionar(claves.length * 2);
+		}
+		return null;
+	}
+
+	/**
+	 * Elimina una clave.
+	 * @param clave
+	 * @return el valor eliminado o null si no existía.
+	 */
+	@SuppressWarnings("unchecked")
+	public V remove(long clave) {
+		int mascara = claves.length - 1;
+		int i = indice(clave, mascara);
+		for (; valores[i] != null; i = (i + 1) & mascara) {
+			if (claves[i] == clave) {
+				V anterior = (V) valores[i];
+				desplazar(i, mascara);
+				tamaño--;
+				return anterior;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Elimina todas las entradas y recupera la capacidad inicial.
+	 */
+	public void clear() {
+		claves = new long[CAPACIDAD_INICIAL];
+		valores = new Object[CAPACIDAD_INICIAL];
+		tamaño = 0;
+	}
+
+	/**
+	 * Copia las claves en el array recibido, que se reutiliza si tiene
+	 * capacidad suficiente; las claves ocupan las size() primeras posiciones.
+	 * @param destino - el array a rellenar; puede ser null.
+	 * @return el array con las claves; destino o uno nuevo si no era válido.
+	 */
+	public long[] copiarClaves(long[] destino) {
+		if (destino == null || destino.length < tamaño) {
+			destino = new long[Math.max(tamaño, CAPACIDAD_INICIAL)];
+		}
+		int n = 0;
+		for (int i = 0; i < claves.length; i++) {
+			if (valores[i] != null) {
+				destino[n++] = claves[i];
+			}
+		}
+		return destino;
+	}
+
+	/**
+	 * Rellena el hueco i moviendo hacia atrás las entradas siguientes
+	 * cuya posición ideal no queda entre el hueco y su posición actual.
+	 */
+	private void desplazar(int hueco, int mascara) {
+		valores[hueco] = null;
+		for (int i = (hueco + 1) & mascara; valores[i] != null; i = (i + 1) & mascara) {
+			int ideal = indice(claves[i], mascara);
+			if (((i - ideal) & mascara) >= ((i - hueco) & mascara)) {
+				claves[hueco] = claves[i];
+				valores[hueco] = valores[i];
+				valores[i] = null;
+				hueco = i;
+			}
+		}
+	}
+
+	private void redimensionar(int capacidad) {
+		long[] clavesAnteriores = claves;
+		Object[] valoresAnteriores = valores;
+		claves = new long[capacidad];
+		valores = new Object[capacidad];
+		int mascara = capacidad - 1;
+		for (int j = 0; j < clavesAnteriores.length; j++) {
+			if (valoresAnteriores[j] != null) {
+				int i = indice(clavesAnteriores[j], mascara);
+				while (valores[i] != null) {
+					i = (i + 1) & mascara;
+				}
+				claves[i] = clavesAnteriores[j];
+				valores[i] = valoresAnteriores[j];
+			}
+		}
+	}
+
+	/**
+	 * Posición ideal de una clave: mezcla multiplicativa de sus 64 bits.
+	 */
+	private static int indice(long clave, int mascara) {
+		long h = clave * 0x9E3779B97F4A7C15L;
+		return (int) (h ^ (h >>> 32)) & mascara;
+	}
+
+} //class